@@ -0,0 +1,66 @@
+package org.fiware.iam.benchmark;
+
+import org.fiware.iam.TIRMapper;
+import org.fiware.iam.til.model.CredentialsVO;
+import org.fiware.iam.tir.model.IssuerAttributeVO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding a credential into an issuer attribute through intermediate arrays and a new digest per call, as
+ * the registry mapper did before, with the streaming {@link org.fiware.iam.AttributeEncoder}. Run with "-prof gc",
+ * gc.alloc.rate.norm is the number of bytes allocated per attribute.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AttributeEncoderBenchmark {
+
+	@Param({ "1", "10" })
+	public int claims;
+
+	@Param({ "5" })
+	public int values;
+
+	private CredentialsVO credential;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		credential = BenchmarkContext.wideIssuer("did:web:encoder.org", 1, claims, values)
+				.getCredentials()
+				.getFirst();
+	}
+
+	@Benchmark
+	public IssuerAttributeVO intermediateArrays() throws Exception {
+		byte[] body = TIRMapper.OBJECT_WRITER.writeValueAsBytes(credential);
+		return new IssuerAttributeVO()
+				.issuerType(IssuerAttributeVO.IssuerType.UNDEFINED)
+				.body(Base64.getEncoder().encodeToString(body))
+				.hash(Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(body)));
+	}
+
+	@Benchmark
+	public IssuerAttributeVO streaming() throws Exception {
+		IssuerAttributeVO attribute = new IssuerAttributeVO().issuerType(IssuerAttributeVO.IssuerType.UNDEFINED);
+		TIRMapper.ATTRIBUTE_ENCODER.encode(credential, attribute);
+		return attribute;
+	}
+}
@@ -0,0 +1,69 @@
+package org.fiware.iam.benchmark;
+
+import io.micronaut.context.ApplicationContext;
+import org.fiware.iam.TILMapper;
+import org.fiware.iam.TIRMapper;
+import org.fiware.iam.repository.TrustedIssuerRepository;
+import org.fiware.iam.til.model.ClaimVO;
+import org.fiware.iam.til.model.CredentialsVO;
+import org.fiware.iam.til.model.TrustedIssuerVO;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Starts the application context for the benchmarks, backed by an in-memory H2, and creates the issuers to benchmark
+ * with.
+ */
+public final class BenchmarkContext {
+
+	private BenchmarkContext() {
+		// prevent instantiation
+	}
+
+	/**
+	 * Start a new context with its own in-memory database. The HTTP-server will not be started.
+	 *
+	 * @return the running context
+	 */
+	public static ApplicationContext start() {
+		return ApplicationContext.run(Map.of(
+				"datasources.default.url",
+				String.format("jdbc:h2:mem:%s;LOCK_TIMEOUT=10000;DB_CLOSE_ON_EXIT=FALSE", UUID.randomUUID()),
+				"datasources.default.driverClassName", "org.h2.Driver",
+				"datasources.default.username", "user",
+				"datasources.default.password", "password",
+				"datasources.default.dialect", "H2",
+				"micronaut.metrics.enabled", false));
+	}
+
+	/**
+	 * Build an issuer with the given number of credentials, claims per credential and values per claim.
+	 */
+	public static TrustedIssuerVO wideIssuer(String did, int credentials, int claims, int values) {
+		List<CredentialsVO> credentialsVOS = IntStream.range(0, credentials)
+				.mapToObj(credential -> new CredentialsVO()
+						.credentialsType("Credential" + credential)
+						.claims(IntStream.range(0, claims)
+								.mapToObj(claim -> new ClaimVO()
+										.name("claim" + claim)
+										.allowedValues(IntStream.range(0, values)
+												.mapToObj(value -> (Object) ("value" + value))
+												.toList()))
+								.toList()))
+				.toList();
+		return new TrustedIssuerVO().did(did).credentials(credentialsVOS);
+	}
+
+	/**
+	 * Persist the issuer the same way the trusted issuers list api does.
+	 */
+	public static void persist(ApplicationContext context, TrustedIssuerVO trustedIssuerVO) {
+		TILMapper listMapper = context.getBean(TILMapper.class);
+		TIRMapper registryMapper = context.getBean(TIRMapper.class);
+		context.getBean(TrustedIssuerRepository.class)
+				.save(registryMapper.encodeAttributes(listMapper.map(trustedIssuerVO)));
+	}
+}
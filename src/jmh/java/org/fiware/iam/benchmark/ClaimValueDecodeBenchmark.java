@@ -0,0 +1,75 @@
+package org.fiware.iam.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.fiware.iam.TILMapper;
+import org.fiware.iam.repository.ClaimValue;
+import org.fiware.iam.repository.ClaimValueType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares reading the claim values of a claim-heavy issuer by trying all types, as done for values without a type,
+ * with the single parse of typed values. Run with "-prof gc" to see the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClaimValueDecodeBenchmark {
+
+	// 20 credentials with 10 claims each
+	@Param({ "200" })
+	public int claims;
+
+	@Param({ "5" })
+	public int values;
+
+	private List<ClaimValue> claimValues;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		List<Object> allowedValues = List.of("GOLD_CUSTOMER", 12, true, Map.of("role", "admin"), 1.5);
+		claimValues = IntStream.range(0, claims * values)
+				.mapToObj(index -> allowedValues.get(index % allowedValues.size()))
+				.map(ClaimValueDecodeBenchmark::toClaimValue)
+				.toList();
+	}
+
+	@Benchmark
+	public void untyped(Blackhole blackhole) {
+		claimValues.forEach(claimValue -> blackhole.consume(TILMapper.readUntyped(claimValue)));
+	}
+
+	@Benchmark
+	public void typed(Blackhole blackhole) {
+		claimValues.forEach(claimValue -> blackhole.consume(TILMapper.readToObject(claimValue)));
+	}
+
+	private static ClaimValue toClaimValue(Object value) {
+		try {
+			return new ClaimValue()
+					.setValue(TILMapper.OBJECT_WRITER.writeValueAsString(value))
+					.setValueType(ClaimValueType.of(value));
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
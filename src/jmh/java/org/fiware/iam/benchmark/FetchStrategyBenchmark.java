@@ -0,0 +1,69 @@
+package org.fiware.iam.benchmark;
+
+import io.micronaut.context.ApplicationContext;
+import org.fiware.iam.repository.TrustedIssuer;
+import org.fiware.iam.repository.TrustedIssuerGraphLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loading a complete issuer through the single left-joined query with the batched, per-level queries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FetchStrategyBenchmark {
+
+	private static final String DID = "did:web:wide.issuer";
+
+	@Param({ "1", "20" })
+	public int credentials;
+
+	@Param({ "10" })
+	public int claims;
+
+	@Param({ "1", "20" })
+	public int values;
+
+	private ApplicationContext context;
+	private TrustedIssuerGraphLoader graphLoader;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start();
+		graphLoader = context.getBean(TrustedIssuerGraphLoader.class);
+		BenchmarkContext.persist(context, BenchmarkContext.wideIssuer(DID, credentials, claims, values));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Optional<TrustedIssuer> joined() {
+		return graphLoader.loadJoined(DID);
+	}
+
+	@Benchmark
+	public Optional<TrustedIssuer> batched() {
+		return graphLoader.loadBatched(DID);
+	}
+}
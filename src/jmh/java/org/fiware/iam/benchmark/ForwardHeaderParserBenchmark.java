@@ -0,0 +1,128 @@
+package org.fiware.iam.benchmark;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.MutableHttpRequest;
+import io.micronaut.http.uri.UriBuilder;
+import org.fiware.iam.filter.ForwardHeaderParser;
+import org.fiware.iam.filter.ForwardedForFilter;
+import org.fiware.iam.filter.ForwardedInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses the forwarding headers of a request and builds the url of the original request, as done for every request
+ * by the forwarded-for filter. Compares the previous parsing, splitting the header and stripping quotes with a
+ * regular expression and building every url, with the single-pass parser and the cached urls. Run with "-prof gc" to
+ * see the allocations per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ForwardHeaderParserBenchmark {
+
+	/**
+	 * Headers set at the request.
+	 */
+	public enum Headers {
+		NONE,
+		LEGACY,
+		FORWARDED,
+		BOTH
+	}
+
+	@Param
+	public Headers headers;
+
+	private ApplicationContext context;
+	private ForwardHeaderParser parser;
+	private ForwardedForFilter filter;
+	private HttpRequest<?> request;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start();
+		parser = context.getBean(ForwardHeaderParser.class);
+		filter = context.getBean(ForwardedForFilter.class);
+		MutableHttpRequest<?> mutableRequest = HttpRequest.GET("/v4/issuers");
+		if (headers == Headers.LEGACY || headers == Headers.BOTH) {
+			mutableRequest
+					.header("X-Forwarded-Proto", "https")
+					.header("X-Forwarded-Host", "til.example.org")
+					.header("X-Forwarded-Port", "8443")
+					.header("X-Forwarded-Prefix", "/til");
+		}
+		if (headers == Headers.FORWARDED || headers == Headers.BOTH) {
+			mutableRequest.header(HttpHeaders.FORWARDED,
+					"for=192.0.2.60;proto=https;host=\"til.example.org:8443\";by=203.0.113.43");
+		}
+		request = mutableRequest;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public URI splitAndBuild() {
+		ForwardedInfo forwardedInfo = new ForwardedInfo(null, "http", "localhost", 8080, null, "");
+		HttpHeaders httpHeaders = request.getHeaders();
+		Optional.ofNullable(httpHeaders.get("X-Forwarded-Proto")).ifPresent(forwardedInfo::setForwardedProto);
+		Optional.ofNullable(httpHeaders.get("X-Forwarded-Host")).ifPresent(forwardedInfo::setForwardedHost);
+		Optional.ofNullable(httpHeaders.get("X-Forwarded-Port")).ifPresent(forwardedInfo::setForwardedPortStr);
+		Optional.ofNullable(httpHeaders.get("X-Forwarded-Prefix")).ifPresent(forwardedInfo::setForwardedPrefix);
+		String forwardedHeader = httpHeaders.get(HttpHeaders.FORWARDED);
+		if (forwardedHeader != null) {
+			for (String directive : forwardedHeader.split(";")) {
+				String[] keyValue = directive.trim().split(",")[0].split("=", 2);
+				if (keyValue.length == 2) {
+					String key = keyValue[0].trim().toLowerCase();
+					String value = keyValue[1].trim().replaceAll("^\"|\"$", "");
+					switch (key) {
+						case "for" -> forwardedInfo.setForwardedFor(value);
+						case "proto" -> forwardedInfo.setForwardedProto(value);
+						case "host" -> {
+							String[] hostParts = value.split(":", 2);
+							forwardedInfo.setForwardedHost(hostParts[0]);
+							forwardedInfo.setForwardedPort(hostParts.length == 2 ? Integer.parseInt(hostParts[1]) : 0);
+						}
+						case "by" -> forwardedInfo.setForwardedBy(value);
+						default -> {
+						}
+					}
+				}
+			}
+		}
+		UriBuilder builder = UriBuilder.of(forwardedInfo.getForwardedProto() + "://" + forwardedInfo.getForwardedHost())
+				.path(forwardedInfo.getForwardedPrefix());
+		if (forwardedInfo.getForwardedPort() != 443) {
+			builder.port(forwardedInfo.getForwardedPort());
+		}
+		return builder.build();
+	}
+
+	@Benchmark
+	public URI singlePassAndCached() {
+		return filter.getReqUrl(request, parser.parse(request));
+	}
+}
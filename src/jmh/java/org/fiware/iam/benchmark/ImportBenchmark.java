@@ -0,0 +1,84 @@
+package org.fiware.iam.benchmark;
+
+import io.micronaut.context.ApplicationContext;
+import org.fiware.iam.rest.TrustedIssuersListController;
+import org.fiware.iam.service.ImportResult;
+import org.fiware.iam.service.TrustedIssuerImporter;
+import org.fiware.iam.til.model.TrustedIssuerVO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares creating issuers one by one, as done by the trusted-list api, with the chunked bulk import. Both write
+ * {@link #ISSUERS} new issuers per invocation, the results are reported per issuer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportBenchmark {
+
+	private static final int ISSUERS = 500;
+
+	@Param({ "0", "5" })
+	public int credentials;
+
+	private ApplicationContext context;
+	private TrustedIssuersListController listController;
+	private TrustedIssuerImporter importer;
+	private int invocation;
+	private List<TrustedIssuerVO> issuers;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start();
+		listController = context.getBean(TrustedIssuersListController.class);
+		importer = context.getBean(TrustedIssuerImporter.class);
+	}
+
+	// every invocation needs new dids, otherwise only conflicts would be measured
+	@Setup(Level.Invocation)
+	public void prepareIssuers() {
+		int prefix = invocation++;
+		issuers = IntStream.range(0, ISSUERS)
+				.mapToObj(i -> BenchmarkContext.wideIssuer(String.format("did:web:%s.%s", prefix, i), credentials, 2, 2))
+				.toList();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ISSUERS)
+	public void singleCreate() {
+		issuers.forEach(listController::createTrustedIssuer);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ISSUERS)
+	public List<ImportResult> bulkImport() {
+		return importer.importChunk(IntStream.range(0, issuers.size())
+				.mapToObj(i -> new TrustedIssuerImporter.ImportItem(i, issuers.get(i)))
+				.toList());
+	}
+}
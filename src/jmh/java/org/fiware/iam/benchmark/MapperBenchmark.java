@@ -0,0 +1,92 @@
+package org.fiware.iam.benchmark;
+
+import io.micronaut.context.ApplicationContext;
+import org.fiware.iam.TILMapper;
+import org.fiware.iam.TIRMapper;
+import org.fiware.iam.repository.TrustedIssuer;
+import org.fiware.iam.til.model.ClaimVO;
+import org.fiware.iam.til.model.TrustedIssuerVO;
+import org.fiware.iam.tir.model.IssuerVO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps issuers of growing size between the api models and the entities, as done on every read and write. The
+ * registry mapping uses the attributes encoded on write, the list mapping decodes all claim values.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+	@Param({ "1", "20" })
+	public int credentials;
+
+	@Param({ "10" })
+	public int claims;
+
+	@Param({ "1", "20" })
+	public int values;
+
+	private ApplicationContext context;
+	private TILMapper listMapper;
+	private TIRMapper registryMapper;
+	private TrustedIssuerVO trustedIssuerVO;
+	private TrustedIssuer trustedIssuer;
+	private List<ClaimVO> claimVOS;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start();
+		listMapper = context.getBean(TILMapper.class);
+		registryMapper = context.getBean(TIRMapper.class);
+		trustedIssuerVO = BenchmarkContext.wideIssuer("did:web:mapper.org", credentials, claims, values);
+		trustedIssuer = registryMapper.encodeAttributes(listMapper.map(trustedIssuerVO));
+		claimVOS = trustedIssuerVO.getCredentials().stream()
+				.flatMap(credentialsVO -> credentialsVO.getClaims().stream())
+				.toList();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public IssuerVO registryIssuer() {
+		return registryMapper.map(trustedIssuer);
+	}
+
+	@Benchmark
+	public TrustedIssuerVO listIssuer() {
+		return listMapper.map(trustedIssuer);
+	}
+
+	@Benchmark
+	public void claimEntities(Blackhole blackhole) {
+		claimVOS.forEach(claimVO -> blackhole.consume(listMapper.map(claimVO)));
+	}
+
+	@Benchmark
+	public TrustedIssuer writeIssuer() {
+		return registryMapper.encodeAttributes(listMapper.map(trustedIssuerVO));
+	}
+}
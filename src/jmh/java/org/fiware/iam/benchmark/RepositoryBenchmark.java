@@ -0,0 +1,85 @@
+package org.fiware.iam.benchmark;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.data.model.Pageable;
+import io.micronaut.data.model.Sort;
+import org.fiware.iam.repository.TrustedIssuer;
+import org.fiware.iam.repository.TrustedIssuerGraphLoader;
+import org.fiware.iam.repository.TrustedIssuerRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads issuers of growing size through the paths used by the controllers: a single issuer by its DID and a page of
+ * complete issuers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+	private static final String DID_TEMPLATE = "did:web:issuer-%04d.org";
+	private static final int ISSUERS = 200;
+	private static final int PAGE_SIZE = 50;
+
+	@Param({ "1", "20" })
+	public int credentials;
+
+	@Param({ "10" })
+	public int claims;
+
+	@Param({ "1", "20" })
+	public int values;
+
+	private ApplicationContext context;
+	private TrustedIssuerRepository trustedIssuerRepository;
+	private TrustedIssuerGraphLoader graphLoader;
+	private Pageable page;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start();
+		trustedIssuerRepository = context.getBean(TrustedIssuerRepository.class);
+		graphLoader = context.getBean(TrustedIssuerGraphLoader.class);
+		for (int i = 0; i < ISSUERS; i++) {
+			BenchmarkContext.persist(context,
+					BenchmarkContext.wideIssuer(String.format(DID_TEMPLATE, i), credentials, claims, values));
+		}
+		page = Pageable.from(1, PAGE_SIZE, Sort.of(Sort.Order.asc("did")));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Optional<TrustedIssuer> getByDid() {
+		next = (next + 1) % ISSUERS;
+		return graphLoader.load(String.format(DID_TEMPLATE, next));
+	}
+
+	@Benchmark
+	public List<TrustedIssuer> findAll() {
+		return graphLoader.loadAll(trustedIssuerRepository.findDidByDidIsNotNull(page));
+	}
+}
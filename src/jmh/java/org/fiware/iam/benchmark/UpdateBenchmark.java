@@ -0,0 +1,95 @@
+package org.fiware.iam.benchmark;
+
+import io.micronaut.context.ApplicationContext;
+import org.fiware.iam.TILMapper;
+import org.fiware.iam.TIRMapper;
+import org.fiware.iam.repository.CredentialRepository;
+import org.fiware.iam.repository.TrustedIssuer;
+import org.fiware.iam.repository.TrustedIssuerRepository;
+import org.fiware.iam.service.TrustedIssuerUpdater;
+import org.fiware.iam.til.model.ClaimVO;
+import org.fiware.iam.til.model.TrustedIssuerVO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares replacing all credentials of an issuer, as the trusted-list api did before, with the diff-based update.
+ * Every invocation changes a single claim value of a wide issuer, alternating between two states.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UpdateBenchmark {
+
+	private static final String DID = "did:web:update.org";
+
+	@Param({ "5", "20" })
+	public int credentials;
+
+	private ApplicationContext context;
+	private TrustedIssuerRepository trustedIssuerRepository;
+	private CredentialRepository credentialRepository;
+	private TrustedIssuerUpdater updater;
+	private TILMapper listMapper;
+	private TIRMapper registryMapper;
+	private TrustedIssuerVO[] states;
+	private int invocation;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start();
+		trustedIssuerRepository = context.getBean(TrustedIssuerRepository.class);
+		credentialRepository = context.getBean(CredentialRepository.class);
+		updater = context.getBean(TrustedIssuerUpdater.class);
+		listMapper = context.getBean(TILMapper.class);
+		registryMapper = context.getBean(TIRMapper.class);
+
+		TrustedIssuerVO changedIssuer = BenchmarkContext.wideIssuer(DID, credentials, 3, 5);
+		ClaimVO changedClaim = changedIssuer.getCredentials().getFirst().getClaims().getFirst();
+		List<Object> changedValues = new ArrayList<>(changedClaim.getAllowedValues());
+		changedValues.set(0, "changed");
+		changedClaim.allowedValues(changedValues);
+		states = new TrustedIssuerVO[] { BenchmarkContext.wideIssuer(DID, credentials, 3, 5), changedIssuer };
+		BenchmarkContext.persist(context, states[0]);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public TrustedIssuer replace() {
+		TrustedIssuer trustedIssuer = trustedIssuerRepository.getByDid(DID).orElseThrow();
+		credentialRepository.deleteAll(trustedIssuer.getCredentials());
+		return trustedIssuerRepository.update(registryMapper.encodeAttributes(listMapper.map(nextState())));
+	}
+
+	@Benchmark
+	public Optional<TrustedIssuer> diff() {
+		return updater.update(DID, nextState());
+	}
+
+	private TrustedIssuerVO nextState() {
+		return states[++invocation % 2];
+	}
+}
@@ -0,0 +1,192 @@
+package org.fiware.iam.load;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Sends a mix of requests to the read endpoints of both apis with a fixed number of requests in flight and measures
+ * their latencies. Every request is sent from its own virtual thread through the jdk http client, thus the driver
+ * itself does not limit the concurrency.
+ */
+public class LoadDriver {
+
+	private static final int PAGE_SIZE = 100;
+
+	/**
+	 * Endpoints exercised by the driver, with their share of the requests in percent.
+	 */
+	public enum Endpoint {
+		TIR_ISSUER(60),
+		TIR_ISSUERS(5),
+		TIL_ISSUER(30),
+		TIL_ISSUERS(5);
+
+		private final int share;
+
+		Endpoint(int share) {
+			this.share = share;
+		}
+	}
+
+	private final URI baseUri;
+	private final int issuers;
+	private final int concurrency;
+	private final Random random;
+
+	public LoadDriver(URI baseUri, int issuers, int concurrency, long seed) {
+		this.baseUri = baseUri;
+		this.issuers = issuers;
+		this.concurrency = concurrency;
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * Send the given number of requests and wait for all of them to be answered.
+	 *
+	 * @param requests to send
+	 * @return throughput and latencies per endpoint
+	 */
+	public LoadReport run(int requests) throws Exception {
+		Endpoint[] endpoints = new Endpoint[requests];
+		URI[] uris = new URI[requests];
+		for (int i = 0; i < requests; i++) {
+			endpoints[i] = nextEndpoint();
+			uris[i] = uri(endpoints[i]);
+		}
+		// every request writes its own slot, the futures make them visible to the report
+		long[] latencies = new long[requests];
+		boolean[] errors = new boolean[requests];
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			HttpClient httpClient = HttpClient.newBuilder()
+					.executor(executor)
+					.connectTimeout(Duration.ofSeconds(10))
+					.build();
+			Semaphore inFlight = new Semaphore(concurrency);
+			List<Future<?>> futures = new ArrayList<>(requests);
+			long start = System.nanoTime();
+			for (int i = 0; i < requests; i++) {
+				int request = i;
+				inFlight.acquire();
+				futures.add(executor.submit(() -> {
+					long requestStart = System.nanoTime();
+					try {
+						HttpResponse<Void> response = httpClient.send(
+								HttpRequest.newBuilder(uris[request]).GET().build(),
+								HttpResponse.BodyHandlers.discarding());
+						errors[request] = response.statusCode() != 200;
+					} catch (Exception e) {
+						errors[request] = true;
+					} finally {
+						latencies[request] = System.nanoTime() - requestStart;
+						inFlight.release();
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+			return LoadReport.of(System.nanoTime() - start, endpoints, latencies, errors);
+		}
+	}
+
+	private Endpoint nextEndpoint() {
+		int value = random.nextInt(100);
+		for (Endpoint endpoint : Endpoint.values()) {
+			value -= endpoint.share;
+			if (value < 0) {
+				return endpoint;
+			}
+		}
+		return Endpoint.TIR_ISSUER;
+	}
+
+	private URI uri(Endpoint endpoint) {
+		String did = URLEncoder.encode(RegistryGenerator.did(random.nextInt(issuers)), StandardCharsets.UTF_8);
+		int page = random.nextInt(Math.max(1, issuers / PAGE_SIZE));
+		return baseUri.resolve(switch (endpoint) {
+			case TIR_ISSUER -> "/v4/issuers/" + did;
+			// the cursor is the last did of the previous page
+			case TIR_ISSUERS -> "/v4/issuers/?page%5Bsize%5D=" + PAGE_SIZE + (page == 0 ? "" :
+					"&page%5Bafter%5D=" + URLEncoder.encode(RegistryGenerator.did(page * PAGE_SIZE - 1),
+							StandardCharsets.UTF_8));
+			case TIL_ISSUER -> "/issuer/" + did;
+			case TIL_ISSUERS -> "/issuer?pageSize=" + PAGE_SIZE + "&page=" + page;
+		});
+	}
+
+	/**
+	 * Throughput of all requests and latency percentiles per endpoint.
+	 */
+	public record LoadReport(double requestsPerSecond, Map<Endpoint, EndpointReport> endpoints) {
+
+		static LoadReport of(long durationNanos, Endpoint[] endpoints, long[] latencies, boolean[] errors) {
+			Map<Endpoint, EndpointReport> reports = new EnumMap<>(Endpoint.class);
+			for (Endpoint endpoint : Endpoint.values()) {
+				long[] endpointLatencies = new long[latencies.length];
+				int count = 0;
+				int endpointErrors = 0;
+				for (int i = 0; i < latencies.length; i++) {
+					if (endpoints[i] == endpoint) {
+						endpointLatencies[count++] = latencies[i];
+						endpointErrors += errors[i] ? 1 : 0;
+					}
+				}
+				if (count > 0) {
+					reports.put(endpoint, EndpointReport.of(Arrays.copyOf(endpointLatencies, count), endpointErrors));
+				}
+			}
+			return new LoadReport(latencies.length * 1_000_000_000.0 / durationNanos, reports);
+		}
+
+		public int errors() {
+			return endpoints.values().stream().mapToInt(EndpointReport::errors).sum();
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder report = new StringBuilder(String.format("%.0f req/s", requestsPerSecond));
+			endpoints.forEach((endpoint, endpointReport) -> report.append(System.lineSeparator())
+					.append(String.format("  %-12s %s", endpoint, endpointReport)));
+			return report.toString();
+		}
+	}
+
+	/**
+	 * Latency percentiles of the requests to one endpoint, in milliseconds.
+	 */
+	public record EndpointReport(int requests, int errors, double p50, double p90, double p99, double max) {
+
+		static EndpointReport of(long[] latencies, int errors) {
+			Arrays.sort(latencies);
+			return new EndpointReport(latencies.length, errors, percentile(latencies, 0.5), percentile(latencies, 0.9),
+					percentile(latencies, 0.99), latencies[latencies.length - 1] / 1_000_000.0);
+		}
+
+		private static double percentile(long[] sortedLatencies, double percentile) {
+			int index = (int) Math.ceil(sortedLatencies.length * percentile) - 1;
+			return sortedLatencies[Math.max(0, index)] / 1_000_000.0;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%7d requests, %d errors, p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms",
+					requests, errors, p50, p90, p99, max);
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package org.fiware.iam.load;
+
+import io.micronaut.context.ApplicationContext;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.ImportConfig;
+import org.fiware.iam.service.ImportResult;
+import org.fiware.iam.service.TrustedIssuerImporter;
+import org.fiware.iam.til.model.ClaimVO;
+import org.fiware.iam.til.model.CredentialsVO;
+import org.fiware.iam.til.model.TimeRangeVOTestExample;
+import org.fiware.iam.til.model.TrustedIssuerVO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Populates the repositories of a running context with a synthetic registry. The issuers are written through the
+ * bulk importer, thus in chunks of {@code til.import.chunk-size} per transaction and with the same mapping as the
+ * apis use.
+ */
+@Slf4j
+public class RegistryGenerator {
+
+	private static final String DID_TEMPLATE = "did:web:issuer-%07d.org";
+	private static final List<String> CREDENTIAL_TYPES = List.of("VerifiableCredential", "EmployeeCredential",
+			"CustomerCredential", "OperatorCredential", "PacketDeliveryService", "NaturalPersonCredential");
+
+	private final RegistryShape shape;
+	private final Random random;
+
+	public RegistryGenerator(RegistryShape shape) {
+		this.shape = shape;
+		this.random = new Random(shape.seed());
+	}
+
+	/**
+	 * DID of the issuer with the given index, all indices below {@link RegistryShape#issuers()} exist once the
+	 * registry is generated.
+	 */
+	public static String did(int index) {
+		return String.format(DID_TEMPLATE, index);
+	}
+
+	/**
+	 * Write all issuers of the shape to the repositories of the context.
+	 *
+	 * @return number of created issuers
+	 */
+	public int generate(ApplicationContext context) {
+		TrustedIssuerImporter importer = context.getBean(TrustedIssuerImporter.class);
+		int chunkSize = context.getBean(ImportConfig.class).getChunkSize();
+		int created = 0;
+		long start = System.nanoTime();
+		for (int offset = 0; offset < shape.issuers(); offset += chunkSize) {
+			List<TrustedIssuerImporter.ImportItem> chunk = IntStream
+					.range(offset, Math.min(offset + chunkSize, shape.issuers()))
+					.mapToObj(index -> new TrustedIssuerImporter.ImportItem(index, issuer(index)))
+					.toList();
+			created += (int) importer.importChunk(chunk).stream()
+					.filter(result -> result.status() == ImportResult.Status.CREATED)
+					.count();
+			if ((offset / chunkSize) % 100 == 99) {
+				log.info("Generated {} of {} issuers.", offset + chunk.size(), shape.issuers());
+			}
+		}
+		log.info("Generated {} issuers in {} s.", created, (System.nanoTime() - start) / 1_000_000_000);
+		return created;
+	}
+
+	/**
+	 * Build the issuer with the given index. Not thread-safe, the issuers depend on the order they are built in.
+	 */
+	public TrustedIssuerVO issuer(int index) {
+		int credentials = shape.credentials().sample(random.nextDouble());
+		List<CredentialsVO> credentialsVOS = new ArrayList<>(credentials);
+		for (int credential = 0; credential < credentials; credential++) {
+			credentialsVOS.add(credential());
+		}
+		return new TrustedIssuerVO().did(did(index)).credentials(credentialsVOS);
+	}
+
+	private CredentialsVO credential() {
+		int claims = shape.claims().sample(random.nextDouble());
+		List<ClaimVO> claimVOS = new ArrayList<>(claims);
+		for (int claim = 0; claim < claims; claim++) {
+			claimVOS.add(new ClaimVO()
+					.name("claim" + claim)
+					.path(random.nextBoolean() ? "$.credentialSubject.claim" + claim : null)
+					.allowedValues(values()));
+		}
+		CredentialsVO credentialsVO = new CredentialsVO()
+				.credentialsType(CREDENTIAL_TYPES.get(random.nextInt(CREDENTIAL_TYPES.size())))
+				.claims(claimVOS);
+		if (random.nextBoolean()) {
+			credentialsVO.validFor(TimeRangeVOTestExample.build());
+		}
+		return credentialsVO;
+	}
+
+	// the value types occur as in typical trust frameworks: mostly strings, some roles as objects
+	private List<Object> values() {
+		int values = shape.values().sample(random.nextDouble());
+		List<Object> allowedValues = new ArrayList<>(values);
+		for (int value = 0; value < values; value++) {
+			int type = random.nextInt(10);
+			if (type < 6) {
+				allowedValues.add("VALUE_" + random.nextInt(1000));
+			} else if (type < 8) {
+				allowedValues.add(Map.of("domain", "example.org", "role", "ROLE_" + random.nextInt(20)));
+			} else if (type < 9) {
+				allowedValues.add(random.nextInt(100));
+			} else {
+				allowedValues.add(random.nextBoolean());
+			}
+		}
+		return allowedValues;
+	}
+}
@@ -0,0 +1,71 @@
+package org.fiware.iam.load;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.runtime.server.EmbeddedServer;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.repository.TrustedIssuerRepository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * End-to-end load test: starts the service, fills it with a synthetic registry and drives requests against both
+ * apis. Configured through system properties:
+ * <ul>
+ *     <li>the shape of the registry, see {@link RegistryShape#fromSystemProperties()}</li>
+ *     <li>"load.requests" (default 100000), "load.warmup-requests" (default 10000) and "load.concurrency" (default
+ *     200)</li>
+ *     <li>"load.datasource.url", "load.datasource.username", "load.datasource.password", "load.datasource.dialect"
+ *     and "load.datasource.driver" to run against an external database (PostgreSQL by default) instead of an
+ *     in-memory H2. Generation is skipped, if the database already contains the issuers.</li>
+ *     <li>any further application property, e.g. "-Dtil.cache.issuers.enabled=false"</li>
+ * </ul>
+ */
+@Slf4j
+public final class RegistryLoadTest {
+
+	private RegistryLoadTest() {
+		// prevent instantiation
+	}
+
+	public static void main(String[] args) throws Exception {
+		RegistryShape shape = RegistryShape.fromSystemProperties();
+		try (EmbeddedServer server = ApplicationContext.run(EmbeddedServer.class, serverProperties())) {
+			ApplicationContext context = server.getApplicationContext();
+			long existingIssuers = context.getBean(TrustedIssuerRepository.class).count();
+			if (existingIssuers < shape.issuers()) {
+				log.info("Generating the registry {}.", shape);
+				new RegistryGenerator(shape).generate(context);
+			} else {
+				log.info("Using the {} existing issuers.", existingIssuers);
+			}
+
+			LoadDriver loadDriver = new LoadDriver(server.getURI(), shape.issuers(),
+					Integer.getInteger("load.concurrency", 200), shape.seed());
+			loadDriver.run(Integer.getInteger("load.warmup-requests", 10_000));
+			LoadDriver.LoadReport report = loadDriver.run(Integer.getInteger("load.requests", 100_000));
+			log.info("Load with {} issuers: {}", shape.issuers(), report);
+		}
+	}
+
+	private static Map<String, Object> serverProperties() {
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("micronaut.server.port", -1);
+		String url = System.getProperty("load.datasource.url");
+		if (url == null) {
+			properties.put("datasources.default.url",
+					String.format("jdbc:h2:mem:%s;LOCK_TIMEOUT=10000;DB_CLOSE_ON_EXIT=FALSE", UUID.randomUUID()));
+			properties.put("datasources.default.driverClassName", "org.h2.Driver");
+			properties.put("datasources.default.dialect", "H2");
+		} else {
+			properties.put("datasources.default.url", url);
+			properties.put("datasources.default.driverClassName",
+					System.getProperty("load.datasource.driver", "org.postgresql.Driver"));
+			properties.put("datasources.default.dialect", System.getProperty("load.datasource.dialect", "POSTGRES"));
+		}
+		properties.put("datasources.default.username", System.getProperty("load.datasource.username", "user"));
+		properties.put("datasources.default.password", System.getProperty("load.datasource.password", "password"));
+		return properties;
+	}
+}
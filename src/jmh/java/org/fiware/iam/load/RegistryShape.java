@@ -0,0 +1,54 @@
+package org.fiware.iam.load;
+
+/**
+ * Size and shape of a synthetic registry. The number of credentials per issuer, claims per credential and values per
+ * claim are drawn from their range, biased towards the minimum, so that most issuers are small and few are wide, as in
+ * real registries.
+ *
+ * @param issuers     number of issuers to generate
+ * @param credentials range of credentials per issuer
+ * @param claims      range of claims per credential
+ * @param values      range of allowed values per claim
+ * @param seed        of the random generator, the same seed generates the same registry
+ */
+public record RegistryShape(int issuers, Range credentials, Range claims, Range values, long seed) {
+
+	/**
+	 * Inclusive range of a count.
+	 */
+	public record Range(int min, int max) {
+
+		public Range {
+			if (min < 0 || max < min) {
+				throw new IllegalArgumentException(String.format("Invalid range %s-%s.", min, max));
+			}
+		}
+
+		/**
+		 * Parse a range of the form "min-max" or a single, fixed count.
+		 */
+		public static Range parse(String range) {
+			String[] bounds = range.split("-", 2);
+			int min = Integer.parseInt(bounds[0].trim());
+			return new Range(min, bounds.length == 2 ? Integer.parseInt(bounds[1].trim()) : min);
+		}
+
+		// squaring the uniform value biases towards the minimum
+		int sample(double random) {
+			return min + (int) ((max - min + 1) * random * random);
+		}
+	}
+
+	/**
+	 * Read the shape from the system properties "load.issuers", "load.credentials", "load.claims", "load.values" and
+	 * "load.seed".
+	 */
+	public static RegistryShape fromSystemProperties() {
+		return new RegistryShape(
+				Integer.getInteger("load.issuers", 10_000),
+				Range.parse(System.getProperty("load.credentials", "1-5")),
+				Range.parse(System.getProperty("load.claims", "1-10")),
+				Range.parse(System.getProperty("load.values", "1-5")),
+				Long.getLong("load.seed", 42L));
+	}
+}
@@ -0,0 +1,191 @@
+package org.fiware.iam;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.fiware.iam.tir.model.IssuerAttributeVO;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Encodes a value into the body and hash of an {@link IssuerAttributeVO}. The json is streamed into the SHA-256 digest
+ * and a base64 encoder at once, using pooled buffers and digests. Thus, besides the generator of Jackson, only the two
+ * resulting strings are allocated per attribute. The output is identical to base64-encoding the serialized value and
+ * its SHA-256 hash with {@link java.util.Base64#getEncoder()}.
+ */
+public class AttributeEncoder {
+
+	private static final byte[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+			.getBytes(StandardCharsets.US_ASCII);
+	private static final byte PADDING = '=';
+	private static final int HASH_LENGTH = 32;
+	private static final int INITIAL_CAPACITY = 1024;
+	// buffers that grew beyond, e.g. for a single huge credential, are not kept in the pool
+	private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+	// the requests run on virtual threads, thus the buffers are pooled instead of kept per thread
+	private static final int POOL_SIZE = 64;
+
+	private final ObjectWriter objectWriter;
+	private final ArrayBlockingQueue<EncodingStream> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+	public AttributeEncoder(ObjectWriter objectWriter) {
+		this.objectWriter = objectWriter;
+	}
+
+	/**
+	 * Serialize the value and set the base64 encoded json as body and its base64 encoded SHA-256 hash as hash of the
+	 * attribute.
+	 *
+	 * @param value     to encode
+	 * @param attribute to set body and hash at
+	 * @throws IOException if the value cannot be serialized
+	 */
+	public void encode(Object value, IssuerAttributeVO attribute) throws IOException {
+		EncodingStream encodingStream = acquire();
+		try {
+			objectWriter.writeValue(encodingStream, value);
+			attribute.body(encodingStream.finishBody());
+			attribute.hash(encodingStream.finishHash());
+		} finally {
+			release(encodingStream);
+		}
+	}
+
+	private EncodingStream acquire() {
+		EncodingStream encodingStream = pool.poll();
+		return encodingStream == null ? new EncodingStream() : encodingStream;
+	}
+
+	private void release(EncodingStream encodingStream) {
+		if (encodingStream.capacity() <= MAX_POOLED_CAPACITY) {
+			encodingStream.reset();
+			pool.offer(encodingStream);
+		}
+	}
+
+	/**
+	 * Updates the digest with every written byte and appends its base64 encoding to a growing buffer.
+	 */
+	private static class EncodingStream extends OutputStream {
+
+		private final MessageDigest digest;
+		private final byte[] hash = new byte[HASH_LENGTH];
+		private final byte[] encodedHash = new byte[encodedLength(HASH_LENGTH)];
+		private byte[] encoded = new byte[INITIAL_CAPACITY];
+		private int length;
+		// up to two bytes, that do not yet form a complete block of three
+		private int pending;
+		private int pendingBytes;
+
+		EncodingStream() {
+			try {
+				digest = MessageDigest.getInstance("SHA-256");
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException("SHA-256 is not supported by the runtime.", e);
+			}
+		}
+
+		@Override
+		public void write(int b) {
+			digest.update((byte) b);
+			append(b);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int len) {
+			digest.update(bytes, offset, len);
+			for (int i = offset; i < offset + len; i++) {
+				append(bytes[i]);
+			}
+		}
+
+		String finishBody() {
+			ensureCapacity(4);
+			length = encodeTail(pending, pendingBytes, encoded, length);
+			return new String(encoded, 0, length, StandardCharsets.ISO_8859_1);
+		}
+
+		String finishHash() throws IOException {
+			try {
+				digest.digest(hash, 0, HASH_LENGTH);
+			} catch (DigestException e) {
+				throw new IOException("Was not able to compute the hash.", e);
+			}
+			int hashLength = 0;
+			int i = 0;
+			for (; i + 2 < HASH_LENGTH; i += 3) {
+				hashLength = encodeBlock(((hash[i] & 0xff) << 16) | ((hash[i + 1] & 0xff) << 8) | (hash[i + 2] & 0xff),
+						encodedHash, hashLength);
+			}
+			int tail = 0;
+			for (int j = i; j < HASH_LENGTH; j++) {
+				tail = (tail << 8) | (hash[j] & 0xff);
+			}
+			hashLength = encodeTail(tail, HASH_LENGTH - i, encodedHash, hashLength);
+			return new String(encodedHash, 0, hashLength, StandardCharsets.ISO_8859_1);
+		}
+
+		int capacity() {
+			return encoded.length;
+		}
+
+		void reset() {
+			digest.reset();
+			length = 0;
+			pending = 0;
+			pendingBytes = 0;
+		}
+
+		private void append(int b) {
+			pending = (pending << 8) | (b & 0xff);
+			if (++pendingBytes == 3) {
+				ensureCapacity(4);
+				length = encodeBlock(pending, encoded, length);
+				pending = 0;
+				pendingBytes = 0;
+			}
+		}
+
+		private void ensureCapacity(int additional) {
+			if (length + additional > encoded.length) {
+				encoded = Arrays.copyOf(encoded, Math.max(encoded.length * 2, length + additional));
+			}
+		}
+	}
+
+	private static int encodedLength(int length) {
+		return 4 * ((length + 2) / 3);
+	}
+
+	// encodes the 24 bits of a complete block into four characters
+	private static int encodeBlock(int block, byte[] target, int position) {
+		target[position] = ALPHABET[(block >>> 18) & 0x3f];
+		target[position + 1] = ALPHABET[(block >>> 12) & 0x3f];
+		target[position + 2] = ALPHABET[(block >>> 6) & 0x3f];
+		target[position + 3] = ALPHABET[block & 0x3f];
+		return position + 4;
+	}
+
+	// encodes the remaining one or two bytes, padded to four characters
+	private static int encodeTail(int tail, int tailBytes, byte[] target, int position) {
+		return switch (tailBytes) {
+			case 1 -> {
+				encodeBlock(tail << 16, target, position);
+				target[position + 2] = PADDING;
+				target[position + 3] = PADDING;
+				yield position + 4;
+			}
+			case 2 -> {
+				encodeBlock(tail << 8, target, position);
+				target[position + 3] = PADDING;
+				yield position + 4;
+			}
+			default -> position;
+		};
+	}
+}
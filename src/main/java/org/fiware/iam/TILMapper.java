@@ -7,6 +7,7 @@ import com.fasterxml.jackson.databind.ObjectWriter;
 import org.fiware.iam.repository.Credential;
 import org.fiware.iam.repository.Claim;
 import org.fiware.iam.repository.ClaimValue;
+import org.fiware.iam.repository.ClaimValueType;
 import org.fiware.iam.repository.TrustedIssuer;
 import org.fiware.iam.til.model.*;
 import org.mapstruct.Mapper;
@@ -27,6 +28,9 @@ public interface TILMapper {
 
 	ObjectReader OBJECT_READER = new ObjectMapper().reader();
 	ObjectWriter OBJECT_WRITER = new ObjectMapper().writer();
+	ObjectReader NUMBER_READER = OBJECT_READER.forType(Number.class);
+	ObjectReader STRING_READER = OBJECT_READER.forType(String.class);
+	ObjectReader VALUE_READER = OBJECT_READER.forType(Object.class);
 
 	TrustedIssuer map(TrustedIssuerVO trustedIssuerVO);
 
@@ -58,20 +62,41 @@ public interface TILMapper {
 				.setClaimValues(
 						claimVO.getAllowedValues().stream().map(value -> {
 									try {
-										return OBJECT_WRITER.writeValueAsString(value);
+										return new ClaimValue()
+												.setValue(OBJECT_WRITER.writeValueAsString(value))
+												.setValueType(ClaimValueType.of(value));
 									} catch (JsonProcessingException e) {
 										LOGGER.warn("Was not able to serialize the claim value {}. Will skip it.", value, e);
 										return null;
 									}
 								})
 								.filter(Objects::nonNull)
-								.map(valueString -> new ClaimValue().setValue(valueString))
 								.toList());
 	}
 
+	// the value is read with a single parse to the type it was written with. Values persisted without a type are
+	// read by trying all types, the backfilled types reproduce the result of that.
+	static Object readToObject(ClaimValue claimValue) {
+		if (claimValue.getValueType() == null) {
+			return readUntyped(claimValue);
+		}
+		try {
+			return switch (claimValue.getValueType()) {
+				case NUMBER -> NUMBER_READER.readValue(claimValue.getValue());
+				case STRING -> STRING_READER.readValue(claimValue.getValue());
+				case BOOLEAN -> Boolean.valueOf(claimValue.getValue().strip());
+				case JSON -> VALUE_READER.readValue(claimValue.getValue());
+			};
+		} catch (IOException e) {
+			LOGGER.warn("Was not able to read the claimValue {} as {}. Will return null.", claimValue,
+					claimValue.getValueType(), e);
+			return null;
+		}
+	}
+
 	// in order to also properly read primitives(string,number,boolean) we try to read the value as such first and
 	// ignore potential exceptions and read it as an object just as a last step.
-	static Object readToObject(ClaimValue claimValue) {
+	static Object readUntyped(ClaimValue claimValue) {
 		LOGGER.debug("Try to read the claimValue {} to its proper object representation.", claimValue);
 		try {
 			return OBJECT_READER.readValue(claimValue.getValue(), Number.class);
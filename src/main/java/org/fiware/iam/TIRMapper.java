@@ -1,6 +1,5 @@
 package org.fiware.iam;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.SneakyThrows;
@@ -17,10 +16,13 @@ import org.mapstruct.Mapping;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.util.Base64;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.logging.LogManager;
 
 /**
@@ -31,6 +33,7 @@ public interface TIRMapper {
 
 	Logger LOGGER = LoggerFactory.getLogger(TIRMapper.class);
 	ObjectWriter OBJECT_WRITER = new ObjectMapper().writer();
+	AttributeEncoder ATTRIBUTE_ENCODER = new AttributeEncoder(OBJECT_WRITER);
 
 	CredentialsVO map(Credential credential);
 
@@ -46,7 +49,8 @@ public interface TIRMapper {
 	}
 
 	/**
-	 * Map an internal trusted issuer to a proper issuerVO. Will handle the hashing and encoding of the attributes
+	 * Map an internal trusted issuer to a proper issuerVO. Will use the attributes encoded on write and only handle the
+	 * hashing and encoding for credentials that were persisted without them.
 	 */
 	default IssuerVO map(TrustedIssuer trustedIssuer) {
 		IssuerVO issuerVO = new IssuerVO().did(trustedIssuer.getDid());
@@ -54,36 +58,76 @@ public interface TIRMapper {
 		List<IssuerAttributeVO> issuerAttributeVOS = trustedIssuer
 				.getCredentials()
 				.stream()
-				.map(this::map)
-				.map(this::map)
+				.map(this::toAttribute)
 				.toList();
 		issuerVO.attributes(issuerAttributeVOS);
 		return issuerVO;
 	}
 
+	default IssuerAttributeVO toAttribute(Credential credential) {
+		if (credential.getAttributeBody() == null || credential.getAttributeHash() == null) {
+			return map(map(credential));
+		}
+		return new IssuerAttributeVO()
+				.issuerType(IssuerAttributeVO.IssuerType.UNDEFINED)
+				.body(credential.getAttributeBody())
+				.hash(credential.getAttributeHash());
+	}
+
 	default IssuerAttributeVO map(CredentialsVO credentialsVO) {
 		IssuerAttributeVO issuerAttributeVO = new IssuerAttributeVO();
 		issuerAttributeVO.issuerType(IssuerAttributeVO.IssuerType.UNDEFINED);
 		try {
-			byte[] body = OBJECT_WRITER.writeValueAsBytes(credentialsVO);
-			issuerAttributeVO.body(
-					Base64.getEncoder().encodeToString(body));
-			issuerAttributeVO.hash(Base64.getEncoder().encodeToString(getSHA256(body)));
-		} catch (JsonProcessingException jpe) {
+			ATTRIBUTE_ENCODER.encode(credentialsVO, issuerAttributeVO);
+		} catch (IOException e) {
 			LOGGER.warn("Was not able to process the given credential {}. Will not include it into the issuer.",
-					credentialsVO, jpe);
+					credentialsVO, e);
 		}
 		return issuerAttributeVO;
 	}
 
 	/**
-	 * Builds a sha-256 hash for the given byte array
+	 * Encode the attributes of all credentials and the digest of the issuer, so that they can be persisted together
+	 * with the issuer and do not need to be computed on every read.
 	 *
-	 * @param toHash the array to hash
-	 * @return the hash
+	 * @param trustedIssuer the issuer to be persisted
+	 * @return the same issuer, with attributes and digest set
 	 */
-	@SneakyThrows default byte[] getSHA256(byte[] toHash) {
+	default TrustedIssuer encodeAttributes(TrustedIssuer trustedIssuer) {
+		Optional.ofNullable(trustedIssuer.getCredentials())
+				.orElse(List.of())
+				.forEach(credential -> {
+					IssuerAttributeVO attribute = map(map(credential));
+					credential.setAttributeBody(attribute.getBody());
+					credential.setAttributeHash(attribute.getHash());
+				});
+		trustedIssuer.setDigest(computeDigest(trustedIssuer));
+		return trustedIssuer;
+	}
+
+	/**
+	 * Returns the digest over all attributes of the issuer, to be used as its entity tag. Will only be computed in
+	 * case the issuer was persisted without it.
+	 *
+	 * @param trustedIssuer the issuer to get the digest for
+	 * @return the base64 encoded digest
+	 */
+	default String getDigest(TrustedIssuer trustedIssuer) {
+		return Optional.ofNullable(trustedIssuer.getDigest()).orElseGet(() -> computeDigest(trustedIssuer));
+	}
+
+	@SneakyThrows
+	private String computeDigest(TrustedIssuer trustedIssuer) {
 		MessageDigest digest = MessageDigest.getInstance("SHA-256");
-		return digest.digest(toHash);
+		Optional.ofNullable(trustedIssuer.getDid())
+				.ifPresent(did -> digest.update(did.getBytes(StandardCharsets.UTF_8)));
+		for (Credential credential : Optional.ofNullable(trustedIssuer.getCredentials()).orElse(List.of())) {
+			String attributeHash = Optional.ofNullable(credential.getAttributeHash())
+					.orElseGet(() -> toAttribute(credential).getHash());
+			if (attributeHash != null) {
+				digest.update(attributeHash.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		return Base64.getEncoder().encodeToString(digest.digest());
 	}
 }
@@ -0,0 +1,17 @@
+package org.fiware.iam.cache;
+
+import org.fiware.iam.tir.model.IssuerVO;
+
+/**
+ * A mapped issuer, together with the digest over its attributes.
+ *
+ * @param issuer    the issuer, as served by the trusted issuers registry
+ * @param digest    base64 encoded digest over all attributes of the issuer
+ * @param entityTag strong entity tag of the issuer, derived from the digest
+ */
+public record CachedIssuer(IssuerVO issuer, String digest, String entityTag) {
+
+	public static CachedIssuer of(IssuerVO issuer, String digest) {
+		return new CachedIssuer(issuer, digest, "\"" + digest + "\"");
+	}
+}
@@ -0,0 +1,257 @@
+package org.fiware.iam.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.IssuerCacheConfig;
+import org.fiware.iam.tir.model.IssuerAttributeVO;
+import org.fiware.iam.tir.model.IssuerVO;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * In-process cache of the fully mapped {@link IssuerVO}s, as served by the trusted issuers registry. Entries are
+ * weighted by their approximated size and expire after the configured time. Every write to an issuer has to
+ * invalidate its entry.
+ * <p>
+ * Concurrent lookups of the same missing issuer are coalesced: the first one loads it, all others wait for and share
+ * its result. A load that is still running when the issuer is invalidated is not shared with later lookups.
+ */
+@Slf4j
+@Singleton
+public class IssuerCache {
+
+	public static final String CACHE_NAME = "issuers";
+	public static final String COALESCED_METRIC = "til.issuers.coalesced";
+
+	// rough per-object overhead, to not underestimate issuers without or with very small attributes
+	private static final int OBJECT_OVERHEAD = 64;
+
+	private final boolean enabled;
+	private final boolean coalesceLoads;
+	private final Cache<String, CachedIssuer> cache;
+	// incremented on every invalidation, to prevent loads that raced with a write from populating the cache
+	private final AtomicLong invalidations = new AtomicLong();
+	private final ConcurrentMap<String, CompletableFuture<Optional<CachedIssuer>>> loadsInFlight =
+			new ConcurrentHashMap<>();
+	private final AtomicLong coalescedLoads = new AtomicLong();
+
+	public IssuerCache(IssuerCacheConfig cacheConfig, @Nullable MeterRegistry meterRegistry) {
+		this.enabled = cacheConfig.isEnabled();
+		this.coalesceLoads = cacheConfig.isCoalesceLoads();
+		this.cache = Caffeine.newBuilder()
+				.maximumWeight(cacheConfig.getMaximumWeight())
+				.weigher(IssuerCache::weigh)
+				.expireAfterWrite(cacheConfig.getExpireAfterWrite())
+				.recordStats()
+				.build();
+		if (meterRegistry != null) {
+			CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+			FunctionCounter.builder(COALESCED_METRIC, coalescedLoads, AtomicLong::get)
+					.description("Lookups of an issuer that shared the load of a concurrent lookup.")
+					.register(meterRegistry);
+		}
+	}
+
+	/**
+	 * Get the issuer from the cache or load it with the given loader. Only existing issuers will be cached.
+	 *
+	 * @param did    of the issuer
+	 * @param loader to be used in case of a cache miss
+	 * @return the issuer, empty if it does not exist
+	 */
+	public Optional<CachedIssuer> get(String did, Function<String, Optional<CachedIssuer>> loader) {
+		if (!enabled) {
+			return coalesce(did, loader);
+		}
+		CachedIssuer cachedIssuer = cache.getIfPresent(did);
+		if (cachedIssuer != null) {
+			return Optional.of(cachedIssuer);
+		}
+		return coalesce(did, key -> loadAndCache(key, loader));
+	}
+
+	private Optional<CachedIssuer> loadAndCache(String did, Function<String, Optional<CachedIssuer>> loader) {
+		// a previous load might have completed since the lookup, the map view does not count it as another miss
+		CachedIssuer cachedIssuer = cache.asMap().get(did);
+		if (cachedIssuer != null) {
+			return Optional.of(cachedIssuer);
+		}
+		long invalidationsBeforeLoad = invalidations.get();
+		Optional<CachedIssuer> loadedIssuer = loader.apply(did);
+		loadedIssuer.ifPresent(issuer -> {
+			if (invalidationsBeforeLoad == invalidations.get()) {
+				cache.put(did, issuer);
+			} else {
+				log.debug("Issuer {} was potentially modified while loading, will not cache it.", did);
+			}
+		});
+		return loadedIssuer;
+	}
+
+	// the first lookup runs the loader on its own thread, concurrent ones wait for its result
+	private Optional<CachedIssuer> coalesce(String did, Function<String, Optional<CachedIssuer>> loader) {
+		if (!coalesceLoads) {
+			return loader.apply(did);
+		}
+		CompletableFuture<Optional<CachedIssuer>> load = new CompletableFuture<>();
+		CompletableFuture<Optional<CachedIssuer>> runningLoad = loadsInFlight.putIfAbsent(did, load);
+		if (runningLoad != null) {
+			coalescedLoads.incrementAndGet();
+			return join(runningLoad);
+		}
+		try {
+			Optional<CachedIssuer> loadedIssuer = loader.apply(did);
+			load.complete(loadedIssuer);
+			return loadedIssuer;
+		} catch (RuntimeException | Error e) {
+			load.completeExceptionally(e);
+			throw e;
+		} finally {
+			// might already be removed by an invalidation
+			loadsInFlight.remove(did, load);
+		}
+	}
+
+	// the waiting lookups fail with the exception of the load
+	private static Optional<CachedIssuer> join(CompletableFuture<Optional<CachedIssuer>> load) {
+		try {
+			return load.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (e.getCause() instanceof Error error) {
+				throw error;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Cache an issuer that was loaded outside of {@link #get(String, Function)}, e.g. by a reactive lookup. It is not
+	 * cached if any issuer was invalidated since the load started.
+	 *
+	 * @param did                     of the issuer
+	 * @param cachedIssuer            the loaded issuer
+	 * @param invalidationsBeforeLoad the {@link #getInvalidations()} before the load started
+	 */
+	public void put(String did, CachedIssuer cachedIssuer, long invalidationsBeforeLoad) {
+		if (!enabled) {
+			return;
+		}
+		if (invalidationsBeforeLoad == invalidations.get()) {
+			cache.put(did, cachedIssuer);
+		} else {
+			log.debug("Issuer {} was potentially modified while loading, will not cache it.", did);
+		}
+	}
+
+	/**
+	 * Get the issuer from the cache, without loading it.
+	 *
+	 * @param did of the issuer
+	 * @return the cached issuer, empty if it is not cached
+	 */
+	public Optional<CachedIssuer> getIfPresent(String did) {
+		if (!enabled) {
+			return Optional.empty();
+		}
+		return Optional.ofNullable(cache.getIfPresent(did));
+	}
+
+	/**
+	 * Get all issuers from the cache. The missing ones are loaded with a single call to the given loader.
+	 *
+	 * @param dids   of the issuers
+	 * @param loader to be used for all cache misses, returns the existing issuers by their DID
+	 * @return the existing issuers, by their DID
+	 */
+	public Map<String, CachedIssuer> getAll(Collection<String> dids,
+			Function<Collection<String>, Map<String, CachedIssuer>> loader) {
+		if (!enabled) {
+			return loader.apply(dids);
+		}
+		Map<String, CachedIssuer> issuers = new HashMap<>(cache.getAllPresent(dids));
+		List<String> missingDids = dids.stream()
+				.filter(did -> !issuers.containsKey(did))
+				.toList();
+		if (missingDids.isEmpty()) {
+			return issuers;
+		}
+		long invalidationsBeforeLoad = invalidations.get();
+		Map<String, CachedIssuer> loadedIssuers = loader.apply(missingDids);
+		if (invalidationsBeforeLoad == invalidations.get()) {
+			cache.putAll(loadedIssuers);
+		} else {
+			log.debug("Issuers were potentially modified while loading, will not cache them.");
+		}
+		issuers.putAll(loadedIssuers);
+		return issuers;
+	}
+
+	/**
+	 * Remove the issuer from the cache. Has to be called on every modification of the issuer.
+	 *
+	 * @param did of the issuer
+	 */
+	public void invalidate(String did) {
+		invalidations.incrementAndGet();
+		loadsInFlight.remove(did);
+		cache.invalidate(did);
+	}
+
+	/**
+	 * Remove all issuers from the cache.
+	 */
+	public void invalidateAll() {
+		invalidations.incrementAndGet();
+		loadsInFlight.clear();
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Number of invalidations so far. Allows callers to detect writes that happened while they were loading an issuer.
+	 */
+	public long getInvalidations() {
+		return invalidations.get();
+	}
+
+	/**
+	 * Number of lookups so far that shared the load of a concurrent lookup, instead of loading the issuer themselves.
+	 */
+	public long getCoalescedLoads() {
+		return coalescedLoads.get();
+	}
+
+	private static int weigh(String did, CachedIssuer cachedIssuer) {
+		IssuerVO issuerVO = cachedIssuer.issuer();
+		int weight = OBJECT_OVERHEAD + did.length() + 2 * cachedIssuer.digest().length();
+		if (issuerVO.getAttributes() == null) {
+			return weight;
+		}
+		for (IssuerAttributeVO attribute : issuerVO.getAttributes()) {
+			weight += OBJECT_OVERHEAD + length(attribute.getBody()) + length(attribute.getHash());
+		}
+		return weight;
+	}
+
+	private static int length(@Nullable String value) {
+		return value == null ? 0 : value.length();
+	}
+}
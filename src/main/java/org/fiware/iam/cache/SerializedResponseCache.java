@@ -0,0 +1,109 @@
+package org.fiware.iam.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micronaut.core.annotation.Nullable;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import jakarta.inject.Singleton;
+import org.fiware.iam.configuration.IssuerCacheConfig;
+
+import java.util.Optional;
+
+/**
+ * In-process cache of the serialized json responses for single issuers, of both apis. Every entry is tied to the
+ * digest of the issuer it was serialized from, thus an entry is only returned as long as the issuer still has that
+ * digest. The json is kept as an unreleasable buffer, so that it can be handed to netty for every response without
+ * copying and without reference counting.
+ */
+@Singleton
+public class SerializedResponseCache {
+
+	public static final String CACHE_NAME = "serialized-issuers";
+	/**
+	 * Attribute of a response, holding the digest of the issuer the body was mapped from.
+	 */
+	public static final String DIGEST_ATTRIBUTE = "til-issuer-digest";
+
+	private static final int ENTRY_OVERHEAD = 128;
+
+	private final boolean enabled;
+	private final Cache<Key, SerializedResponse> cache;
+
+	/**
+	 * Api the response was serialized for.
+	 */
+	public enum Api {
+		TRUSTED_ISSUERS_REGISTRY,
+		TRUSTED_ISSUERS_LIST
+	}
+
+	private record Key(Api api, String did) {
+	}
+
+	private record SerializedResponse(String digest, ByteBuf json) {
+	}
+
+	public SerializedResponseCache(IssuerCacheConfig cacheConfig, @Nullable MeterRegistry meterRegistry) {
+		this.enabled = cacheConfig.isSerializedResponses();
+		this.cache = Caffeine.newBuilder()
+				.maximumWeight(cacheConfig.getMaximumWeight())
+				.weigher((Key key, SerializedResponse response) ->
+						ENTRY_OVERHEAD + key.did().length() + response.json().capacity())
+				.expireAfterWrite(cacheConfig.getExpireAfterWrite())
+				.recordStats()
+				.build();
+		if (enabled && meterRegistry != null) {
+			CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Check if a serialized response is cached for the issuer, regardless of its digest.
+	 *
+	 * @param api the response is served by
+	 * @param did of the issuer
+	 * @return true if a response is cached, that still needs to be validated by the digest of the issuer
+	 */
+	public boolean contains(Api api, String did) {
+		return cache.getIfPresent(new Key(api, did)) != null;
+	}
+
+	/**
+	 * Get the serialized response, if it was cached for the given digest of the issuer.
+	 *
+	 * @param api    the response is served by
+	 * @param did    of the issuer
+	 * @param digest current digest of the issuer
+	 * @return a duplicate of the cached json, to be written to the response
+	 */
+	public Optional<ByteBuf> get(Api api, String did, String digest) {
+		SerializedResponse response = cache.getIfPresent(new Key(api, did));
+		if (response == null || !response.digest().equals(digest)) {
+			return Optional.empty();
+		}
+		// independent reader index, shares the content
+		return Optional.of(response.json().duplicate());
+	}
+
+	/**
+	 * Cache the serialized response of the issuer with the given digest.
+	 *
+	 * @param api    the response is served by
+	 * @param did    of the issuer
+	 * @param digest of the issuer the json was serialized from
+	 * @param json   the serialized response
+	 * @return a duplicate of the cached json, to be written to the response
+	 */
+	public ByteBuf put(Api api, String did, String digest, byte[] json) {
+		ByteBuf buffer = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(json));
+		cache.put(new Key(api, did), new SerializedResponse(digest, buffer));
+		return buffer.duplicate();
+	}
+}
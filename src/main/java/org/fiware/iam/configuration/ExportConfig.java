@@ -0,0 +1,28 @@
+package org.fiware.iam.configuration;
+
+import io.micronaut.context.annotation.ConfigurationInject;
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+import lombok.Getter;
+
+/**
+ * Configuration of the streaming export of all issuers.
+ */
+@ConfigurationProperties("til.export")
+@Getter
+public class ExportConfig {
+
+    /**
+     * Number of issuers to be loaded from the database at once. Bounds the memory required by an export.
+     * Default: 100
+     */
+    private final int chunkSize;
+
+    @ConfigurationInject
+    public ExportConfig(@Bindable(defaultValue = "100") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("The export chunk size has to be positive.");
+        }
+        this.chunkSize = chunkSize;
+    }
+}
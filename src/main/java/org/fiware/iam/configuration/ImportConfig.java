@@ -0,0 +1,28 @@
+package org.fiware.iam.configuration;
+
+import io.micronaut.context.annotation.ConfigurationInject;
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+import lombok.Getter;
+
+/**
+ * Configuration of the bulk import of issuers.
+ */
+@ConfigurationProperties("til.import")
+@Getter
+public class ImportConfig {
+
+    /**
+     * Number of issuers to be written in one transaction. A failing chunk will only roll back its own issuers.
+     * Default: 500
+     */
+    private final int chunkSize;
+
+    @ConfigurationInject
+    public ImportConfig(@Bindable(defaultValue = "500") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("The import chunk size has to be positive.");
+        }
+        this.chunkSize = chunkSize;
+    }
+}
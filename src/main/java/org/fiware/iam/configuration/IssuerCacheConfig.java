@@ -0,0 +1,63 @@
+package org.fiware.iam.configuration;
+
+import io.micronaut.context.annotation.ConfigurationInject;
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the in-process cache for the issuers served by the trusted issuers registry.
+ */
+@ConfigurationProperties("til.cache.issuers")
+@Getter
+public class IssuerCacheConfig {
+
+    /**
+     * Should the mapped issuers be cached.
+     * Default: true
+     */
+    private final boolean enabled;
+
+    /**
+     * Maximum accumulated weight of all entries, approximated as the size of the issuers in bytes.
+     * Default: 50MB
+     */
+    private final long maximumWeight;
+
+    /**
+     * Time after which an entry expires, even if it was not invalidated by a write.
+     * Default: 5 minutes
+     */
+    private final Duration expireAfterWrite;
+
+    /**
+     * Should the serialized json of the issuers also be cached and written to the response without serializing it
+     * again. Uses the same maximum weight and expiry as the issuers cache, in addition to it.
+     * Default: false
+     */
+    private final boolean serializedResponses;
+
+    /**
+     * Should concurrent lookups of the same issuer share one load, instead of loading and mapping it once per request.
+     * Also applies if the cache is disabled.
+     * Default: true
+     */
+    private final boolean coalesceLoads;
+
+    @ConfigurationInject
+    public IssuerCacheConfig(
+            @Bindable(defaultValue = "true") boolean enabled,
+            @Bindable(defaultValue = "52428800") long maximumWeight,
+            @Bindable(defaultValue = "5m") Duration expireAfterWrite,
+            @Bindable(defaultValue = "false") boolean serializedResponses,
+            @Bindable(defaultValue = "true") boolean coalesceLoads) {
+
+        this.enabled = enabled;
+        this.maximumWeight = maximumWeight;
+        this.expireAfterWrite = expireAfterWrite;
+        this.serializedResponses = serializedResponses;
+        this.coalesceLoads = coalesceLoads;
+    }
+}
@@ -0,0 +1,31 @@
+package org.fiware.iam.configuration;
+
+import io.micronaut.context.annotation.ConfigurationInject;
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the routing of reads to the read-only datasource {@code datasources.replica}, if one is
+ * configured.
+ */
+@ConfigurationProperties("til.replica")
+@Getter
+public class ReplicaConfig {
+
+    /**
+     * Time after a write, during which all reads are still served from the primary datasource. Should exceed the
+     * replication lag, so that clients read their own writes. The time of the last write is only known to the instance
+     * that handled it, thus the guarantee only holds for a single instance, or if the clients are routed sticky.
+     * Default: 5 seconds
+     */
+    private final Duration readYourWritesWindow;
+
+    @ConfigurationInject
+    public ReplicaConfig(@Bindable(defaultValue = "5s") Duration readYourWritesWindow) {
+
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+}
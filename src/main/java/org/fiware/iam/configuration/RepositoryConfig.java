@@ -0,0 +1,74 @@
+package org.fiware.iam.configuration;
+
+import io.micronaut.context.annotation.ConfigurationInject;
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+import lombok.Getter;
+
+/**
+ * Configuration of the access to the issuers repository.
+ */
+@ConfigurationProperties("til.repository")
+@Getter
+public class RepositoryConfig {
+
+    /**
+     * How to load the credentials, claims and claim values of an issuer.
+     * Default: BATCHED
+     */
+    private final FetchStrategy fetchStrategy;
+
+    /**
+     * How to store the credentials, claims and claim values of an issuer. Issuers stored in the other mode are
+     * migrated on startup.
+     * Default: NORMALIZED
+     */
+    private final StorageMode storageMode;
+
+    /**
+     * Number of issuers migrated in one transaction, when switching the storage mode.
+     * Default: 100
+     */
+    private final int migrationChunkSize;
+
+    /**
+     * Serve the registry lookups of single issuers through the reactive {@code r2dbc.datasources.default}, without
+     * holding a thread while waiting for the database.
+     * Default: false
+     */
+    private final boolean reactiveReads;
+
+    @ConfigurationInject
+    public RepositoryConfig(
+            @Bindable(defaultValue = "BATCHED") FetchStrategy fetchStrategy,
+            @Bindable(defaultValue = "NORMALIZED") StorageMode storageMode,
+            @Bindable(defaultValue = "100") int migrationChunkSize,
+            @Bindable(defaultValue = "false") boolean reactiveReads) {
+        this.fetchStrategy = fetchStrategy;
+        this.storageMode = storageMode;
+        this.migrationChunkSize = migrationChunkSize;
+        this.reactiveReads = reactiveReads;
+    }
+
+    public enum FetchStrategy {
+        /**
+         * One query, left-joining all levels of the issuer. Returns one row per claim value.
+         */
+        JOINED,
+        /**
+         * One query per level, selecting the children by the ids of their parents.
+         */
+        BATCHED
+    }
+
+    public enum StorageMode {
+        /**
+         * Credentials, claims and claim values in tables of their own.
+         */
+        NORMALIZED,
+        /**
+         * All credentials of an issuer as one json document in the issuer's row.
+         */
+        DOCUMENT
+    }
+}
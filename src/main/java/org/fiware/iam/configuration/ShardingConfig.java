@@ -0,0 +1,35 @@
+package org.fiware.iam.configuration;
+
+import io.micronaut.context.annotation.ConfigurationInject;
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.annotation.Nullable;
+import lombok.Getter;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Configuration of the sharded mode, in which the issuers are distributed across multiple datasources by their DID.
+ */
+@ConfigurationProperties("til.sharding")
+@Getter
+public class ShardingConfig {
+
+    /**
+     * Names of the datasources to distribute the issuers across, e.g. [default, shard-1]. The position of a datasource
+     * is its shard, thus the list must not be reordered or extended once issuers were stored. Sharding is disabled
+     * with less than two datasources.
+     * Default: empty
+     */
+    private final List<String> datasources;
+
+    @ConfigurationInject
+    public ShardingConfig(@Nullable List<String> datasources) {
+
+        this.datasources = Optional.ofNullable(datasources).map(List::copyOf).orElse(List.of());
+        if (new HashSet<>(this.datasources).size() != this.datasources.size()) {
+            throw new IllegalArgumentException("Every datasource can only be used for one shard.");
+        }
+    }
+}
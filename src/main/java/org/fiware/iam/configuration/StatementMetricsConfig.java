@@ -0,0 +1,46 @@
+package org.fiware.iam.configuration;
+
+import io.micronaut.context.annotation.ConfigurationInject;
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+import lombok.Getter;
+
+/**
+ * Configuration of the per-request statistics about the sql statements issued.
+ */
+@ConfigurationProperties("til.metrics.statements")
+@Getter
+public class StatementMetricsConfig {
+
+    /**
+     * Should the statements and rows read or written be counted per request. Every statement and result set is wrapped
+     * into a reflective proxy, thus it should only be enabled while analyzing the persistence.
+     * Default: false
+     */
+    private final boolean enabled;
+
+    /**
+     * Should the counts be returned in the X-Statement-Count and X-Row-Count headers of every response. Meant for
+     * debugging, since it exposes details of the persistence.
+     * Default: false
+     */
+    private final boolean debugHeaders;
+
+    /**
+     * Requests issuing more statements are logged as warning, since they are most likely loading the issuers one by
+     * one (N+1).
+     * Default: 20
+     */
+    private final int warnThreshold;
+
+    @ConfigurationInject
+    public StatementMetricsConfig(
+            @Bindable(defaultValue = "false") boolean enabled,
+            @Bindable(defaultValue = "false") boolean debugHeaders,
+            @Bindable(defaultValue = "20") int warnThreshold) {
+
+        this.enabled = enabled;
+        this.debugHeaders = debugHeaders;
+        this.warnThreshold = warnThreshold;
+    }
+}
@@ -2,11 +2,16 @@ package org.fiware.iam.exception;
 
 import lombok.Getter;
 
+import java.sql.SQLException;
+
 /**
  * Exception to be thrown in all conflict-cases
  */
 public class ConflictException extends RuntimeException {
 
+	private static final String UNIQUE_VIOLATION_STATE = "23505";
+	private static final int MYSQL_DUPLICATE_ENTRY = 1062;
+
 	@Getter
 	private final String entityId;
 
@@ -19,4 +24,21 @@ public class ConflictException extends RuntimeException {
 		super(message, cause);
 		this.entityId = entityId;
 	}
+
+	/**
+	 * Check if the exception was caused by the violation of a unique constraint, e.g. an already existing issuer.
+	 *
+	 * @param throwable to check, usually a {@link io.micronaut.data.exceptions.DataAccessException}
+	 * @return true if the first {@link SQLException} in the causes reports a unique violation
+	 */
+	public static boolean isUniqueViolation(Throwable throwable) {
+		for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+			if (cause instanceof SQLException sqlException) {
+				// 23505 is used by H2 and PostgreSQL, MySQL reports 23000 with the vendor code 1062
+				return UNIQUE_VIOLATION_STATE.equals(sqlException.getSQLState())
+						|| sqlException.getErrorCode() == MYSQL_DUPLICATE_ENTRY;
+			}
+		}
+		return false;
+	}
 }
@@ -41,6 +41,13 @@ public class ForwardHeaderParser {
     private static final String PROTO_DIRECTIVE = "proto";
     private static final String BY_DIRECTIVE = "by";
 
+    private static final char KEY_VALUE_SEPARATOR = '=';
+    private static final char PAIR_SEPARATOR = ';';
+    private static final char ELEMENT_SEPARATOR = ',';
+    private static final char QUOTE = '"';
+    private static final char ESCAPE = '\\';
+    private static final int MAX_PORT_DIGITS = 5;
+
     private final ForwardedForConfig config;
     private final int serverPort;
     private final String defaultServerProtocol;
@@ -67,6 +74,13 @@ public class ForwardHeaderParser {
      * </p>
      *
      * <p>
+     * Only the first forwarded-element of the `Forwarded` header is used, the one added by the proxy closest to the
+     * client. Directives of the following elements, added by further proxies, are ignored, even if the first element
+     * does not contain them. The previous parsing split the header at every `;` and applied directives of later
+     * elements as well, e.g. the host of the second element when the first one had none.
+     * </p>
+     *
+     * <p>
      * The returned {@link ForwardedInfo} object can be used by downstream filters or
      * controllers to reconstruct the original request URL or handle redirects correctly
      * when behind reverse proxies.
@@ -95,51 +109,168 @@ public class ForwardHeaderParser {
         return forwardedInfo;
     }
 
+    /**
+     * Returns the raw values of the headers the original request url is built from, the `Forwarded` header and the
+     * configured legacy protocol, host, port and prefix headers, together with the port of the server that is used if
+     * the forwarded port is invalid. Requests with equal values resolve to the same url.
+     *
+     * @param request the incoming request
+     * @return the raw forwarding headers of the request
+     */
+    public ForwardedHeaders getForwardedHeaders(HttpRequest<?> request) {
+
+        HttpHeaders headers = request.getHeaders();
+        return new ForwardedHeaders(headers.get(HttpHeaders.FORWARDED),
+                getHeaderValue(headers, config.getProtocolHeader()),
+                getHeaderValue(headers, config.getHostHeader()),
+                getHeaderValue(headers, config.getPortHeader()),
+                getHeaderValue(headers, config.getPrefixHeader()),
+                request.getServerAddress().getPort());
+    }
+
+    /**
+     * Parses the first forwarded-element of the header in a single pass, without splitting or regular expressions. The
+     * first element was added by the proxy closest to the client. Values can be tokens or quoted strings, the latter
+     * may contain separators and escaped characters.
+     */
     private void parseForwardedHeader(HttpHeaders headers, ForwardedInfo defaultEntry) {
 
         String forwardedHeader = headers.get(HttpHeaders.FORWARDED);
         if (forwardedHeader == null || forwardedHeader.isEmpty()) {
-            return ;
+            return;
         }
 
-        String[] directives = forwardedHeader.split(";");
-
-        for (String directive : directives) {
-            // get only first keyValue if multiple are present
-            String[] keyValue = directive.trim().split(",")[0].split("=", 2);
-            if (keyValue.length == 2) {
-                String key = keyValue[0].trim().toLowerCase();
-                String value = keyValue[1].trim().replaceAll("^\"|\"$", ""); // remove quotes
-                switch (key) {
-                    case FOR_DIRECTIVE:
-                        defaultEntry.setForwardedFor(value);
-                        break;
-                    case PROTO_DIRECTIVE:
-                        defaultEntry.setForwardedProto(value);
-                        break;
-                    case HOST_DIRECTIVE:
-                        // Extract host and optional port
-                        if (value.contains(":")) {
-                            String[] hostParts = value.split(":", 2);
-                            defaultEntry.setForwardedHost(hostParts[0]);
-                            try {
-                                defaultEntry.setForwardedPort(Integer.parseInt(hostParts[1]));
-                            } catch (NumberFormatException e) {
-                                defaultEntry.setForwardedPort(0);
-                            }
-                        } else {
-                            defaultEntry.setForwardedHost(value);
-                            defaultEntry.setForwardedPort(0);
+        int length = forwardedHeader.length();
+        int position = 0;
+        while (position < length) {
+            position = skipWhitespace(forwardedHeader, position);
+            int keyStart = position;
+            while (position < length && !isSeparator(forwardedHeader.charAt(position))) {
+                position++;
+            }
+            int keyEnd = trimEnd(forwardedHeader, keyStart, position);
+            if (position == length) {
+                return;
+            }
+            char separator = forwardedHeader.charAt(position++);
+            if (separator == ELEMENT_SEPARATOR) {
+                return;
+            }
+            if (separator == PAIR_SEPARATOR) {
+                continue;
+            }
+
+            position = skipWhitespace(forwardedHeader, position);
+            String value;
+            if (position < length && forwardedHeader.charAt(position) == QUOTE) {
+                StringBuilder quotedValue = null;
+                int valueStart = ++position;
+                while (position < length && forwardedHeader.charAt(position) != QUOTE) {
+                    if (forwardedHeader.charAt(position) == ESCAPE && position + 1 < length) {
+                        // escapes are rare, only then the value is copied
+                        if (quotedValue == null) {
+                            quotedValue = new StringBuilder();
                         }
-                        break;
-                    case BY_DIRECTIVE:
-                        defaultEntry.setForwardedBy(value);
-                        break;
+                        quotedValue.append(forwardedHeader, valueStart, position);
+                        valueStart = ++position;
+                    }
+                    position++;
                 }
+                value = quotedValue == null
+                        ? forwardedHeader.substring(valueStart, position)
+                        : quotedValue.append(forwardedHeader, valueStart, position).toString();
+                // skip the closing quote and anything up to the next separator
+                while (position < length && forwardedHeader.charAt(position) != PAIR_SEPARATOR
+                        && forwardedHeader.charAt(position) != ELEMENT_SEPARATOR) {
+                    position++;
+                }
+            } else {
+                int valueStart = position;
+                while (position < length && forwardedHeader.charAt(position) != PAIR_SEPARATOR
+                        && forwardedHeader.charAt(position) != ELEMENT_SEPARATOR) {
+                    position++;
+                }
+                value = forwardedHeader.substring(valueStart, trimEnd(forwardedHeader, valueStart, position));
+            }
+            setDirective(forwardedHeader, keyStart, keyEnd - keyStart, value, defaultEntry);
+
+            if (position < length && forwardedHeader.charAt(position++) == ELEMENT_SEPARATOR) {
+                return;
             }
         }
     }
 
+    private static void setDirective(String header, int keyStart, int keyLength, String value,
+                                     ForwardedInfo defaultEntry) {
+
+        if (isKey(header, keyStart, keyLength, FOR_DIRECTIVE)) {
+            defaultEntry.setForwardedFor(value);
+        } else if (isKey(header, keyStart, keyLength, PROTO_DIRECTIVE)) {
+            defaultEntry.setForwardedProto(value);
+        } else if (isKey(header, keyStart, keyLength, HOST_DIRECTIVE)) {
+            setHost(value, defaultEntry);
+        } else if (isKey(header, keyStart, keyLength, BY_DIRECTIVE)) {
+            defaultEntry.setForwardedBy(value);
+        }
+    }
+
+    // extracts host and optional port, the colons of an IPv6 address in brackets do not separate a port
+    private static void setHost(String value, ForwardedInfo defaultEntry) {
+
+        int portSeparator = value.lastIndexOf(':');
+        if (portSeparator < 0 || portSeparator < value.lastIndexOf(']')) {
+            defaultEntry.setForwardedHost(value);
+            defaultEntry.setForwardedPort(0);
+            return;
+        }
+        defaultEntry.setForwardedHost(value.substring(0, portSeparator));
+        defaultEntry.setForwardedPort(parsePort(value, portSeparator + 1));
+    }
+
+    // returns 0 for invalid ports, to fall back to the default port of the protocol
+    private static int parsePort(String value, int start) {
+
+        int length = value.length() - start;
+        if (length == 0 || length > MAX_PORT_DIGITS) {
+            return 0;
+        }
+        int port = 0;
+        for (int i = start; i < value.length(); i++) {
+            char digit = value.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return 0;
+            }
+            port = port * 10 + (digit - '0');
+        }
+        return port;
+    }
+
+    private static boolean isKey(String header, int keyStart, int keyLength, String directive) {
+
+        return keyLength == directive.length() && header.regionMatches(true, keyStart, directive, 0, keyLength);
+    }
+
+    private static boolean isSeparator(char character) {
+
+        return character == KEY_VALUE_SEPARATOR || character == PAIR_SEPARATOR || character == ELEMENT_SEPARATOR;
+    }
+
+    private static int skipWhitespace(String header, int position) {
+
+        while (position < header.length() && Character.isWhitespace(header.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static int trimEnd(String header, int start, int end) {
+
+        while (end > start && Character.isWhitespace(header.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
     private void parseLegacyForwardedHeaders(HttpHeaders headers, ForwardedInfo defaultEntry) {
 
         getHeaderValue(headers, config.getForHeader(), defaultEntry::setForwardedFor);
@@ -151,11 +282,21 @@ public class ForwardHeaderParser {
 
     private void getHeaderValue(HttpHeaders headers, String headerName, Consumer<String> setter) {
 
-        if (headerName != null) {
-            String value = headers.get(headerName);
-            if (value != null) {
-                setter.accept(value);
-            }
+        String value = getHeaderValue(headers, headerName);
+        if (value != null) {
+            setter.accept(value);
         }
     }
+
+    private static String getHeaderValue(HttpHeaders headers, String headerName) {
+
+        return headerName != null ? headers.get(headerName) : null;
+    }
+
+    /**
+     * The raw values of the headers the original request url is built from, see {@link #getForwardedHeaders}.
+     */
+    public record ForwardedHeaders(String forwarded, String protocol, String host, String port, String prefix,
+                                   int serverPort) {
+    }
 }
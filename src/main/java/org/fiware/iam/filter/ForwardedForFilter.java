@@ -1,5 +1,7 @@
 package org.fiware.iam.filter;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.micronaut.core.order.Ordered;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.MutableHttpResponse;
@@ -7,6 +9,7 @@ import io.micronaut.http.annotation.Filter;
 import io.micronaut.http.filter.HttpServerFilter;
 import io.micronaut.http.filter.ServerFilterChain;
 import io.micronaut.http.uri.UriBuilder;
+import org.fiware.iam.metrics.ServiceMetrics;
 import org.reactivestreams.Publisher;
 
 import java.net.URI;
@@ -45,19 +48,28 @@ public class ForwardedForFilter implements HttpServerFilter, Ordered {
     private static final String HTTP_PROTOCOL = "http";
     private static final String HTTPS_PROTOCOL = "https";
 
+    // the forwarded values are set by the proxies, only the client address in the Forwarded header differs per client
+    private static final int MAX_CACHED_URLS = 256;
+
     private final ForwardHeaderParser forwardHeaderParser;
+    private final ServiceMetrics serviceMetrics;
+    private final Cache<ForwardHeaderParser.ForwardedHeaders, URI> requestUrls = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_URLS)
+            .build();
 
-    public ForwardedForFilter(ForwardHeaderParser forwardHeaderParser) {
+    public ForwardedForFilter(ForwardHeaderParser forwardHeaderParser, ServiceMetrics serviceMetrics) {
 
         this.forwardHeaderParser = forwardHeaderParser;
+        this.serviceMetrics = serviceMetrics;
     }
 
     @Override
     public Publisher<MutableHttpResponse<?>> doFilter(HttpRequest<?> request, ServerFilterChain chain) {
 
-        ForwardedInfo forwardedInfo = forwardHeaderParser.parse(request);
+        ForwardedInfo forwardedInfo = serviceMetrics.record(ServiceMetrics.Operation.FORWARD_HEADER_PARSING,
+                () -> forwardHeaderParser.parse(request));
 
-        URI reqUrl = getReqUrl(forwardedInfo);
+        URI reqUrl = getReqUrl(request, forwardedInfo);
 
         HttpRequest<?> modifiedRequest = request
                 .setAttribute(REQ_ATTR, reqUrl)
@@ -66,13 +78,26 @@ public class ForwardedForFilter implements HttpServerFilter, Ordered {
         return chain.proceed(modifiedRequest);
     }
 
-    private URI getReqUrl(ForwardedInfo forwardedInfo) {
+    /**
+     * Returns the original request url for the forwarding information. Behind a proxy, protocol, host, port and prefix
+     * are the same for nearly all requests, thus the urls are cached instead of built for every request. The cache is
+     * keyed on the raw forwarding headers, the url only depends on them and not on how they are parsed. Since the
+     * `Forwarded` header also contains the client address, there is one entry per client behind such a proxy.
+     *
+     * @param request       the incoming request
+     * @param forwardedInfo the forwarding information parsed from the request
+     * @return the url of the original request
+     */
+    public URI getReqUrl(HttpRequest<?> request, ForwardedInfo forwardedInfo) {
+
+        return requestUrls.get(forwardHeaderParser.getForwardedHeaders(request),
+                forwardedHeaders -> buildReqUrl(forwardedInfo));
+    }
 
+    private static URI buildReqUrl(ForwardedInfo forwardedInfo) {
 
         String protocol = forwardedInfo.getForwardedProto();
-        String host = forwardedInfo.getForwardedHost();
         int port = forwardedInfo.getForwardedPort();
-        String prefix = forwardedInfo.getForwardedPrefix();
 
         // Ignore default ports
         Integer portToUse = null;
@@ -81,7 +106,8 @@ public class ForwardedForFilter implements HttpServerFilter, Ordered {
             portToUse = port;
         }
 
-        UriBuilder builder = UriBuilder.of(protocol + "://" + host).path(prefix);
+        UriBuilder builder = UriBuilder.of(protocol + "://" + forwardedInfo.getForwardedHost())
+                .path(forwardedInfo.getForwardedPrefix());
 
         if (portToUse != null) {
             builder.port(portToUse);
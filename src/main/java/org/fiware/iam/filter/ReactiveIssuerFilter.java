@@ -0,0 +1,123 @@
+package org.fiware.iam.filter;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpMethod;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.filter.HttpServerFilter;
+import io.micronaut.http.filter.ServerFilterChain;
+import io.micronaut.web.router.RouteAttributes;
+import io.micronaut.web.router.UriRouteMatch;
+import org.fiware.iam.TIRMapper;
+import org.fiware.iam.cache.CachedIssuer;
+import org.fiware.iam.cache.IssuerCache;
+import org.fiware.iam.configuration.RepositoryConfig;
+import org.fiware.iam.repository.Credential;
+import org.fiware.iam.repository.ReactiveTrustedIssuerRepository;
+import org.fiware.iam.repository.TrustedIssuer;
+import org.fiware.iam.rest.TrustedIssuerRegistryController;
+import org.fiware.iam.tir.api.TirApi;
+import org.fiware.iam.tir.model.IssuerVO;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Serves GET /v4/issuers/{did} without blocking a thread, when enabled through {@code til.repository.reactive-reads}.
+ * Cached issuers are returned directly, all others are loaded through the {@link ReactiveTrustedIssuerRepository}
+ * and added to the {@link IssuerCache}. Conditional requests, invalid DIDs, issuers stored as documents and issuers
+ * persisted without encoded attributes are left to the blocking controller. The read replica and the sharding only
+ * route the JDBC datasources, therefore the reactive reads cannot be combined with them.
+ */
+@Filter(Filter.MATCH_ALL_PATTERN)
+@Requires(property = "til.repository.reactive-reads", value = StringUtils.TRUE)
+@Requires(bean = ReactiveTrustedIssuerRepository.class)
+@Requires(missingProperty = "til.sharding.datasources")
+@Requires(missingProperty = "datasources.replica.url")
+public class ReactiveIssuerFilter implements HttpServerFilter {
+
+	private static final String DID_VARIABLE = "did";
+	private static final String REGISTRY_METHOD = "getIssuerV4";
+
+	private final ReactiveTrustedIssuerRepository reactiveTrustedIssuerRepository;
+	private final IssuerCache issuerCache;
+	private final TIRMapper trustedIssuerMapper;
+	private final RepositoryConfig repositoryConfig;
+
+	public ReactiveIssuerFilter(ReactiveTrustedIssuerRepository reactiveTrustedIssuerRepository,
+			IssuerCache issuerCache, TIRMapper trustedIssuerMapper, RepositoryConfig repositoryConfig) {
+		this.reactiveTrustedIssuerRepository = reactiveTrustedIssuerRepository;
+		this.issuerCache = issuerCache;
+		this.trustedIssuerMapper = trustedIssuerMapper;
+		this.repositoryConfig = repositoryConfig;
+	}
+
+	@Override
+	public Publisher<MutableHttpResponse<?>> doFilter(HttpRequest<?> request, ServerFilterChain chain) {
+		if (request.getMethod() != HttpMethod.GET
+				|| repositoryConfig.getStorageMode() != RepositoryConfig.StorageMode.NORMALIZED
+				// 304s are answered by the controller
+				|| request.getHeaders().contains(HttpHeaders.IF_NONE_MATCH)) {
+			return chain.proceed(request);
+		}
+		Optional<String> optionalDid = RouteAttributes.getRouteMatch(request)
+				.filter(UriRouteMatch.class::isInstance)
+				.map(routeMatch -> (UriRouteMatch<?, ?>) routeMatch)
+				.filter(routeMatch -> TirApi.class.isAssignableFrom(routeMatch.getDeclaringType())
+						&& REGISTRY_METHOD.equals(routeMatch.getMethodName()))
+				.map(routeMatch -> routeMatch.getVariableValues().get(DID_VARIABLE))
+				.filter(String.class::isInstance)
+				.map(String.class::cast)
+				.filter(TrustedIssuerRegistryController::isValidDid);
+		if (optionalDid.isEmpty()) {
+			return chain.proceed(request);
+		}
+		String did = optionalDid.get();
+		Optional<CachedIssuer> cachedIssuer = issuerCache.getIfPresent(did);
+		if (cachedIssuer.isPresent()) {
+			return Mono.<MutableHttpResponse<?>>just(okResponse(cachedIssuer.get()));
+		}
+		// writes invalidate the issuers cache, an issuer loaded concurrently to one is not cached
+		long invalidationsBeforeLoad = issuerCache.getInvalidations();
+		return reactiveTrustedIssuerRepository.findByDid(did)
+				.<MutableHttpResponse<?>>flatMap(trustedIssuer -> {
+					if (!hasEncodedAttributes(trustedIssuer)) {
+						// the attributes would need to be encoded from the claims
+						return Mono.from(chain.proceed(request));
+					}
+					CachedIssuer loadedIssuer = toCachedIssuer(trustedIssuer);
+					issuerCache.put(did, loadedIssuer, invalidationsBeforeLoad);
+					return Mono.just(okResponse(loadedIssuer));
+				})
+				.switchIfEmpty(Mono.<MutableHttpResponse<?>>fromSupplier(HttpResponse::notFound));
+	}
+
+	private CachedIssuer toCachedIssuer(TrustedIssuer trustedIssuer) {
+		// the joined credentials are not ordered, the blocking loaders return them in the order of their ids
+		List<Credential> credentials = trustedIssuer.getCredentials().stream()
+				.sorted(Comparator.comparing(Credential::getId))
+				.toList();
+		trustedIssuer.setCredentials(credentials);
+		IssuerVO issuerVO = trustedIssuerMapper.map(trustedIssuer);
+		return CachedIssuer.of(issuerVO, trustedIssuerMapper.getDigest(trustedIssuer));
+	}
+
+	private static boolean hasEncodedAttributes(TrustedIssuer trustedIssuer) {
+		if (trustedIssuer.getCredentials() == null) {
+			trustedIssuer.setCredentials(List.of());
+		}
+		return trustedIssuer.getCredentials().stream()
+				.allMatch(credential -> credential.getAttributeBody() != null && credential.getAttributeHash() != null);
+	}
+
+	private static MutableHttpResponse<IssuerVO> okResponse(CachedIssuer cachedIssuer) {
+		return HttpResponse.ok(cachedIssuer.issuer()).header(HttpHeaders.ETAG, cachedIssuer.entityTag());
+	}
+}
@@ -0,0 +1,56 @@
+package org.fiware.iam.filter;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.http.HttpMethod;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.filter.HttpServerFilter;
+import io.micronaut.http.filter.ServerFilterChain;
+import org.fiware.iam.metrics.ServiceMetrics;
+import org.fiware.iam.repository.ReplicaRouting;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.util.Set;
+
+/**
+ * Marks the reading endpoints to be served from the replica, unless a write happened within the read-your-writes
+ * window. Requests with a writing method are recorded as writes, from their start until they are completed.
+ */
+@Filter(Filter.MATCH_ALL_PATTERN)
+@Requires(bean = ReplicaRouting.class)
+public class ReplicaRoutingFilter implements HttpServerFilter {
+
+    private static final Set<String> READ_ENDPOINTS = Set.of(
+            "getIssuerV4", "getIssuersV4", "resolveIssuersV4", "getIssuer", "getIssuers");
+    private static final Set<HttpMethod> WRITE_METHODS = Set.of(
+            HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+
+    private final ReplicaRouting replicaRouting;
+
+    public ReplicaRoutingFilter(ReplicaRouting replicaRouting) {
+
+        this.replicaRouting = replicaRouting;
+    }
+
+    @Override
+    public Publisher<MutableHttpResponse<?>> doFilter(HttpRequest<?> request, ServerFilterChain chain) {
+
+        if (READ_ENDPOINTS.contains(ServiceMetrics.getEndpoint(request))) {
+            if (replicaRouting.isReplicaReadable()) {
+                ReplicaRouting.markForReplica(request);
+            }
+            return chain.proceed(request);
+        }
+        if (!WRITE_METHODS.contains(request.getMethod())) {
+            return chain.proceed(request);
+        }
+        // the window starts once the write is committed, successful or not
+        return Flux.defer(() -> {
+                    replicaRouting.beginWrite();
+                    return chain.proceed(request);
+                })
+                .doFinally(signal -> replicaRouting.completeWrite());
+    }
+}
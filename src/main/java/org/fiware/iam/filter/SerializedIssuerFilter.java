@@ -0,0 +1,167 @@
+package org.fiware.iam.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpMethod;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.filter.HttpServerFilter;
+import io.micronaut.http.filter.ServerFilterChain;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.web.router.RouteAttributes;
+import io.micronaut.web.router.UriRouteMatch;
+import io.netty.buffer.ByteBuf;
+import jakarta.inject.Named;
+import lombok.SneakyThrows;
+import org.fiware.iam.cache.CachedIssuer;
+import org.fiware.iam.cache.IssuerCache;
+import org.fiware.iam.cache.SerializedResponseCache;
+import org.fiware.iam.repository.ShardRouting;
+import org.fiware.iam.repository.TrustedIssuerRepository;
+import org.fiware.iam.til.api.IssuerApi;
+import org.fiware.iam.til.model.TrustedIssuerVO;
+import org.fiware.iam.tir.api.TirApi;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Serves single issuers of both apis from their cached json, when enabled through
+ * {@code til.cache.issuers.serialized-responses}. On a hit, the json is written to the netty response as it is, the
+ * controllers are not invoked and nothing is serialized.
+ * <ul>
+ *     <li>GET /v4/issuers/{did}: the digest is taken from the {@link IssuerCache}, thus no query is required. Issuers
+ *     not in that cache and conditional requests are left to the controller. Issuers that are not serialized yet are
+ *     serialized on the blocking executor, the event loop only writes cached json.</li>
+ *     <li>GET /issuer/{did}: if a response is cached, it is validated by the digest selected from the database,
+ *     instead of loading the complete issuer. Otherwise, the request is left to the controller and its json is
+ *     cached together with the digest of the issuer the controller loaded.</li>
+ * </ul>
+ */
+@Filter(Filter.MATCH_ALL_PATTERN)
+public class SerializedIssuerFilter implements HttpServerFilter {
+
+	private static final String DID_VARIABLE = "did";
+	private static final String REGISTRY_METHOD = "getIssuerV4";
+	private static final String LIST_METHOD = "getIssuer";
+
+	private final SerializedResponseCache serializedResponseCache;
+	private final IssuerCache issuerCache;
+	private final TrustedIssuerRepository trustedIssuerRepository;
+	private final ShardRouting shardRouting;
+	private final ObjectMapper objectMapper;
+	private final Scheduler blockingScheduler;
+
+	public SerializedIssuerFilter(SerializedResponseCache serializedResponseCache, IssuerCache issuerCache,
+			TrustedIssuerRepository trustedIssuerRepository, ShardRouting shardRouting, ObjectMapper objectMapper,
+			@Named(TaskExecutors.BLOCKING) ExecutorService blockingExecutor) {
+		this.serializedResponseCache = serializedResponseCache;
+		this.issuerCache = issuerCache;
+		this.trustedIssuerRepository = trustedIssuerRepository;
+		this.shardRouting = shardRouting;
+		this.objectMapper = objectMapper;
+		this.blockingScheduler = Schedulers.fromExecutorService(blockingExecutor);
+	}
+
+	@Override
+	public Publisher<MutableHttpResponse<?>> doFilter(HttpRequest<?> request, ServerFilterChain chain) {
+		if (!serializedResponseCache.isEnabled() || request.getMethod() != HttpMethod.GET) {
+			return chain.proceed(request);
+		}
+		Optional<UriRouteMatch<?, ?>> optionalRouteMatch = RouteAttributes.getRouteMatch(request)
+				.filter(UriRouteMatch.class::isInstance)
+				.map(routeMatch -> (UriRouteMatch<?, ?>) routeMatch);
+		if (optionalRouteMatch.isEmpty()
+				|| !(optionalRouteMatch.get().getVariableValues().get(DID_VARIABLE) instanceof String did)) {
+			return chain.proceed(request);
+		}
+		UriRouteMatch<?, ?> routeMatch = optionalRouteMatch.get();
+		if (isRoute(routeMatch, TirApi.class, REGISTRY_METHOD)) {
+			return filterRegistryIssuer(request, chain, did);
+		}
+		if (isRoute(routeMatch, IssuerApi.class, LIST_METHOD)) {
+			return filterListIssuer(request, chain, did);
+		}
+		return chain.proceed(request);
+	}
+
+	private Publisher<MutableHttpResponse<?>> filterRegistryIssuer(HttpRequest<?> request, ServerFilterChain chain,
+			String did) {
+		// 304s are answered by the controller, without a body
+		if (request.getHeaders().contains(HttpHeaders.IF_NONE_MATCH)) {
+			return chain.proceed(request);
+		}
+		Optional<CachedIssuer> optionalIssuer = issuerCache.getIfPresent(did);
+		if (optionalIssuer.isEmpty()) {
+			return chain.proceed(request);
+		}
+		CachedIssuer cachedIssuer = optionalIssuer.get();
+		Optional<ByteBuf> json = serializedResponseCache
+				.get(SerializedResponseCache.Api.TRUSTED_ISSUERS_REGISTRY, did, cachedIssuer.digest());
+		if (json.isPresent()) {
+			return Mono.<MutableHttpResponse<?>>just(
+					okResponse(json.get()).header(HttpHeaders.ETAG, cachedIssuer.entityTag()));
+		}
+		// serializing large issuers would block the event loop
+		return Mono.fromCallable(() -> serializedResponseCache.put(SerializedResponseCache.Api.TRUSTED_ISSUERS_REGISTRY,
+						did, cachedIssuer.digest(), serialize(cachedIssuer.issuer())))
+				.subscribeOn(blockingScheduler)
+				.map(serializedJson -> okResponse(serializedJson).header(HttpHeaders.ETAG, cachedIssuer.entityTag()));
+	}
+
+	private Publisher<MutableHttpResponse<?>> filterListIssuer(HttpRequest<?> request, ServerFilterChain chain,
+			String did) {
+		// writes invalidate the issuers cache, a response that raced with one is not cached
+		long invalidationsBeforeLoad = issuerCache.getInvalidations();
+		// without a cached response there is nothing to validate, the controller has to load the issuer anyway
+		if (!serializedResponseCache.contains(SerializedResponseCache.Api.TRUSTED_ISSUERS_LIST, did)) {
+			return Flux.from(chain.proceed(request))
+					.doOnNext(response -> cacheListResponse(did, invalidationsBeforeLoad, response));
+		}
+		// the repository is blocking, keep it off the event loop
+		return Mono.fromCallable(() -> shardRouting.onShardOf(did, () -> trustedIssuerRepository.findDigestByDid(did)))
+				.subscribeOn(blockingScheduler)
+				.flatMapMany(optionalDigest -> {
+					Optional<ByteBuf> json = optionalDigest.flatMap(digest -> serializedResponseCache.get(
+							SerializedResponseCache.Api.TRUSTED_ISSUERS_LIST, did, digest));
+					if (json.isPresent()) {
+						return Mono.<MutableHttpResponse<?>>just(okResponse(json.get()));
+					}
+					return Flux.from(chain.proceed(request))
+							.doOnNext(response -> cacheListResponse(did, invalidationsBeforeLoad, response));
+				});
+	}
+
+	// the controller provides the digest of the issuer it mapped the response from
+	private void cacheListResponse(String did, long invalidationsBeforeLoad, MutableHttpResponse<?> response) {
+		Optional<String> digest = response.getAttribute(SerializedResponseCache.DIGEST_ATTRIBUTE, String.class);
+		if (response.getStatus() != HttpStatus.OK || digest.isEmpty()
+				|| invalidationsBeforeLoad != issuerCache.getInvalidations()) {
+			return;
+		}
+		response.getBody(TrustedIssuerVO.class).ifPresent(trustedIssuerVO -> serializedResponseCache.put(
+				SerializedResponseCache.Api.TRUSTED_ISSUERS_LIST, did, digest.get(), serialize(trustedIssuerVO)));
+	}
+
+	private static boolean isRoute(UriRouteMatch<?, ?> routeMatch, Class<?> api, String methodName) {
+		return api.isAssignableFrom(routeMatch.getDeclaringType()) && methodName.equals(routeMatch.getMethodName());
+	}
+
+	private static MutableHttpResponse<ByteBuf> okResponse(ByteBuf json) {
+		return HttpResponse.ok(json).contentType(MediaType.APPLICATION_JSON_TYPE);
+	}
+
+	@SneakyThrows
+	private byte[] serialize(Object body) {
+		return objectMapper.writeValueAsBytes(body);
+	}
+}
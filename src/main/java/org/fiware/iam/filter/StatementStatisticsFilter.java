@@ -0,0 +1,73 @@
+package org.fiware.iam.filter;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.order.Ordered;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.filter.HttpServerFilter;
+import io.micronaut.http.filter.ServerFilterChain;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.StatementMetricsConfig;
+import org.fiware.iam.metrics.RequestStatements;
+import org.fiware.iam.metrics.ServiceMetrics;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+/**
+ * Attaches the {@link RequestStatements} to every request and records them once the response is available: as
+ * metrics per endpoint, as warning if the request exceeds the configured number of statements (most likely an N+1
+ * access) and, if enabled, as debug headers of the response.
+ */
+@Slf4j
+@Filter(Filter.MATCH_ALL_PATTERN)
+@Requires(property = "til.metrics.statements.enabled", value = "true")
+public class StatementStatisticsFilter implements HttpServerFilter {
+
+    public static final String STATEMENT_COUNT_HEADER = "X-Statement-Count";
+    public static final String ROW_COUNT_HEADER = "X-Row-Count";
+    public static final String WRITE_COUNT_HEADER = "X-Write-Count";
+    public static final String WRITTEN_ROW_COUNT_HEADER = "X-Written-Row-Count";
+
+    private final StatementMetricsConfig config;
+    private final ServiceMetrics serviceMetrics;
+
+    public StatementStatisticsFilter(StatementMetricsConfig config, ServiceMetrics serviceMetrics) {
+
+        this.config = config;
+        this.serviceMetrics = serviceMetrics;
+    }
+
+    @Override
+    public Publisher<MutableHttpResponse<?>> doFilter(HttpRequest<?> request, ServerFilterChain chain) {
+
+        RequestStatements requestStatements = new RequestStatements();
+        request.setAttribute(RequestStatements.REQUEST_ATTRIBUTE, requestStatements);
+        return Flux.from(chain.proceed(request))
+                .doOnNext(response -> record(request, requestStatements, response));
+    }
+
+    private void record(HttpRequest<?> request, RequestStatements requestStatements,
+                        MutableHttpResponse<?> response) {
+
+        String endpoint = ServiceMetrics.getEndpoint(request);
+        serviceMetrics.recordStatements(endpoint, requestStatements);
+        if (requestStatements.getStatements() > config.getWarnThreshold()) {
+            log.warn("Request {} {} ({}) issued {} statements, the issuers might be loaded one by one.",
+                    request.getMethod(), request.getPath(), endpoint, requestStatements.getStatements());
+        }
+        if (config.isDebugHeaders()) {
+            response.header(STATEMENT_COUNT_HEADER, String.valueOf(requestStatements.getStatements()));
+            response.header(ROW_COUNT_HEADER, String.valueOf(requestStatements.getRows()));
+            response.header(WRITE_COUNT_HEADER, String.valueOf(requestStatements.getWrites()));
+            response.header(WRITTEN_ROW_COUNT_HEADER, String.valueOf(requestStatements.getWrittenRows()));
+        }
+    }
+
+    // directly after the forwarded-for filter, so that the statements of all other filters are included
+    @Override
+    public int getOrder() {
+
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+}
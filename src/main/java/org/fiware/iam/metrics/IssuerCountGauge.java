@@ -0,0 +1,75 @@
+package org.fiware.iam.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.scheduling.annotation.Scheduled;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.repository.ShardedDidQueries;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Provides the number of issuers as gauge. The count is refreshed in the background, every
+ * {@code til.metrics.issuer-count-interval}, so that scraping the metrics does not query the database. Exact counts
+ * taken by requests are recorded as well, thus the count can also serve as total of the issuer listings.
+ */
+@Slf4j
+@Singleton
+public class IssuerCountGauge {
+
+	public static final String METRIC_NAME = "til.issuers";
+
+	// the issuers were not counted yet
+	private static final long UNKNOWN = -1;
+
+	private final ShardedDidQueries shardedDidQueries;
+	private final AtomicLong issuerCount = new AtomicLong(UNKNOWN);
+
+	public IssuerCountGauge(ShardedDidQueries shardedDidQueries, @Nullable MeterRegistry meterRegistry,
+			ServiceMetrics serviceMetrics) {
+		this.shardedDidQueries = shardedDidQueries;
+		if (meterRegistry != null) {
+			Gauge.builder(METRIC_NAME, issuerCount, count -> Math.max(0, count.get()))
+					.description("Number of trusted issuers in the database.")
+					.tag(ServiceMetrics.DIALECT_TAG, serviceMetrics.getDialect())
+					.register(meterRegistry);
+		}
+	}
+
+	/**
+	 * Number of issuers as of the last count. The issuers are only counted if they were not counted before, the
+	 * returned number might therefore lag behind writes for up to {@code til.metrics.issuer-count-interval}.
+	 *
+	 * @return the last known number of issuers
+	 */
+	public long getIssuerCount() {
+		long count = issuerCount.get();
+		if (count == UNKNOWN) {
+			count = shardedDidQueries.count();
+			issuerCount.compareAndSet(UNKNOWN, count);
+		}
+		return count;
+	}
+
+	/**
+	 * Record an exact count of the issuers, taken by a request.
+	 *
+	 * @param count the number of issuers
+	 */
+	public void update(long count) {
+		issuerCount.set(count);
+	}
+
+	@Scheduled(initialDelay = "${til.metrics.issuer-count-initial-delay:5s}",
+			fixedDelay = "${til.metrics.issuer-count-interval:1m}")
+	public void refresh() {
+		try {
+			issuerCount.set(shardedDidQueries.count());
+		} catch (RuntimeException e) {
+			// keep the last known count, the next refresh will try again
+			log.warn("Was not able to count the issuers.", e);
+		}
+	}
+}
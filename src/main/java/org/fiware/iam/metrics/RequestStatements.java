@@ -0,0 +1,73 @@
+package org.fiware.iam.metrics;
+
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.context.ServerRequestContext;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statements and rows of a single request. Kept as attribute of the request, the counts are updated from the thread
+ * executing the controller and read once the response is written.
+ */
+public class RequestStatements {
+
+	public static final String REQUEST_ATTRIBUTE = "til-request-statements";
+
+	private final AtomicLong statements = new AtomicLong();
+	private final AtomicLong rows = new AtomicLong();
+	private final AtomicLong writes = new AtomicLong();
+	private final AtomicLong writtenRows = new AtomicLong();
+
+	/**
+	 * Get the statistics of the request currently handled by the calling thread.
+	 *
+	 * @return the statistics, empty outside of requests
+	 */
+	public static Optional<RequestStatements> current() {
+		return ServerRequestContext.currentRequest().flatMap(RequestStatements::of);
+	}
+
+	public static Optional<RequestStatements> of(HttpRequest<?> request) {
+		return request.getAttribute(REQUEST_ATTRIBUTE, RequestStatements.class);
+	}
+
+	void addStatement() {
+		statements.incrementAndGet();
+	}
+
+	void addRows(long count) {
+		rows.addAndGet(count);
+	}
+
+	void addWrite(long count) {
+		writes.incrementAndGet();
+		writtenRows.addAndGet(count);
+		rows.addAndGet(count);
+	}
+
+	public long getStatements() {
+		return statements.get();
+	}
+
+	/**
+	 * Rows read through result sets and rows affected by writes.
+	 */
+	public long getRows() {
+		return rows.get();
+	}
+
+	/**
+	 * Executions of writing statements, a batch counts as one. Every execution is a round trip to the database.
+	 */
+	public long getWrites() {
+		return writes.get();
+	}
+
+	/**
+	 * Rows affected by writes.
+	 */
+	public long getWrittenRows() {
+		return writtenRows.get();
+	}
+}
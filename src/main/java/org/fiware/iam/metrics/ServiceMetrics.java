@@ -0,0 +1,157 @@
+package org.fiware.iam.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.context.ServerRequestContext;
+import io.micronaut.web.router.MethodBasedRouteMatch;
+import io.micronaut.web.router.RouteAttributes;
+import jakarta.inject.Singleton;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Records the latency of the hot paths of the service, so that the latency of a request can be attributed to the
+ * database, the mapping or the parsing of headers. Every timer is tagged with the operation, the endpoint (the method
+ * of the api) it was invoked for and the database dialect. The timers publish histograms, to allow percentiles over
+ * all instances in Prometheus.
+ */
+@Singleton
+public class ServiceMetrics {
+
+	public static final String OPERATION_TAG = "operation";
+	public static final String ENDPOINT_TAG = "endpoint";
+	public static final String DIALECT_TAG = "dialect";
+
+	public static final String STATEMENTS_METRIC = "til.request.statements";
+	public static final String ROWS_METRIC = "til.request.rows";
+	public static final String WRITTEN_ROWS_METRIC = "til.request.written.rows";
+
+	// used for operations outside of requests, e.g. the storage mode migration
+	private static final String NO_ENDPOINT = "none";
+
+	/**
+	 * The instrumented operations, grouped into timers by where the time is spent.
+	 */
+	public enum Operation {
+		GET_BY_DID("til.repository.reads", "getByDid"),
+		FIND_ALL("til.repository.reads", "findAll"),
+		TIR_MAPPING("til.mapping", "TIRMapper.map"),
+		TIL_MAPPING("til.mapping", "TILMapper.map"),
+		FORWARD_HEADER_PARSING("til.forward.headers", "ForwardHeaderParser.parse"),
+		CREATE_ISSUER("til.repository.writes", "createIssuer"),
+		UPDATE_ISSUER("til.repository.writes", "updateIssuer"),
+		DELETE_ISSUER("til.repository.writes", "deleteIssuer");
+
+		private final String metricName;
+		private final String operationName;
+
+		Operation(String metricName, String operationName) {
+			this.metricName = metricName;
+			this.operationName = operationName;
+		}
+	}
+
+	private record TimerKey(Operation operation, String endpoint) {
+	}
+
+	private record RequestSummaries(DistributionSummary statements, DistributionSummary rows,
+			DistributionSummary writtenRows) {
+	}
+
+	@Nullable
+	private final MeterRegistry meterRegistry;
+	private final String dialect;
+	private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+	private final Map<String, RequestSummaries> requestSummaries = new ConcurrentHashMap<>();
+
+	public ServiceMetrics(@Nullable MeterRegistry meterRegistry,
+			@Value("${datasources.default.dialect:unknown}") String dialect) {
+		this.meterRegistry = meterRegistry;
+		this.dialect = dialect;
+	}
+
+	/**
+	 * Run the operation and record its duration, also if it fails.
+	 *
+	 * @param operation to be recorded
+	 * @param execution of the operation
+	 * @return the result of the operation
+	 */
+	public <T> T record(Operation operation, Supplier<T> execution) {
+		if (meterRegistry == null) {
+			return execution.get();
+		}
+		long start = System.nanoTime();
+		try {
+			return execution.get();
+		} finally {
+			timer(operation).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Record the number of sql statements and rows of a finished request.
+	 *
+	 * @param endpoint          the request was routed to
+	 * @param requestStatements of the request
+	 */
+	public void recordStatements(String endpoint, RequestStatements requestStatements) {
+		if (meterRegistry == null) {
+			return;
+		}
+		RequestSummaries summaries = requestSummaries.computeIfAbsent(endpoint, key -> new RequestSummaries(
+				summary(STATEMENTS_METRIC, key), summary(ROWS_METRIC, key), summary(WRITTEN_ROWS_METRIC, key)));
+		summaries.statements().record(requestStatements.getStatements());
+		summaries.rows().record(requestStatements.getRows());
+		summaries.writtenRows().record(requestStatements.getWrittenRows());
+	}
+
+	/**
+	 * Returns the endpoint, i.e. the method of the api, the request was routed to.
+	 *
+	 * @param request to get the endpoint for
+	 * @return name of the api method, "none" if the request was not routed to a controller
+	 */
+	public static String getEndpoint(HttpRequest<?> request) {
+		return RouteAttributes.getRouteMatch(request)
+				.filter(MethodBasedRouteMatch.class::isInstance)
+				.map(routeMatch -> ((MethodBasedRouteMatch<?, ?>) routeMatch).getMethodName())
+				.orElse(NO_ENDPOINT);
+	}
+
+	public String getDialect() {
+		return dialect;
+	}
+
+	// the timers are registered once per operation and endpoint, instead of looked up in the registry on every call
+	private Timer timer(Operation operation) {
+		return timers.computeIfAbsent(new TimerKey(operation, currentEndpoint()), timerKey -> Timer
+				.builder(operation.metricName)
+				.tag(OPERATION_TAG, operation.operationName)
+				.tag(ENDPOINT_TAG, timerKey.endpoint())
+				.tag(DIALECT_TAG, dialect)
+				.publishPercentileHistogram()
+				.register(meterRegistry));
+	}
+
+	private DistributionSummary summary(String metricName, String endpoint) {
+		return DistributionSummary.builder(metricName)
+				.tag(ENDPOINT_TAG, endpoint)
+				.tag(DIALECT_TAG, dialect)
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+	}
+
+	private static String currentEndpoint() {
+		return ServerRequestContext.currentRequest()
+				.map(ServiceMetrics::getEndpoint)
+				.orElse(NO_ENDPOINT);
+	}
+}
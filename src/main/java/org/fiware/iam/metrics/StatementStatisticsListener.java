@@ -0,0 +1,122 @@
+package org.fiware.iam.metrics;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import io.micronaut.core.order.Ordered;
+import jakarta.inject.Singleton;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Wraps the datasource, to count the statements prepared and the rows read or written for the current request into
+ * its {@link RequestStatements}. Statements created outside of requests, e.g. by Liquibase or the storage migration,
+ * are not wrapped. Writes are counted per execution, a batch counts as one write of all its rows.
+ */
+@Singleton
+@Requires(property = "til.metrics.statements.enabled", value = "true")
+public class StatementStatisticsListener implements BeanCreatedEventListener<DataSource>, Ordered {
+
+	private static final Set<String> STATEMENT_METHODS = Set.of("createStatement", "prepareStatement", "prepareCall");
+	private static final Set<String> UPDATE_METHODS = Set.of("executeUpdate", "executeLargeUpdate");
+	private static final Set<String> BATCH_METHODS = Set.of("executeBatch", "executeLargeBatch");
+	private static final Set<String> RESULT_SET_METHODS = Set.of("executeQuery", "getResultSet");
+	private static final String EXECUTE_METHOD = "execute";
+	private static final String NEXT_METHOD = "next";
+
+	@Override
+	public DataSource onCreated(BeanCreatedEvent<DataSource> event) {
+		DataSource dataSource = event.getBean();
+		return proxy(DataSource.class, (proxy, method, args) -> {
+			Object result = invoke(dataSource, method, args);
+			if (result instanceof Connection connection) {
+				return proxy(Connection.class, (connectionProxy, connectionMethod, connectionArgs) ->
+						countStatement(connectionMethod, invoke(connection, connectionMethod, connectionArgs)));
+			}
+			return result;
+		});
+	}
+
+	// wrap before any other listener, so that the counting datasource is the one unwrapped by micronaut-data
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+
+	private static Object countStatement(Method method, Object result) {
+		if (!STATEMENT_METHODS.contains(method.getName()) || !(result instanceof Statement statement)) {
+			return result;
+		}
+		Optional<RequestStatements> optionalStatements = RequestStatements.current();
+		if (optionalStatements.isEmpty()) {
+			return result;
+		}
+		RequestStatements requestStatements = optionalStatements.get();
+		requestStatements.addStatement();
+		// the prepared or callable interface has to be kept, the statement is cast to it by the callers
+		Class<?> statementType = method.getReturnType();
+		return proxy(statementType, (statementProxy, statementMethod, statementArgs) ->
+				countRows(requestStatements, statement, statementMethod,
+						invoke(statement, statementMethod, statementArgs)));
+	}
+
+	private static Object countRows(RequestStatements requestStatements, Statement statement, Method method,
+			Object result) throws SQLException {
+		String methodName = method.getName();
+		if (UPDATE_METHODS.contains(methodName) && result instanceof Number updatedRows) {
+			requestStatements.addWrite(updatedRows.longValue());
+		} else if (BATCH_METHODS.contains(methodName)) {
+			requestStatements.addWrite(batchRows(result));
+		} else if (EXECUTE_METHOD.equals(methodName) && Boolean.FALSE.equals(result)) {
+			// execute returns false for writes, their count is only available from the statement
+			requestStatements.addWrite(Math.max(0, statement.getUpdateCount()));
+		} else if (RESULT_SET_METHODS.contains(methodName) && result instanceof ResultSet resultSet) {
+			return proxy(ResultSet.class, (resultSetProxy, resultSetMethod, resultSetArgs) -> {
+				Object next = invoke(resultSet, resultSetMethod, resultSetArgs);
+				if (NEXT_METHOD.equals(resultSetMethod.getName()) && Boolean.TRUE.equals(next)) {
+					requestStatements.addRows(1);
+				}
+				return next;
+			});
+		}
+		return result;
+	}
+
+	// drivers report unknown counts of a batch entry as negative value
+	private static long batchRows(Object result) {
+		long rows = 0;
+		if (result instanceof int[] counts) {
+			for (int count : counts) {
+				rows += Math.max(0, count);
+			}
+		} else if (result instanceof long[] counts) {
+			for (long count : counts) {
+				rows += Math.max(0, count);
+			}
+		}
+		return rows;
+	}
+
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(StatementStatisticsListener.class.getClassLoader(),
+				new Class<?>[] { type }, handler));
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
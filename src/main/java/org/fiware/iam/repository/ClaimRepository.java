@@ -0,0 +1,34 @@
+package org.fiware.iam.repository;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.data.annotation.Id;
+import io.micronaut.data.repository.PageableRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Extension of the base repository to support {@link Claim}
+ */
+public interface ClaimRepository extends PageableRepository<Claim, Integer> {
+
+	/**
+	 * Find the claims of all given credentials. The claim values will not be loaded.
+	 *
+	 * @param credentialIds ids of the credentials
+	 * @return the claims, sorted by their id
+	 */
+	List<Claim> findByCredentialIdInOrderById(Collection<Integer> credentialIds);
+
+	/**
+	 * Update the columns of a single claim, without touching its values.
+	 */
+	void update(@Id Integer id, String name, @Nullable String path);
+
+	/**
+	 * Delete all given claims. Their values are removed by the database.
+	 *
+	 * @param ids of the claims
+	 */
+	void deleteByIdIn(Collection<Integer> ids);
+}
@@ -18,7 +18,8 @@ import lombok.ToString;
 import lombok.experimental.Accessors;
 
 /**
- * Data entity to represent the value of a claim. Could be of multiple types, thus will be stored as a json-stirng
+ * Data entity to represent the value of a claim. Could be of multiple types, thus will be stored as a json-stirng,
+ * together with its type.
  */
 @Accessors(chain = true)
 @Data
@@ -37,14 +38,19 @@ public class ClaimValue {
 	// should be serialized json
 	private String value;
 
+	// type of the serialized value, null for values persisted before it was introduced
+	@Nullable
+	private ClaimValueType valueType;
+
 	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "claim_id")
 	@JsonIgnore
 	private Claim claim;
 
-	public ClaimValue(Integer id, String value, @Nullable Claim claim) {
+	public ClaimValue(Integer id, String value, @Nullable ClaimValueType valueType, @Nullable Claim claim) {
 		this.id = id;
 		this.value = value;
+		this.valueType = valueType;
 		this.claim = claim;
 	}
 }
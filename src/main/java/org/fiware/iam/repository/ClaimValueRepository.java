@@ -0,0 +1,33 @@
+package org.fiware.iam.repository;
+
+import io.micronaut.data.annotation.Id;
+import io.micronaut.data.repository.PageableRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Extension of the base repository to support {@link ClaimValue}
+ */
+public interface ClaimValueRepository extends PageableRepository<ClaimValue, Integer> {
+
+	/**
+	 * Find the values of all given claims.
+	 *
+	 * @param claimIds ids of the claims
+	 * @return the values, sorted by their id
+	 */
+	List<ClaimValue> findByClaimIdInOrderById(Collection<Integer> claimIds);
+
+	/**
+	 * Update the (serialized) value and its type of a single claim value.
+	 */
+	void update(@Id Integer id, String value, ClaimValueType valueType);
+
+	/**
+	 * Delete all given claim values.
+	 *
+	 * @param ids of the values
+	 */
+	void deleteByIdIn(Collection<Integer> ids);
+}
@@ -0,0 +1,50 @@
+package org.fiware.iam.repository;
+
+import org.fiware.iam.TILMapper;
+
+/**
+ * Json type of a persisted {@link ClaimValue}. Stored together with the value, so that it can be read back with a
+ * single parse to the type it was written with.
+ */
+public enum ClaimValueType {
+
+	NUMBER,
+	STRING,
+	BOOLEAN,
+	// objects, arrays and null
+	JSON;
+
+	/**
+	 * Get the type of an allowed value, as provided through the api.
+	 *
+	 * @param value the (not yet serialized) value
+	 * @return the type to be stored with the value
+	 */
+	public static ClaimValueType of(Object value) {
+		if (value instanceof Number) {
+			return NUMBER;
+		}
+		if (value instanceof String) {
+			return STRING;
+		}
+		if (value instanceof Boolean) {
+			return BOOLEAN;
+		}
+		return JSON;
+	}
+
+	/**
+	 * Detect the type of a value that was persisted without a type. The value is decoded the way it was read before
+	 * the type was stored, so that reading it with the detected type returns the same object: strings holding a number
+	 * are numbers and booleans are strings.
+	 *
+	 * @param json the serialized value
+	 * @return the type to read the value with
+	 */
+	public static ClaimValueType detect(String json) {
+		Object value = TILMapper.readUntyped(new ClaimValue().setValue(json));
+		// null is the result of the number reader, e.g. for an empty string, or of an unreadable value. The number
+		// reader returns null for both as well.
+		return value == null ? NUMBER : of(value);
+	}
+}
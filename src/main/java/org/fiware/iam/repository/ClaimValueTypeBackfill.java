@@ -0,0 +1,79 @@
+package org.fiware.iam.repository;
+
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import liquibase.structure.core.Column;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Liquibase change to set the {@link ClaimValueType} of all values that were persisted without it. The type is
+ * detected from the serialized value through {@link ClaimValueType#detect(String)}, which keeps the api output of the
+ * existing values unchanged. The values are read and updated in chunks, ordered by their id, so that large tables are
+ * not loaded at once.
+ */
+public class ClaimValueTypeBackfill implements CustomTaskChange {
+
+	private static final int BATCH_SIZE = 500;
+
+	private int updatedValues;
+
+	@Override
+	public void execute(Database database) throws CustomChangeException {
+		JdbcConnection connection = (JdbcConnection) database.getConnection();
+		// "value" is a reserved word on some of the databases
+		String valueColumn = database.escapeObjectName("value", Column.class);
+		try (PreparedStatement select = connection.prepareStatement(String.format(
+				"SELECT id, %s FROM claim_value WHERE value_type IS NULL AND id > ? ORDER BY id LIMIT %s",
+				valueColumn, BATCH_SIZE));
+				PreparedStatement update = connection.prepareStatement(
+						"UPDATE claim_value SET value_type = ? WHERE id = ?")) {
+			int lastId = Integer.MIN_VALUE;
+			int chunkSize;
+			do {
+				chunkSize = 0;
+				select.setInt(1, lastId);
+				try (ResultSet resultSet = select.executeQuery()) {
+					while (resultSet.next()) {
+						lastId = resultSet.getInt(1);
+						update.setString(1, ClaimValueType.detect(resultSet.getString(2)).name());
+						update.setInt(2, lastId);
+						update.addBatch();
+						chunkSize++;
+					}
+				}
+				update.executeBatch();
+				updatedValues += chunkSize;
+			} while (chunkSize == BATCH_SIZE);
+		} catch (DatabaseException | SQLException e) {
+			throw new CustomChangeException("Was not able to set the type of the claim values.", e);
+		}
+	}
+
+	@Override
+	public String getConfirmationMessage() {
+		return String.format("Set the type of %s claim values.", updatedValues);
+	}
+
+	@Override
+	public void setUp() {
+		// nothing to set up
+	}
+
+	@Override
+	public void setFileOpener(ResourceAccessor resourceAccessor) {
+		// no resources required
+	}
+
+	@Override
+	public ValidationErrors validate(Database database) {
+		return new ValidationErrors();
+	}
+}
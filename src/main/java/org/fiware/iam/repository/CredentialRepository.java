@@ -1,10 +1,43 @@
 package org.fiware.iam.repository;
 
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.data.annotation.Id;
 import io.micronaut.data.repository.PageableRepository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Extension of the base repository to support {@link Credential}
  */
 public interface CredentialRepository extends PageableRepository<Credential, Integer> {
 
+	/**
+	 * Find the credentials of all given issuers. The claims will not be loaded.
+	 *
+	 * @param dids of the issuers
+	 * @return the credentials, sorted by their id
+	 */
+	List<Credential> findByTrustedIssuerDidInOrderById(Collection<String> dids);
+
+	/**
+	 * Update the columns of a single credential, without touching its claims.
+	 */
+	void update(@Id Integer id, @Nullable Instant validFrom, @Nullable Instant validTo, String credentialsType,
+			@Nullable String attributeBody, @Nullable String attributeHash);
+
+	/**
+	 * Delete all given credentials. Their claims are removed by the database.
+	 *
+	 * @param ids of the credentials
+	 */
+	void deleteByIdIn(Collection<Integer> ids);
+
+	/**
+	 * Delete all credentials of the given issuers. Their claims are removed by the database.
+	 *
+	 * @param dids of the issuers
+	 */
+	void deleteByTrustedIssuerDidIn(Collection<String> dids);
 }
@@ -0,0 +1,133 @@
+package org.fiware.iam.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+import org.fiware.iam.configuration.RepositoryConfig;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Converts the credentials of an issuer from and to the json document stored in the DOCUMENT storage mode. The
+ * document contains the same columns as the normalized tables, claim values are kept serialized together with their
+ * type. The order of all lists is kept.
+ */
+@Singleton
+public class CredentialsDocumentCodec {
+
+	private static final TypeReference<List<CredentialDocument>> DOCUMENT_TYPE = new TypeReference<>() {
+	};
+
+	private final RepositoryConfig repositoryConfig;
+	private final ObjectReader documentReader;
+	private final ObjectWriter documentWriter;
+
+	public CredentialsDocumentCodec(RepositoryConfig repositoryConfig, ObjectMapper objectMapper) {
+		this.repositoryConfig = repositoryConfig;
+		this.documentReader = objectMapper.readerFor(DOCUMENT_TYPE);
+		this.documentWriter = objectMapper.writerFor(DOCUMENT_TYPE);
+	}
+
+	/**
+	 * Prepare the issuer to be saved in the configured storage mode. In the DOCUMENT mode, the credentials are moved
+	 * into the document, so that saving the issuer only writes a single row.
+	 *
+	 * @param trustedIssuer the issuer to be saved, including its credentials
+	 * @return the issuer to pass to the repository
+	 */
+	public TrustedIssuer prepare(TrustedIssuer trustedIssuer) {
+		if (repositoryConfig.getStorageMode() == RepositoryConfig.StorageMode.NORMALIZED) {
+			return trustedIssuer;
+		}
+		return new TrustedIssuer()
+				.setDid(trustedIssuer.getDid())
+				.setDigest(trustedIssuer.getDigest())
+				.setCredentialsDocument(encode(trustedIssuer.getCredentials()));
+	}
+
+	/**
+	 * Encode the credentials, including their claims and values, into a document.
+	 *
+	 * @param credentials to encode
+	 * @return the json document
+	 */
+	public String encode(@Nullable Collection<Credential> credentials) {
+		List<CredentialDocument> document = Optional.ofNullable(credentials).orElse(List.of())
+				.stream()
+				.map(CredentialsDocumentCodec::toDocument)
+				.toList();
+		try {
+			return documentWriter.writeValueAsString(document);
+		} catch (JsonProcessingException e) {
+			throw new IllegalArgumentException("Was not able to encode the credentials document.", e);
+		}
+	}
+
+	/**
+	 * Decode the credentials from the document. The credentials do not have ids and are not connected to the issuer.
+	 *
+	 * @param document the json document
+	 * @return the credentials, including their claims and values
+	 */
+	public List<Credential> decode(String document) {
+		try {
+			List<CredentialDocument> credentialDocuments = documentReader.readValue(document);
+			// mutable, like the lists returned by the repositories
+			return new ArrayList<>(credentialDocuments.stream().map(CredentialsDocumentCodec::toCredential).toList());
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Was not able to decode the credentials document.", e);
+		}
+	}
+
+	private static CredentialDocument toDocument(Credential credential) {
+		List<ClaimDocument> claims = Optional.ofNullable(credential.getClaims()).orElse(List.of())
+				.stream()
+				.map(claim -> new ClaimDocument(claim.getName(), claim.getPath(),
+						Optional.ofNullable(claim.getClaimValues()).orElse(List.of())
+								.stream()
+								.map(value -> new ClaimValueDocument(value.getValue(), value.getValueType()))
+								.toList()))
+				.toList();
+		return new CredentialDocument(credential.getCredentialsType(), credential.getValidFrom(),
+				credential.getValidTo(), credential.getAttributeBody(), credential.getAttributeHash(), claims);
+	}
+
+	private static Credential toCredential(CredentialDocument document) {
+		return new Credential()
+				.setCredentialsType(document.credentialsType())
+				.setValidFrom(document.validFrom())
+				.setValidTo(document.validTo())
+				.setAttributeBody(document.attributeBody())
+				.setAttributeHash(document.attributeHash())
+				.setClaims(new ArrayList<>(Optional.ofNullable(document.claims()).orElse(List.of())
+						.stream()
+						.map(claim -> new Claim()
+								.setName(claim.name())
+								.setPath(claim.path())
+								.setClaimValues(new ArrayList<>(Optional.ofNullable(claim.values()).orElse(List.of())
+										.stream()
+										.map(value -> new ClaimValue()
+												.setValue(value.value())
+												.setValueType(value.type()))
+										.toList())))
+						.toList()));
+	}
+
+	record CredentialDocument(String credentialsType, @Nullable Instant validFrom, @Nullable Instant validTo,
+			@Nullable String attributeBody, @Nullable String attributeHash, List<ClaimDocument> claims) {
+	}
+
+	record ClaimDocument(String name, @Nullable String path, List<ClaimValueDocument> values) {
+	}
+
+	record ClaimValueDocument(String value, ClaimValueType type) {
+	}
+}
@@ -0,0 +1,13 @@
+package org.fiware.iam.repository;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.data.model.query.builder.sql.Dialect;
+import io.micronaut.data.r2dbc.annotation.R2dbcRepository;
+
+/**
+ * Extension of the {@link ReactiveTrustedIssuerRepository} for the H2-dialect
+ */
+@Requires(property = "r2dbc.datasources.default.dialect", value = "H2")
+@R2dbcRepository(dialect = Dialect.H2)
+public interface H2ReactiveTrustedIssuerRepository extends ReactiveTrustedIssuerRepository {
+}
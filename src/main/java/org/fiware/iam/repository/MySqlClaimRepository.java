@@ -0,0 +1,13 @@
+package org.fiware.iam.repository;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.data.jdbc.annotation.JdbcRepository;
+import io.micronaut.data.model.query.builder.sql.Dialect;
+
+/**
+ * Extension of the {@link ClaimRepository} for the MySql-dialect
+ */
+@Requires(property = "datasources.default.dialect", value = "MYSQL")
+@JdbcRepository(dialect = Dialect.MYSQL)
+public interface MySqlClaimRepository extends ClaimRepository {
+}
@@ -0,0 +1,13 @@
+package org.fiware.iam.repository;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.data.model.query.builder.sql.Dialect;
+import io.micronaut.data.r2dbc.annotation.R2dbcRepository;
+
+/**
+ * Extension of the {@link ReactiveTrustedIssuerRepository} for the Postgres-dialect
+ */
+@Requires(property = "r2dbc.datasources.default.dialect", value = "POSTGRES")
+@R2dbcRepository(dialect = Dialect.POSTGRES)
+public interface PostgresReactiveTrustedIssuerRepository extends ReactiveTrustedIssuerRepository {
+}
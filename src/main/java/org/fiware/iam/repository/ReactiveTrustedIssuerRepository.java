@@ -0,0 +1,23 @@
+package org.fiware.iam.repository;
+
+import io.micronaut.data.annotation.Join;
+import io.micronaut.data.repository.GenericRepository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking lookups of single {@link TrustedIssuer}s through R2DBC, used with
+ * {@code til.repository.reactive-reads}. Only reads are provided, all writes and the migrations use the JDBC
+ * repositories.
+ */
+public interface ReactiveTrustedIssuerRepository extends GenericRepository<TrustedIssuer, String> {
+
+	/**
+	 * Find the issuer by its DID, together with its credentials. The claims are not loaded, since the registry serves
+	 * the attributes encoded on write.
+	 *
+	 * @param did of the issuer
+	 * @return the issuer, empty if it does not exist
+	 */
+	@Join(value = "credentials", type = Join.Type.LEFT_FETCH)
+	Mono<TrustedIssuer> findByDid(String did);
+}
@@ -0,0 +1,166 @@
+package org.fiware.iam.repository;
+
+import io.micronaut.context.BeanProvider;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import io.micronaut.core.naming.NameResolver;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.context.ServerRequestContext;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.ReplicaConfig;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Routes the connections of the default datasource to the read-only {@code datasources.replica}, for requests marked
+ * with {@link #REQUEST_ATTRIBUTE}. All other connections, including the ones opened outside of requests, go to the
+ * primary. For {@link ReplicaConfig#getReadYourWritesWindow()} after the last write, no request should be marked.
+ * <p>
+ * Since requests are marked when they start, the window is checked again whenever a connection is opened. A lookup
+ * that misses the {@link org.fiware.iam.cache.IssuerCache} after a write invalidated it therefore loads the issuer
+ * from the primary and cannot cache the state of a lagging replica.
+ */
+@Slf4j
+@Singleton
+@Requires(property = "datasources." + ReplicaRouting.REPLICA_DATASOURCE + ".url")
+// both would route the connections of the default datasource
+@Requires(missingProperty = "til.sharding.datasources")
+public class ReplicaRouting implements BeanCreatedEventListener<DataSource> {
+
+	public static final String REPLICA_DATASOURCE = "replica";
+	public static final String REQUEST_ATTRIBUTE = "til-read-from-replica";
+
+	private static final String PRIMARY_DATASOURCE = "default";
+
+	private final BeanProvider<DataSource> replicaProvider;
+	private final long readYourWritesWindowNanos;
+	private final AtomicLong lastWrite;
+	private final AtomicInteger writesInFlight = new AtomicInteger();
+
+	public ReplicaRouting(@Named(REPLICA_DATASOURCE) BeanProvider<DataSource> replicaProvider,
+			ReplicaConfig replicaConfig) {
+		this.replicaProvider = replicaProvider;
+		this.readYourWritesWindowNanos = replicaConfig.getReadYourWritesWindow().toNanos();
+		this.lastWrite = new AtomicLong(System.nanoTime() - readYourWritesWindowNanos);
+	}
+
+	@Override
+	public DataSource onCreated(BeanCreatedEvent<DataSource> event) {
+		boolean isPrimary = event.getBeanDefinition() instanceof NameResolver nameResolver
+				&& nameResolver.resolveName().filter(PRIMARY_DATASOURCE::equals).isPresent();
+		if (!isPrimary) {
+			return event.getBean();
+		}
+		log.info("Routing reads to the datasource {}.", REPLICA_DATASOURCE);
+		return new RoutingDataSource(event.getBean());
+	}
+
+	/**
+	 * Record the start of a write, reads are served from the primary until it is completed.
+	 */
+	public void beginWrite() {
+		writesInFlight.incrementAndGet();
+	}
+
+	/**
+	 * Record a completed write, reads are served from the primary for the configured window.
+	 */
+	public void completeWrite() {
+		lastWrite.set(System.nanoTime());
+		writesInFlight.decrementAndGet();
+	}
+
+	/**
+	 * @return true if no write is running and none was completed within the read-your-writes window
+	 */
+	public boolean isReplicaReadable() {
+		return writesInFlight.get() == 0 && System.nanoTime() - lastWrite.get() >= readYourWritesWindowNanos;
+	}
+
+	private static boolean isMarkedForReplica() {
+		return ServerRequestContext.currentRequest()
+				.flatMap(request -> request.getAttribute(REQUEST_ATTRIBUTE, Boolean.class))
+				.orElse(false);
+	}
+
+	/**
+	 * Mark the request to be served from the replica.
+	 *
+	 * @param request to mark
+	 */
+	public static void markForReplica(HttpRequest<?> request) {
+		request.setAttribute(REQUEST_ATTRIBUTE, true);
+	}
+
+	/**
+	 * Only the connections are routed, everything else is answered by the primary.
+	 */
+	private class RoutingDataSource implements DataSource {
+
+		private final DataSource primary;
+
+		private RoutingDataSource(DataSource primary) {
+			this.primary = primary;
+		}
+
+		private DataSource target() {
+			// a write might have started since the request was marked
+			return isMarkedForReplica() && isReplicaReadable() ? replicaProvider.get() : primary;
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			return target().getConnection();
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			return target().getConnection(username, password);
+		}
+
+		@Override
+		public PrintWriter getLogWriter() throws SQLException {
+			return primary.getLogWriter();
+		}
+
+		@Override
+		public void setLogWriter(PrintWriter out) throws SQLException {
+			primary.setLogWriter(out);
+		}
+
+		@Override
+		public void setLoginTimeout(int seconds) throws SQLException {
+			primary.setLoginTimeout(seconds);
+		}
+
+		@Override
+		public int getLoginTimeout() throws SQLException {
+			return primary.getLoginTimeout();
+		}
+
+		@Override
+		public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+			return primary.getParentLogger();
+		}
+
+		@Override
+		public <T> T unwrap(Class<T> type) throws SQLException {
+			return type.isInstance(this) ? type.cast(this) : primary.unwrap(type);
+		}
+
+		@Override
+		public boolean isWrapperFor(Class<?> type) throws SQLException {
+			return type.isInstance(this) || primary.isWrapperFor(type);
+		}
+	}
+}
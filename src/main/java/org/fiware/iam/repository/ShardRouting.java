@@ -0,0 +1,256 @@
+package org.fiware.iam.repository;
+
+import io.micronaut.context.BeanLocator;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import io.micronaut.core.naming.NameResolver;
+import io.micronaut.inject.qualifiers.Qualifiers;
+import jakarta.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.ShardingConfig;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Distributes the issuers across the datasources configured in {@link ShardingConfig}. The shard of an issuer is the
+ * CRC32 of its DID modulo the number of shards, its credentials, claims and values are stored on the same shard. The
+ * connections of the default datasource are routed to the shard bound to the calling thread through
+ * {@link #onShard(int, Supplier)}, connections opened without a bound shard go to the default datasource. The shard
+ * has to be bound before a transaction is started, since the transaction keeps its connection.
+ * <p>
+ * Without sharding, all methods run the given operations directly, on the default datasource.
+ */
+@Slf4j
+@Singleton
+public class ShardRouting implements BeanCreatedEventListener<DataSource> {
+
+	private static final String DEFAULT_DATASOURCE = "default";
+	private static final int NO_SHARD = -1;
+
+	private final BeanLocator beanLocator;
+	private final List<String> datasources;
+	private final ThreadLocal<Integer> boundShard = ThreadLocal.withInitial(() -> NO_SHARD);
+	private volatile List<DataSource> shards;
+
+	public ShardRouting(BeanLocator beanLocator, ShardingConfig shardingConfig) {
+		this.beanLocator = beanLocator;
+		this.datasources = shardingConfig.getDatasources();
+	}
+
+	@Override
+	public DataSource onCreated(BeanCreatedEvent<DataSource> event) {
+		boolean isDefault = event.getBeanDefinition() instanceof NameResolver nameResolver
+				&& nameResolver.resolveName().filter(DEFAULT_DATASOURCE::equals).isPresent();
+		if (!isSharded() || !isDefault) {
+			return event.getBean();
+		}
+		log.info("Distributing the issuers across the datasources {}.", datasources);
+		return new ShardedDataSource(event.getBean());
+	}
+
+	public boolean isSharded() {
+		return datasources.size() > 1;
+	}
+
+	public int getShardCount() {
+		return isSharded() ? datasources.size() : 1;
+	}
+
+	/**
+	 * Get the shard of the issuer. The hash is independent of the JVM and the platform, thus stable across restarts
+	 * and instances.
+	 *
+	 * @param did of the issuer
+	 * @return the shard, between 0 and the number of shards
+	 */
+	public int shardOf(String did) {
+		CRC32 crc32 = new CRC32();
+		crc32.update(did.getBytes(StandardCharsets.UTF_8));
+		return (int) (crc32.getValue() % getShardCount());
+	}
+
+	/**
+	 * Run the operation on the shard of the given issuer.
+	 */
+	public <T> T onShardOf(String did, Supplier<T> operation) {
+		return onShard(shardOf(did), operation);
+	}
+
+	/**
+	 * Run the operation with the given shard bound to the calling thread.
+	 *
+	 * @throws IllegalStateException if another shard is already bound, since its connection might still be in use
+	 */
+	public <T> T onShard(int shard, Supplier<T> operation) {
+		if (!isSharded()) {
+			return operation.get();
+		}
+		int previousShard = boundShard.get();
+		if (previousShard != NO_SHARD && previousShard != shard) {
+			throw new IllegalStateException(
+					String.format("Cannot switch to shard %s while shard %s is in use.", shard, previousShard));
+		}
+		boundShard.set(shard);
+		try {
+			return operation.get();
+		} finally {
+			boundShard.set(previousShard);
+		}
+	}
+
+	/**
+	 * Run the operation on every shard, one after the other.
+	 *
+	 * @return the results of all shards, in order of the shards
+	 */
+	public <T> List<T> onAllShards(Supplier<T> operation) {
+		List<T> results = new ArrayList<>(getShardCount());
+		for (int shard = 0; shard < getShardCount(); shard++) {
+			results.add(onShard(shard, operation));
+		}
+		return results;
+	}
+
+	/**
+	 * Group the elements by the shard of their issuer.
+	 *
+	 * @param elements    to group
+	 * @param didResolver to get the DID of the issuer of an element
+	 * @return the elements per shard, sorted by shard. The order of the elements is kept.
+	 */
+	public <T> Map<Integer, List<T>> groupByShard(Collection<T> elements, Function<T, String> didResolver) {
+		Map<Integer, List<T>> elementsByShard = new TreeMap<>();
+		elements.forEach(element -> elementsByShard
+				.computeIfAbsent(shardOf(didResolver.apply(element)), shard -> new ArrayList<>())
+				.add(element));
+		return elementsByShard;
+	}
+
+	/**
+	 * Merge the sorted results of the shards into one sorted list. Every shard's list is only traversed as far as
+	 * required to fill the limit.
+	 *
+	 * @param sortedResults results of every shard, each sorted by the comparator
+	 * @param comparator    the results are sorted by
+	 * @param limit         maximum size of the merged list
+	 * @return the merged, sorted list
+	 */
+	public static <T> List<T> merge(List<List<T>> sortedResults, Comparator<T> comparator, int limit) {
+		if (sortedResults.size() == 1) {
+			List<T> result = sortedResults.getFirst();
+			return result.size() > limit ? result.subList(0, limit) : result;
+		}
+		// every cursor points to the next element of one shard
+		PriorityQueue<Cursor<T>> cursors = new PriorityQueue<>(
+				Comparator.comparing((Cursor<T> cursor) -> cursor.current(), comparator));
+		sortedResults.stream()
+				.filter(result -> !result.isEmpty())
+				.forEach(result -> cursors.add(new Cursor<>(result, 0)));
+		List<T> merged = new ArrayList<>(limit);
+		while (merged.size() < limit && !cursors.isEmpty()) {
+			Cursor<T> cursor = cursors.poll();
+			merged.add(cursor.current());
+			if (cursor.position() + 1 < cursor.elements().size()) {
+				cursors.add(new Cursor<>(cursor.elements(), cursor.position() + 1));
+			}
+		}
+		return merged;
+	}
+
+	private record Cursor<T>(List<T> elements, int position) {
+
+		T current() {
+			return elements.get(position);
+		}
+	}
+
+	// resolved on first use, the shards are datasources themselves and cannot be created while the default one is
+	private List<DataSource> getShards(DataSource defaultDataSource) {
+		if (shards == null) {
+			shards = datasources.stream()
+					.map(name -> DEFAULT_DATASOURCE.equals(name) ?
+							defaultDataSource :
+							beanLocator.getBean(DataSource.class, Qualifiers.byName(name)))
+					.toList();
+		}
+		return shards;
+	}
+
+	/**
+	 * Only the connections are routed, everything else is answered by the default datasource.
+	 */
+	private class ShardedDataSource implements DataSource {
+
+		private final DataSource defaultDataSource;
+
+		private ShardedDataSource(DataSource defaultDataSource) {
+			this.defaultDataSource = defaultDataSource;
+		}
+
+		private DataSource target() {
+			int shard = boundShard.get();
+			return shard == NO_SHARD ? defaultDataSource : getShards(defaultDataSource).get(shard);
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			return target().getConnection();
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			return target().getConnection(username, password);
+		}
+
+		@Override
+		public PrintWriter getLogWriter() throws SQLException {
+			return defaultDataSource.getLogWriter();
+		}
+
+		@Override
+		public void setLogWriter(PrintWriter out) throws SQLException {
+			defaultDataSource.setLogWriter(out);
+		}
+
+		@Override
+		public void setLoginTimeout(int seconds) throws SQLException {
+			defaultDataSource.setLoginTimeout(seconds);
+		}
+
+		@Override
+		public int getLoginTimeout() throws SQLException {
+			return defaultDataSource.getLoginTimeout();
+		}
+
+		@Override
+		public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+			return defaultDataSource.getParentLogger();
+		}
+
+		@Override
+		public <T> T unwrap(Class<T> type) throws SQLException {
+			return type.isInstance(this) ? type.cast(this) : defaultDataSource.unwrap(type);
+		}
+
+		@Override
+		public boolean isWrapperFor(Class<?> type) throws SQLException {
+			return type.isInstance(this) || defaultDataSource.isWrapperFor(type);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package org.fiware.iam.repository;
+
+import io.micronaut.data.model.Pageable;
+import io.micronaut.data.model.Sort;
+import jakarta.inject.Singleton;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Lists the DIDs of the issuers, sorted alphabetically, across all shards of the {@link ShardRouting}. Every shard
+ * returns its own sorted DIDs, which are merged into one page. Without sharding, the queries are forwarded to the
+ * repository as they are.
+ */
+@Singleton
+@RequiredArgsConstructor
+public class ShardedDidQueries {
+
+	private static final Sort DID_SORT = Sort.unsorted().order("did");
+
+	private final TrustedIssuerRepository trustedIssuerRepository;
+	private final ShardRouting shardRouting;
+
+	/**
+	 * Find the DIDs of the requested page. Each shard has to return all DIDs up to the end of the page, thus keyset
+	 * pagination through {@link #findAfter(String, int)} should be preferred for later pages.
+	 *
+	 * @param page     zero-based number of the page
+	 * @param pageSize number of DIDs per page
+	 * @return the DIDs of the page
+	 */
+	public List<String> findPage(int page, int pageSize) {
+		if (!shardRouting.isSharded()) {
+			return trustedIssuerRepository.findDidByDidIsNotNull(Pageable.from(page, pageSize, DID_SORT));
+		}
+		int offset = page * pageSize;
+		Pageable upToPageEnd = Pageable.from(0, offset + pageSize, DID_SORT);
+		List<String> merged = ShardRouting.merge(
+				shardRouting.onAllShards(() -> trustedIssuerRepository.findDidByDidIsNotNull(upToPageEnd)),
+				Comparator.naturalOrder(), offset + pageSize);
+		return merged.size() > offset ? merged.subList(offset, merged.size()) : List.of();
+	}
+
+	/**
+	 * Find the DIDs following the given one.
+	 *
+	 * @param did   anchor to start after
+	 * @param limit maximum number of DIDs to return
+	 * @return the DIDs following the anchor
+	 */
+	public List<String> findAfter(String did, int limit) {
+		Pageable pageable = Pageable.from(0, limit, DID_SORT);
+		return ShardRouting.merge(
+				shardRouting.onAllShards(() -> trustedIssuerRepository.findDidByDidGreaterThan(did, pageable)),
+				Comparator.naturalOrder(), limit);
+	}
+
+	/**
+	 * @return the number of issuers on all shards
+	 */
+	public long count() {
+		return shardRouting.onAllShards(trustedIssuerRepository::count).stream()
+				.mapToLong(Long::longValue)
+				.sum();
+	}
+}
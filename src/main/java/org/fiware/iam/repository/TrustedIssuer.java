@@ -1,6 +1,9 @@
 package org.fiware.iam.repository;
 
 import io.micronaut.core.annotation.Introspected;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.data.annotation.TypeDef;
+import io.micronaut.data.model.DataType;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -25,6 +28,16 @@ public class TrustedIssuer {
 	@Id
 	private String did;
 
+	// base64 encoded sha-256 digest over all attribute hashes of the issuer. Computed on write.
+	@Nullable
+	private String digest;
+
+	// all credentials of the issuer as one json document, see CredentialsDocumentCodec. Only set in the DOCUMENT
+	// storage mode, the credentials are empty then.
+	@Nullable
+	@TypeDef(type = DataType.JSON)
+	private String credentialsDocument;
+
 	@OneToMany(mappedBy = "trustedIssuer", cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
 	private Collection<Credential> credentials;
 }
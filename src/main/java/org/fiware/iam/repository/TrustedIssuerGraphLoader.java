@@ -0,0 +1,142 @@
+package org.fiware.iam.repository;
+
+import jakarta.inject.Singleton;
+import lombok.RequiredArgsConstructor;
+import org.fiware.iam.configuration.RepositoryConfig;
+import org.fiware.iam.metrics.ServiceMetrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Loads complete issuers, including their credentials, claims and claim values. Depending on the configured
+ * {@link RepositoryConfig.FetchStrategy}, the graph is either fetched through a single join or level by level, with
+ * one query per level. The join returns (credentials x claims x values) rows for every issuer, while the batched
+ * variant only transfers every row once. Issuers stored as a document are read with a single query. With sharding,
+ * every issuer is loaded from its own shard.
+ */
+@Singleton
+@RequiredArgsConstructor
+public class TrustedIssuerGraphLoader {
+
+	private final RepositoryConfig repositoryConfig;
+	private final TrustedIssuerRepository trustedIssuerRepository;
+	private final CredentialRepository credentialRepository;
+	private final ClaimRepository claimRepository;
+	private final ClaimValueRepository claimValueRepository;
+	private final CredentialsDocumentCodec credentialsDocumentCodec;
+	private final ServiceMetrics serviceMetrics;
+	private final ShardRouting shardRouting;
+
+	/**
+	 * Load the complete issuer, using the configured fetch strategy.
+	 *
+	 * @param did of the issuer
+	 * @return the complete issuer, empty if it does not exist
+	 */
+	public Optional<TrustedIssuer> load(String did) {
+		return serviceMetrics.record(ServiceMetrics.Operation.GET_BY_DID, () -> shardRouting.onShardOf(did, () -> {
+			if (repositoryConfig.getStorageMode() == RepositoryConfig.StorageMode.DOCUMENT) {
+				return loadBatched(did);
+			}
+			return switch (repositoryConfig.getFetchStrategy()) {
+				case JOINED -> loadJoined(did);
+				case BATCHED -> loadBatched(did);
+			};
+		}));
+	}
+
+	/**
+	 * Load the complete issuer through a single left-joined query.
+	 *
+	 * @param did of the issuer
+	 * @return the complete issuer, empty if it does not exist
+	 */
+	public Optional<TrustedIssuer> loadJoined(String did) {
+		return shardRouting.onShardOf(did, () -> trustedIssuerRepository.getByDid(did));
+	}
+
+	/**
+	 * Load the complete issuer with one query per level.
+	 *
+	 * @param did of the issuer
+	 * @return the complete issuer, empty if it does not exist
+	 */
+	public Optional<TrustedIssuer> loadBatched(String did) {
+		return shardRouting.onShardOf(did, () -> loadIssuers(List.of(did)).stream().findFirst());
+	}
+
+	/**
+	 * Load all given issuers with one query per level, independent of the number of issuers. Issuers stored as a
+	 * document are complete after the first query. With sharding, the queries are issued per shard.
+	 *
+	 * @param dids of the issuers
+	 * @return the complete issuers, sorted by their DID. Not existing issuers are omitted.
+	 */
+	public List<TrustedIssuer> loadAll(Collection<String> dids) {
+		return serviceMetrics.record(ServiceMetrics.Operation.FIND_ALL, () -> ShardRouting.merge(
+				shardRouting.groupByShard(dids, Function.identity()).entrySet().stream()
+						.map(shardDids -> shardRouting.onShard(shardDids.getKey(),
+								() -> loadIssuers(shardDids.getValue())))
+						.toList(),
+				Comparator.comparing(TrustedIssuer::getDid), dids.size()));
+	}
+
+	private List<TrustedIssuer> loadIssuers(Collection<String> dids) {
+		if (dids.isEmpty()) {
+			return List.of();
+		}
+		List<TrustedIssuer> trustedIssuers = trustedIssuerRepository.findByDidInOrderByDid(dids);
+		List<TrustedIssuer> normalizedIssuers = new ArrayList<>();
+		for (TrustedIssuer trustedIssuer : trustedIssuers) {
+			if (trustedIssuer.getCredentialsDocument() == null) {
+				normalizedIssuers.add(trustedIssuer);
+			} else {
+				trustedIssuer.setCredentials(credentialsDocumentCodec.decode(trustedIssuer.getCredentialsDocument()));
+			}
+		}
+		if (!normalizedIssuers.isEmpty()) {
+			loadCredentials(normalizedIssuers);
+		}
+		return trustedIssuers;
+	}
+
+	private void loadCredentials(List<TrustedIssuer> trustedIssuers) {
+		List<Credential> credentials = credentialRepository.findByTrustedIssuerDidInOrderById(
+				getIds(trustedIssuers, TrustedIssuer::getDid));
+		List<Claim> claims = credentials.isEmpty() ?
+				List.of() :
+				claimRepository.findByCredentialIdInOrderById(getIds(credentials, Credential::getId));
+		List<ClaimValue> claimValues = claims.isEmpty() ?
+				List.of() :
+				claimValueRepository.findByClaimIdInOrderById(getIds(claims, Claim::getId));
+
+		// the parent references only contain the id, since they are not joined
+		Map<Integer, List<ClaimValue>> valuesByClaim = groupBy(claimValues, value -> value.getClaim().getId());
+		claims.forEach(claim -> claim.setClaimValues(valuesByClaim.getOrDefault(claim.getId(), new ArrayList<>())));
+
+		Map<Integer, List<Claim>> claimsByCredential = groupBy(claims, claim -> claim.getCredential().getId());
+		credentials.forEach(credential -> credential.setClaims(
+				claimsByCredential.getOrDefault(credential.getId(), new ArrayList<>())));
+
+		Map<String, List<Credential>> credentialsByIssuer = groupBy(credentials,
+				credential -> credential.getTrustedIssuer().getDid());
+		trustedIssuers.forEach(trustedIssuer -> trustedIssuer.setCredentials(
+				credentialsByIssuer.getOrDefault(trustedIssuer.getDid(), new ArrayList<>())));
+	}
+
+	private static <T, I> List<I> getIds(List<T> entities, Function<T, I> idGetter) {
+		return entities.stream().map(idGetter).toList();
+	}
+
+	// keeps the order of the children, as returned by the repository
+	private static <T, K> Map<K, List<T>> groupBy(List<T> entities, Function<T, K> parentIdGetter) {
+		return entities.stream().collect(Collectors.groupingBy(parentIdGetter, Collectors.toList()));
+	}
+}
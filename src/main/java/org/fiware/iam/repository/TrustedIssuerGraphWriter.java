@@ -0,0 +1,108 @@
+package org.fiware.iam.repository;
+
+import jakarta.inject.Singleton;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Inserts complete issuers or credentials level by level, the counterpart of the batched
+ * {@link TrustedIssuerGraphLoader}. All entities of a level are written with a single saveAll, which is sent as one
+ * JDBC batch, and the generated ids are assigned to the children of the next level. The cascade of the entities would
+ * instead insert the children of every parent on their own. Micronaut Data does not batch inserts returning generated
+ * ids on MySQL, there the credentials, claims and values are still inserted row by row.
+ */
+@Singleton
+@RequiredArgsConstructor
+public class TrustedIssuerGraphWriter {
+
+	private final TrustedIssuerRepository trustedIssuerRepository;
+	private final CredentialRepository credentialRepository;
+	private final ClaimRepository claimRepository;
+	private final ClaimValueRepository claimValueRepository;
+
+	/**
+	 * Insert the issuers, including their credentials, claims and values, with one batch per level.
+	 *
+	 * @param trustedIssuers to insert
+	 */
+	public void insertAll(List<TrustedIssuer> trustedIssuers) {
+		if (trustedIssuers.isEmpty()) {
+			return;
+		}
+		// the children are detached while their parents are saved, so that the cascade does not insert them
+		List<Collection<Credential>> credentials = new ArrayList<>(trustedIssuers.size());
+		for (TrustedIssuer trustedIssuer : trustedIssuers) {
+			credentials.add(children(trustedIssuer.getCredentials()));
+			trustedIssuer.setCredentials(new ArrayList<>());
+		}
+		trustedIssuerRepository.saveAll(trustedIssuers);
+
+		List<Credential> allCredentials = new ArrayList<>();
+		for (int i = 0; i < trustedIssuers.size(); i++) {
+			TrustedIssuer issuerReference = new TrustedIssuer().setDid(trustedIssuers.get(i).getDid());
+			credentials.get(i).forEach(credential -> allCredentials.add(credential.setTrustedIssuer(issuerReference)));
+			trustedIssuers.get(i).setCredentials(credentials.get(i));
+		}
+		insertCredentials(allCredentials);
+	}
+
+	/**
+	 * Insert the credentials, including their claims and values, with one batch per level.
+	 *
+	 * @param credentials to insert, referencing their issuer
+	 */
+	public void insertCredentials(List<Credential> credentials) {
+		if (credentials.isEmpty()) {
+			return;
+		}
+		List<Collection<Claim>> claims = new ArrayList<>(credentials.size());
+		for (Credential credential : credentials) {
+			claims.add(children(credential.getClaims()));
+			credential.setClaims(new ArrayList<>());
+		}
+		List<Credential> savedCredentials = credentialRepository.saveAll(credentials);
+
+		List<Claim> allClaims = new ArrayList<>();
+		for (int i = 0; i < credentials.size(); i++) {
+			Credential credentialReference = new Credential().setId(savedCredentials.get(i).getId());
+			claims.get(i).forEach(claim -> allClaims.add(claim.setCredential(credentialReference)));
+			credentials.get(i).setClaims(claims.get(i));
+		}
+		insertClaims(allClaims);
+	}
+
+	/**
+	 * Insert the claims, including their values, with one batch per level.
+	 *
+	 * @param claims to insert, referencing their credential
+	 */
+	public void insertClaims(List<Claim> claims) {
+		if (claims.isEmpty()) {
+			return;
+		}
+		List<List<ClaimValue>> claimValues = new ArrayList<>(claims.size());
+		for (Claim claim : claims) {
+			claimValues.add(List.copyOf(children(claim.getClaimValues())));
+			claim.setClaimValues(new ArrayList<>());
+		}
+		List<Claim> savedClaims = claimRepository.saveAll(claims);
+
+		List<ClaimValue> allClaimValues = new ArrayList<>();
+		for (int i = 0; i < claims.size(); i++) {
+			Claim claimReference = new Claim().setId(savedClaims.get(i).getId());
+			claimValues.get(i).forEach(claimValue -> allClaimValues.add(claimValue.setClaim(claimReference)));
+			claims.get(i).setClaimValues(claimValues.get(i));
+		}
+		if (!allClaimValues.isEmpty()) {
+			claimValueRepository.saveAll(allClaimValues);
+		}
+	}
+
+	private static <T> Collection<T> children(Collection<T> children) {
+		return Optional.ofNullable(children).orElse(List.of());
+	}
+}
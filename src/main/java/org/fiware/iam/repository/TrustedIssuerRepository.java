@@ -1,8 +1,13 @@
 package org.fiware.iam.repository;
 
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.data.annotation.Id;
 import io.micronaut.data.annotation.Join;
+import io.micronaut.data.model.Pageable;
 import io.micronaut.data.repository.PageableRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -20,5 +25,85 @@ public interface TrustedIssuerRepository extends PageableRepository<TrustedIssue
 	@Join(value = "credentials.claims", type = Join.Type.LEFT_FETCH)
 	@Join(value = "credentials.claims.claimValues", type = Join.Type.LEFT_FETCH)
 	Optional<TrustedIssuer> getByDid(String did);
-}
 
+	/**
+	 * Update the digest of the issuer, without touching its credentials.
+	 */
+	void update(@Id String did, @Nullable String digest);
+
+	/**
+	 * Update the digest and the credentials document of the issuer with a single statement.
+	 *
+	 * @return the number of updated issuers
+	 */
+	int update(@Id String did, @Nullable String digest, @Nullable String credentialsDocument);
+
+	/**
+	 * Delete the issuer with a single statement. Its credentials, claims and values are removed by the cascading
+	 * foreign keys of the database.
+	 *
+	 * @param did of the issuer
+	 * @return the number of deleted issuers
+	 */
+	int deleteByDid(String did);
+
+	/**
+	 * Find the issuers with the given DIDs. The credentials will not be loaded, see {@link TrustedIssuerGraphLoader}.
+	 *
+	 * @param dids of the issuers
+	 * @return the issuers, sorted by their DID
+	 */
+	List<TrustedIssuer> findByDidInOrderByDid(Collection<String> dids);
+
+	/**
+	 * Find which of the given DIDs already exist. Only the did column is selected.
+	 *
+	 * @param dids to check
+	 * @return the existing DIDs
+	 */
+	List<String> findDidByDidIn(Collection<String> dids);
+
+	/**
+	 * Find the DIDs of all issuers. Only the did column is selected, the credentials will not be touched.
+	 *
+	 * @param pageable to limit, offset and sort the result
+	 * @return the DIDs of the requested page
+	 */
+	List<String> findDidByDidIsNotNull(Pageable pageable);
+
+	/**
+	 * Find the DIDs of the issuers following the given one. Together with a {@link Pageable} sorted by DID, this
+	 * allows keyset-pagination without offsets. Only the did column is selected.
+	 *
+	 * @param did      anchor to start after
+	 * @param pageable to limit and sort the result, the offset should be 0
+	 * @return the DIDs following the anchor
+	 */
+	List<String> findDidByDidGreaterThan(String did, Pageable pageable);
+
+	/**
+	 * Find and lock the DIDs of the issuers stored in the normalized tables, until the end of the transaction. Only the
+	 * did column is selected.
+	 *
+	 * @param pageable to limit and sort the result
+	 * @return the DIDs of issuers without a credentials document
+	 */
+	List<String> findDidByCredentialsDocumentIsNullForUpdate(Pageable pageable);
+
+	/**
+	 * Find and lock the DIDs of the issuers stored as a document, until the end of the transaction. Only the did column
+	 * is selected.
+	 *
+	 * @param pageable to limit and sort the result
+	 * @return the DIDs of issuers with a credentials document
+	 */
+	List<String> findDidByCredentialsDocumentIsNotNullForUpdate(Pageable pageable);
+
+	/**
+	 * Find the digest of the issuer. Only the digest column is selected.
+	 *
+	 * @param did of the issuer
+	 * @return the digest, empty if the issuer does not exist or was persisted without a digest
+	 */
+	Optional<String> findDigestByDid(String did);
+}
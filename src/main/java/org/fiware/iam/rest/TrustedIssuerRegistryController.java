@@ -1,9 +1,7 @@
 package org.fiware.iam.rest;
 
 import io.micronaut.core.annotation.Nullable;
-import io.micronaut.data.model.Page;
-import io.micronaut.data.model.Pageable;
-import io.micronaut.data.model.Sort;
+import io.micronaut.http.HttpHeaders;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.annotation.Controller;
@@ -12,18 +10,30 @@ import io.micronaut.http.uri.UriBuilder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.fiware.iam.TIRMapper;
+import org.fiware.iam.cache.CachedIssuer;
+import org.fiware.iam.cache.IssuerCache;
 import org.fiware.iam.filter.ForwardedForFilter;
+import org.fiware.iam.metrics.IssuerCountGauge;
+import org.fiware.iam.metrics.ServiceMetrics;
+import org.fiware.iam.repository.ShardedDidQueries;
 import org.fiware.iam.repository.TrustedIssuer;
-import org.fiware.iam.repository.TrustedIssuerRepository;
+import org.fiware.iam.repository.TrustedIssuerGraphLoader;
 import org.fiware.iam.tir.api.TirApi;
 import org.fiware.iam.tir.model.IssuerEntryVO;
+import org.fiware.iam.tir.model.IssuerResolutionRequestVO;
+import org.fiware.iam.tir.model.IssuerResolutionResponseVO;
 import org.fiware.iam.tir.model.IssuerVO;
 import org.fiware.iam.tir.model.IssuersResponseVO;
 import org.fiware.iam.tir.model.LinksVO;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of the (EBSI-compatible) trusted issuers registry
@@ -38,63 +48,209 @@ public class TrustedIssuerRegistryController implements TirApi {
     private static final String ROOT_PATH = "/";
     private static final String AFTER_PARAM = "page[after]";
     private static final String SIZE_PARAM = "page[size]";
-    private static final String DEFAULT_SORT = "did";
+    private static final int MAX_RESOLUTION_SIZE = 100;
+    private static final String ANY_ENTITY_TAG = "*";
+    private static final String WEAK_ENTITY_TAG_PREFIX = "W/";
 
 	private final TIRMapper trustedIssuerMapper;
-	private final TrustedIssuerRepository trustedIssuerRepository;
+	private final ShardedDidQueries shardedDidQueries;
+	private final TrustedIssuerGraphLoader trustedIssuerGraphLoader;
+	private final IssuerCache issuerCache;
+	private final ServiceMetrics serviceMetrics;
+	private final IssuerCountGauge issuerCountGauge;
 
+	/**
+	 * Returns the issuer, together with a strong entity tag derived from the digest over its attributes. If the tag
+	 * matches the If-None-Match header of the request, only a 304 will be returned.
+	 */
 	@Override
 	public HttpResponse<IssuerVO> getIssuerV4(String did) {
 		checkDidFormat(did);
-		Optional<TrustedIssuer> optionalTrustedIssuer = trustedIssuerRepository.getByDid(did);
-		if (optionalTrustedIssuer.isEmpty()) {
+		Optional<CachedIssuer> optionalIssuer = issuerCache.get(did, this::loadIssuer);
+		if (optionalIssuer.isEmpty()) {
 			return HttpResponse.notFound();
 		}
-		return HttpResponse.ok(trustedIssuerMapper.map(optionalTrustedIssuer.get()));
+		CachedIssuer cachedIssuer = optionalIssuer.get();
+		if (isNotModified(cachedIssuer.entityTag())) {
+			return HttpResponse.<IssuerVO>notModified().header(HttpHeaders.ETAG, cachedIssuer.entityTag());
+		}
+		return HttpResponse.ok(cachedIssuer.issuer()).header(HttpHeaders.ETAG, cachedIssuer.entityTag());
+	}
+
+	private Optional<CachedIssuer> loadIssuer(String did) {
+		return trustedIssuerGraphLoader.load(did)
+				.map(trustedIssuer -> CachedIssuer.of(
+						serviceMetrics.record(ServiceMetrics.Operation.TIR_MAPPING,
+								() -> trustedIssuerMapper.map(trustedIssuer)),
+						trustedIssuerMapper.getDigest(trustedIssuer)));
+	}
+
+	/**
+	 * Resolves all requested issuers at once. Cached issuers are served from the cache, all others are loaded with one
+	 * query per level of the issuer graph.
+	 */
+	@Override
+	public HttpResponse<IssuerResolutionResponseVO> resolveIssuersV4(
+			IssuerResolutionRequestVO issuerResolutionRequestVO) {
+		List<String> dids = Optional.ofNullable(issuerResolutionRequestVO)
+				.map(IssuerResolutionRequestVO::getDids)
+				.orElse(List.of())
+				.stream()
+				.distinct()
+				.toList();
+		if (dids.isEmpty() || dids.size() > MAX_RESOLUTION_SIZE) {
+			throw new IllegalArgumentException("The number of requested issuers is not supported.");
+		}
+		dids.forEach(this::checkDidFormat);
+
+		Map<String, CachedIssuer> resolvedIssuers = issuerCache.getAll(dids, this::loadIssuers);
+		Map<String, IssuerVO> issuers = new LinkedHashMap<>();
+		List<String> notFound = new ArrayList<>();
+		dids.forEach(did -> Optional.ofNullable(resolvedIssuers.get(did))
+				.ifPresentOrElse(cachedIssuer -> issuers.put(did, cachedIssuer.issuer()), () -> notFound.add(did)));
+		return HttpResponse.ok(new IssuerResolutionResponseVO()
+				.issuers(issuers)
+				.notFound(notFound));
+	}
+
+	private Map<String, CachedIssuer> loadIssuers(Collection<String> dids) {
+		return trustedIssuerGraphLoader.loadAll(dids).stream()
+				.collect(Collectors.toMap(TrustedIssuer::getDid, trustedIssuer -> CachedIssuer.of(
+						serviceMetrics.record(ServiceMetrics.Operation.TIR_MAPPING,
+								() -> trustedIssuerMapper.map(trustedIssuer)),
+						trustedIssuerMapper.getDigest(trustedIssuer))));
+	}
+
+	// weak comparison, as required for If-None-Match by RFC 9110
+	private boolean isNotModified(String entityTag) {
+		String ifNoneMatch = ServerRequestContext.currentRequest()
+				.map(request -> request.getHeaders().get(HttpHeaders.IF_NONE_MATCH))
+				.orElse(null);
+		if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+			return false;
+		}
+		for (String requestedTag : ifNoneMatch.split(",")) {
+			String trimmedTag = requestedTag.trim();
+			if (trimmedTag.startsWith(WEAK_ENTITY_TAG_PREFIX)) {
+				trimmedTag = trimmedTag.substring(WEAK_ENTITY_TAG_PREFIX.length());
+			}
+			if (trimmedTag.equals(ANY_ENTITY_TAG) || trimmedTag.equals(entityTag)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	// checks the basic structure of a did, will not validate them!
 	private void checkDidFormat(String did) {
-		String[] didParts = did.split(":");
-		if (didParts.length < 3 || !didParts[0].equals("did")) {
+		if (!isValidDid(did)) {
 			throw new IllegalArgumentException("Provided string is not a valid did.");
 		}
 	}
 
 	/**
-	 * Implements anchor-based pagination on top of the offset-mechanism from the repository.
+	 * @return true if the string has the format of a did, the method and the identifier are not validated
+	 */
+	public static boolean isValidDid(String did) {
+		String[] didParts = did.split(":");
+		return didParts.length >= 3 && didParts[0].equals("did");
+	}
+
+	/**
+	 * Implements anchor-based pagination. The anchor is either the DID of the last issuer of the previous page, which
+	 * is translated into a keyset query, or - for backwards compatibility - the (zero-based) number of the page to
+	 * return, which is translated into an offset. Only requests without anchor or with a page number count the issuers,
+	 * the pages following an anchor report the last known count as total and do not link to the last page, since it
+	 * can only be addressed by an offset.
 	 */
 	@Override
-	public HttpResponse<IssuersResponseVO> getIssuersV4(@Nullable Integer pageSize, @Nullable Integer page) {
+	public HttpResponse<IssuersResponseVO> getIssuersV4(@Nullable Integer pageSize, @Nullable String after) {
 
 		pageSize = Optional.ofNullable(pageSize).orElse(DEFAULT_PAGE_SIZE);
 		if (pageSize < 1 || pageSize > 100) {
 			throw new IllegalArgumentException("The requested page size is not supported.");
 		}
+		if (after == null) {
+			return getIssuersPage(pageSize, 0);
+		}
+		Optional<Integer> pageNumber = getPageNumber(after);
+		if (pageNumber.isPresent()) {
+			return getIssuersPage(pageSize, pageNumber.get());
+		}
+		checkDidFormat(after);
+		return getIssuersAfter(pageSize, after);
+	}
+
+	private HttpResponse<IssuersResponseVO> getIssuersPage(int pageSize, int page) {
+		if (page < 0) {
+			throw new IllegalArgumentException("The requested page is not supported.");
+		}
 
-		Sort didSort = Sort.unsorted().order(DEFAULT_SORT);
-        Pageable pagination = Pageable.from( page, pageSize, didSort);
-		Page<TrustedIssuer> result = trustedIssuerRepository.findAll(pagination);
+		List<String> dids = shardedDidQueries.findPage(page, pageSize);
+		long total = shardedDidQueries.count();
+		issuerCountGauge.update(total);
 
-		if (result.isEmpty()) {
-			return HttpResponse.ok(new IssuersResponseVO()
-					.items(List.of())
-					.total(0)
-					.pageSize(0)
-					.self(getHrefUri("")));
+		if (dids.isEmpty()) {
+			return getEmptyResponse(total);
 		}
 
-        List<IssuerEntryVO> issuerEntries = result.getContent().stream()
-                .map(entry -> new IssuerEntryVO()
-                        .did(entry.getDid())
-                        .href(getHrefUri(entry.getDid()))
+		LinksVO links = getLinks(pageSize).last(getAnchorUri(getLastPage(total, pageSize), pageSize));
+		if (page > 0) {
+			links.prev(getAnchorUri(page - 1, pageSize));
+		}
+		if ((long) (page + 1) * pageSize < total) {
+			links.next(getAnchorUri(dids.getLast(), pageSize));
+		}
+		return getResponse(dids, total, links);
+	}
+
+	private HttpResponse<IssuersResponseVO> getIssuersAfter(int pageSize, String after) {
+		// request one additional issuer to know if there is a next page
+		List<String> dids = shardedDidQueries.findAfter(after, pageSize + 1);
+		// counting all issuers would take time linear to their number on every page
+		long total = issuerCountGauge.getIssuerCount();
+
+		if (dids.isEmpty()) {
+			return getEmptyResponse(total);
+		}
+
+		LinksVO links = getLinks(pageSize);
+		if (dids.size() > pageSize) {
+			dids = dids.subList(0, pageSize);
+			links.next(getAnchorUri(dids.getLast(), pageSize));
+		}
+		return getResponse(dids, total, links);
+	}
+
+	// numeric anchors are page numbers, everything else is handled as a did
+	private Optional<Integer> getPageNumber(String after) {
+		try {
+			return Optional.of(Integer.parseInt(after));
+		} catch (NumberFormatException e) {
+			return Optional.empty();
+		}
+	}
+
+	private HttpResponse<IssuersResponseVO> getEmptyResponse(long total) {
+		return HttpResponse.ok(new IssuersResponseVO()
+				.items(List.of())
+				.total((int) total)
+				.pageSize(0)
+				.self(getHrefUri("")));
+	}
+
+	private HttpResponse<IssuersResponseVO> getResponse(List<String> dids, long total, LinksVO links) {
+        List<IssuerEntryVO> issuerEntries = dids.stream()
+                .map(did -> new IssuerEntryVO()
+                        .did(did)
+                        .href(getHrefUri(did))
                 ).toList();
 		return HttpResponse.ok(new IssuersResponseVO()
 				.items(issuerEntries)
-				.total((int) result.getTotalSize())
-				.pageSize(result.getNumberOfElements())
+				.total((int) total)
+				.pageSize(issuerEntries.size())
 				.self(getHrefUri(""))
-				.links(getLinks(result)));
+				.links(links));
 	}
 
     private URI getHrefUri(String path) {
@@ -116,29 +272,17 @@ public class TrustedIssuerRegistryController implements TirApi {
         return UriBuilder.of(ROOT_PATH);
     }
 
-    private LinksVO getLinks(Page<?> page) {
-        LinksVO links = new LinksVO();
-        URI baseUri = getHrefUri("");
-        int pageSize = page.getSize();
-
-        if (page.hasPrevious()) {
-            links.prev(UriBuilder.of(baseUri)
-                    .queryParam(AFTER_PARAM, page.getPageable().previous().getNumber())
-                    .queryParam(SIZE_PARAM, page.getSize()).build());
+    private LinksVO getLinks(int pageSize) {
+        return new LinksVO().first(getAnchorUri(0, pageSize));
+    }
 
-        }
-        if (page.hasNext()) {
-            links.next(UriBuilder.of(baseUri)
-                    .queryParam(AFTER_PARAM, page.getPageable().next().getNumber())
-                    .queryParam(SIZE_PARAM, pageSize).build());
-        }
+    private static int getLastPage(long total, int pageSize) {
+        return (int) Math.max(0, (total - 1) / pageSize);
+    }
 
-        links.first(UriBuilder.of(baseUri)
-                .queryParam(AFTER_PARAM, 0)
-                .queryParam(SIZE_PARAM, pageSize).build());
-        links.last(UriBuilder.of(baseUri)
-                .queryParam(AFTER_PARAM, page.getTotalPages() - 1)
-                .queryParam(SIZE_PARAM, pageSize).build());
-        return links;
+    private URI getAnchorUri(Object after, int pageSize) {
+        return UriBuilder.of(getHrefUri(""))
+                .queryParam(AFTER_PARAM, after)
+                .queryParam(SIZE_PARAM, pageSize).build();
     }
 }
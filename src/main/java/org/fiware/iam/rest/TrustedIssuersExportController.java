@@ -0,0 +1,73 @@
+package org.fiware.iam.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Get;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.TILMapper;
+import org.fiware.iam.configuration.ExportConfig;
+import org.fiware.iam.repository.TrustedIssuer;
+import org.fiware.iam.repository.TrustedIssuerGraphLoader;
+import org.fiware.iam.repository.ShardedDidQueries;
+import org.fiware.iam.til.model.TrustedIssuerVO;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Streams all trusted issuers in the format of the trusted-list api, to allow mirroring the list without paging
+ * through it. The issuers are read in chunks, sorted by their DID, and every chunk is only loaded once the previous
+ * one was consumed by the client.
+ */
+@Slf4j
+@Controller("${general.basepath:/}")
+@RequiredArgsConstructor
+public class TrustedIssuersExportController {
+
+	public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+	// sorts before every did, thus starts the export at the first issuer
+	private static final String START_ANCHOR = "";
+	private static final String LINE_SEPARATOR = "\n";
+
+	private final ExportConfig exportConfig;
+	private final ShardedDidQueries shardedDidQueries;
+	private final TrustedIssuerGraphLoader trustedIssuerGraphLoader;
+	private final TILMapper trustedIssuerMapper;
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * Returns all issuers as newline-delimited json, one {@link TrustedIssuerVO} per line.
+	 */
+	@Get(value = "/issuer/export", produces = APPLICATION_NDJSON)
+	public Flux<String> exportIssuers() {
+		int chunkSize = exportConfig.getChunkSize();
+		return Flux.<List<TrustedIssuer>, String>generate(() -> START_ANCHOR, (after, sink) -> {
+					List<String> dids = shardedDidQueries.findAfter(after, chunkSize);
+					if (dids.isEmpty()) {
+						sink.complete();
+						return after;
+					}
+					sink.next(trustedIssuerGraphLoader.loadAll(dids));
+					if (dids.size() < chunkSize) {
+						sink.complete();
+					}
+					return dids.getLast();
+				})
+				.flatMapIterable(Function.identity())
+				.map(trustedIssuerMapper::map)
+				.map(this::toLine)
+				// the repositories are blocking, keep them off the event loop
+				.subscribeOn(Schedulers.boundedElastic())
+				.doOnError(e -> log.warn("Was not able to finish the export.", e));
+	}
+
+	@SneakyThrows
+	private String toLine(TrustedIssuerVO trustedIssuerVO) {
+		return objectMapper.writeValueAsString(trustedIssuerVO) + LINE_SEPARATOR;
+	}
+}
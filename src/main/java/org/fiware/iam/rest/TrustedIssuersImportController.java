@@ -0,0 +1,146 @@
+package org.fiware.iam.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micronaut.data.exceptions.DataAccessException;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Body;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Post;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.annotation.ExecuteOn;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.cache.IssuerCache;
+import org.fiware.iam.configuration.ImportConfig;
+import org.fiware.iam.exception.ConflictException;
+import org.fiware.iam.repository.ShardRouting;
+import org.fiware.iam.service.ImportReport;
+import org.fiware.iam.service.ImportResult;
+import org.fiware.iam.service.TrustedIssuerImporter;
+import org.fiware.iam.til.model.TrustedIssuerVO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Bulk import of issuers in the format of the trusted-list api. Accepts either a json array or newline-delimited json
+ * and writes the issuers in chunked transactions. Every issuer is reported as created, conflicting or invalid.
+ */
+@Slf4j
+@Controller("${general.basepath:/}")
+public class TrustedIssuersImportController {
+
+	private static final String NULL_ISSUER = "The issuer is null.";
+	private static final String WRITE_FAILED = "Was not able to write the issuer.";
+
+	private final ImportConfig importConfig;
+	private final TrustedIssuerImporter trustedIssuerImporter;
+	private final ShardRouting shardRouting;
+	private final IssuerCache issuerCache;
+	private final ObjectReader issuerReader;
+
+	public TrustedIssuersImportController(ImportConfig importConfig, TrustedIssuerImporter trustedIssuerImporter,
+			ShardRouting shardRouting, IssuerCache issuerCache, ObjectMapper objectMapper) {
+		this.importConfig = importConfig;
+		this.trustedIssuerImporter = trustedIssuerImporter;
+		this.shardRouting = shardRouting;
+		this.issuerCache = issuerCache;
+		this.issuerReader = objectMapper.readerFor(TrustedIssuerVO.class);
+	}
+
+	/**
+	 * Import all issuers of the body. Chunks that were written before a failure stay persisted, the report only
+	 * contains the issuers that were processed. If a chunk fails for another reason than already existing issuers,
+	 * the import stops and the report is returned with a 500.
+	 */
+	@Post(value = "/issuer/bulk", consumes = { MediaType.APPLICATION_JSON,
+			TrustedIssuersExportController.APPLICATION_NDJSON })
+	@ExecuteOn(TaskExecutors.BLOCKING)
+	public HttpResponse<ImportReport> importIssuers(@Body InputStream body) throws IOException {
+		int chunkSize = importConfig.getChunkSize();
+		List<ImportResult> results = new ArrayList<>();
+		List<TrustedIssuerImporter.ImportItem> chunk = new ArrayList<>(chunkSize);
+		int index = 0;
+		try (MappingIterator<TrustedIssuerVO> issuers = issuerReader.readValues(body)) {
+			while (issuers.hasNextValue()) {
+				try {
+					TrustedIssuerVO issuer = issuers.nextValue();
+					if (issuer == null) {
+						results.add(ImportResult.invalid(index, null, NULL_ISSUER));
+					} else {
+						chunk.add(new TrustedIssuerImporter.ImportItem(index, issuer));
+					}
+				} catch (JsonMappingException e) {
+					// the iterator skips the rest of the broken value on the next call
+					results.add(ImportResult.invalid(index, null, e.getOriginalMessage()));
+				}
+				index++;
+				if (chunk.size() == chunkSize) {
+					if (!importChunk(chunk, results)) {
+						return HttpResponse.serverError(ImportReport.of(results));
+					}
+					chunk = new ArrayList<>(chunkSize);
+				}
+			}
+		} catch (JsonProcessingException e) {
+			// syntax errors cannot be recovered from, the rest of the body is reported as one invalid item
+			log.debug("Stopped reading the import at item {}.", index, e);
+			results.add(ImportResult.invalid(index, null, e.getOriginalMessage()));
+		}
+		if (!chunk.isEmpty() && !importChunk(chunk, results)) {
+			return HttpResponse.serverError(ImportReport.of(results));
+		}
+		return HttpResponse.ok(ImportReport.of(results));
+	}
+
+	// every shard writes its part of the chunk in a transaction of its own. Returns false if any of them failed.
+	private boolean importChunk(List<TrustedIssuerImporter.ImportItem> chunk, List<ImportResult> results) {
+		List<ImportResult> chunkResults = new ArrayList<>(chunk.size());
+		// issuers without a did are reported as invalid, on any shard
+		shardRouting.groupByShard(chunk, item -> Optional.ofNullable(item.issuer().getDid()).orElse(""))
+				.forEach((shard, items) -> chunkResults.addAll(shardRouting.onShard(shard, () -> importItems(items))));
+		// the transactions are committed, thus the created issuers cannot be cached in their previous state anymore
+		chunkResults.stream()
+				.filter(result -> result.status() == ImportResult.Status.CREATED)
+				.forEach(result -> issuerCache.invalidate(result.did()));
+		results.addAll(chunkResults);
+		return chunkResults.stream().noneMatch(result -> result.status() == ImportResult.Status.FAILED);
+	}
+
+	private List<ImportResult> importItems(List<TrustedIssuerImporter.ImportItem> items) {
+		try {
+			return trustedIssuerImporter.importChunk(items);
+		} catch (DataAccessException e) {
+			if (!ConflictException.isUniqueViolation(e)) {
+				log.warn("Was not able to import a chunk of {} issuers.", items.size(), e);
+				return items.stream()
+						.map(item -> ImportResult.failed(item.index(), item.issuer().getDid(), WRITE_FAILED))
+						.toList();
+			}
+			// an issuer was created concurrently, after the chunk checked for existing ones. The whole chunk was
+			// rolled back, thus every issuer is retried on its own to only report the conflicting ones.
+			log.debug("A chunk of {} issuers conflicted with a concurrent write, retrying them one by one.",
+					items.size());
+			return items.stream().flatMap(item -> importItem(item).stream()).toList();
+		}
+	}
+
+	private List<ImportResult> importItem(TrustedIssuerImporter.ImportItem item) {
+		try {
+			return trustedIssuerImporter.importChunk(List.of(item));
+		} catch (DataAccessException e) {
+			if (ConflictException.isUniqueViolation(e)) {
+				return List.of(ImportResult.conflict(item.index(), item.issuer().getDid()));
+			}
+			log.warn("Was not able to import the issuer {}.", item.issuer().getDid(), e);
+			return List.of(ImportResult.failed(item.index(), item.issuer().getDid(), WRITE_FAILED));
+		}
+	}
+}
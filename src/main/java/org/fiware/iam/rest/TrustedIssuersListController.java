@@ -2,26 +2,28 @@ package org.fiware.iam.rest;
 
 import io.micronaut.core.annotation.Introspected;
 import io.micronaut.core.annotation.Nullable;
-import io.micronaut.data.model.Page;
-import io.micronaut.data.model.Pageable;
-import io.micronaut.data.model.Sort;
+import io.micronaut.data.exceptions.DataAccessException;
 import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MutableHttpResponse;
 import io.micronaut.http.annotation.Controller;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.fiware.iam.TILMapper;
+import org.fiware.iam.cache.IssuerCache;
+import org.fiware.iam.cache.SerializedResponseCache;
 import org.fiware.iam.exception.ConflictException;
-import org.fiware.iam.repository.Credential;
-import org.fiware.iam.repository.CredentialRepository;
+import org.fiware.iam.metrics.ServiceMetrics;
+import org.fiware.iam.repository.ShardRouting;
+import org.fiware.iam.repository.ShardedDidQueries;
 import org.fiware.iam.repository.TrustedIssuer;
+import org.fiware.iam.repository.TrustedIssuerGraphLoader;
 import org.fiware.iam.repository.TrustedIssuerRepository;
+import org.fiware.iam.service.TrustedIssuerUpdater;
 import org.fiware.iam.til.api.IssuerApi;
 import org.fiware.iam.til.model.TrustedIssuerVO;
 import org.fiware.iam.til.model.TrustedIssuersListResponseVO;
 
 import java.net.URI;
-import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,11 +41,15 @@ public class TrustedIssuersListController implements IssuerApi {
 	private static final int DEFAULT_PAGE_SIZE = 10;
 	private static final int MIN_PAGE_SIZE = 1;
 	private static final int MAX_PAGE_SIZE = 100;
-	private static final String SORT_FIELD = "did";
 
 	private final TrustedIssuerRepository trustedIssuerRepository;
-	private final CredentialRepository credentialRepository;
+	private final TrustedIssuerGraphLoader trustedIssuerGraphLoader;
 	private final TILMapper trustedIssuerMapper;
+	private final TrustedIssuerUpdater trustedIssuerUpdater;
+	private final IssuerCache issuerCache;
+	private final ShardRouting shardRouting;
+	private final ShardedDidQueries shardedDidQueries;
+	private final ServiceMetrics serviceMetrics;
 
 	/**
 	 * Returns a paginated list of DIDs of all trusted issuers, sorted alphabetically.
@@ -61,65 +67,76 @@ public class TrustedIssuersListController implements IssuerApi {
 			throw new IllegalArgumentException("The requested page size is not supported.");
 		}
 
-		Sort didSort = Sort.unsorted().order(SORT_FIELD);
-		Pageable pagination = Pageable.from(page, pageSize, didSort);
-		Page<TrustedIssuer> result = trustedIssuerRepository.findAll(pagination);
-
-		List<String> dids = result.getContent().stream()
-				.map(TrustedIssuer::getDid)
-				.toList();
+		List<String> dids = shardedDidQueries.findPage(page, pageSize);
+		long total = shardedDidQueries.count();
 
 		return HttpResponse.ok(new TrustedIssuersListResponseVO()
-				.total((int) result.getTotalSize())
-				.pageSize(result.getNumberOfElements())
+				.total((int) total)
+				.pageSize(dids.size())
 				.page(page)
 				.items(dids));
 	}
 
-	@Transactional
 	@Override
 	public HttpResponse<Object> createTrustedIssuer(TrustedIssuerVO trustedIssuerVO) {
-		if (trustedIssuerRepository.existsById(trustedIssuerVO.getDid())) {
-			throw new ConflictException("Issuer already exists.", trustedIssuerVO.getDid());
-		}
-		TrustedIssuer persistedIssuer = trustedIssuerRepository.save(trustedIssuerMapper.map(trustedIssuerVO));
-		return HttpResponse.created(URI.create(
-				String.format(HREF_TEMPLATE, persistedIssuer.getDid())));
+		return serviceMetrics.record(ServiceMetrics.Operation.CREATE_ISSUER, () -> {
+			TrustedIssuer persistedIssuer;
+			try {
+				persistedIssuer = shardRouting.onShardOf(trustedIssuerVO.getDid(),
+						() -> trustedIssuerUpdater.create(trustedIssuerVO));
+			} catch (DataAccessException e) {
+				// the primary key decides about existing issuers, no lookup is required before inserting
+				if (ConflictException.isUniqueViolation(e)) {
+					throw new ConflictException("Issuer already exists.", e, trustedIssuerVO.getDid());
+				}
+				throw e;
+			}
+			issuerCache.invalidate(persistedIssuer.getDid());
+			return HttpResponse.created(URI.create(
+					String.format(HREF_TEMPLATE, persistedIssuer.getDid())));
+		});
 	}
 
 	@Override
 	public HttpResponse<Object> deleteIssuerById(String did) {
-		Optional<TrustedIssuer> optionalTrustedIssuer = trustedIssuerRepository.getByDid(did);
-		if (!trustedIssuerRepository.existsById(did)) {
+		// credentials, claims and values are removed by the cascading foreign keys or stored in the issuer's row
+		int deletedIssuers = serviceMetrics.record(ServiceMetrics.Operation.DELETE_ISSUER,
+				() -> shardRouting.onShardOf(did, () -> trustedIssuerRepository.deleteByDid(did)));
+		if (deletedIssuers == 0) {
 			return HttpResponse.notFound();
 		}
-		trustedIssuerRepository.delete(optionalTrustedIssuer.get());
+		issuerCache.invalidate(did);
 		return HttpResponse.noContent();
 	}
 
 	@Override
 	public HttpResponse<TrustedIssuerVO> getIssuer(String did) {
-		return trustedIssuerRepository
-				.getByDid(did)
-				.map(trustedIssuerMapper::map)
-				.map(HttpResponse::ok)
+		return trustedIssuerGraphLoader
+				.load(did)
+				.map(trustedIssuer -> {
+					MutableHttpResponse<TrustedIssuerVO> response = HttpResponse.ok(map(trustedIssuer));
+					// allows to cache the serialized response without selecting the digest again
+					Optional.ofNullable(trustedIssuer.getDigest()).ifPresent(
+							digest -> response.setAttribute(SerializedResponseCache.DIGEST_ATTRIBUTE, digest));
+					return response;
+				})
 				.orElseGet(HttpResponse::notFound);
 	}
 
 	@Override
 	public HttpResponse<TrustedIssuerVO> updateIssuer(String did, TrustedIssuerVO trustedIssuerVO) {
-		Optional<TrustedIssuer> optionalTrustedIssuer = trustedIssuerRepository.getByDid(did);
-		if (optionalTrustedIssuer.isEmpty()) {
+		Optional<TrustedIssuer> updatedIssuer = serviceMetrics.record(ServiceMetrics.Operation.UPDATE_ISSUER,
+				() -> shardRouting.onShardOf(did, () -> trustedIssuerUpdater.update(did, trustedIssuerVO)));
+		if (updatedIssuer.isEmpty()) {
 			return HttpResponse.notFound();
 		}
-		if (!did.equals(trustedIssuerVO.getDid())) {
-			throw new IllegalArgumentException("Did does not match the issuer object.");
-		}
+		issuerCache.invalidate(did);
 
-		Collection<Credential> credentials = optionalTrustedIssuer.get().getCredentials();
-		credentialRepository.deleteAll(credentials);
+		return HttpResponse.ok(map(updatedIssuer.get()));
+	}
 
-		return HttpResponse.ok(
-				trustedIssuerMapper.map(trustedIssuerRepository.update(trustedIssuerMapper.map(trustedIssuerVO))));
+	private TrustedIssuerVO map(TrustedIssuer trustedIssuer) {
+		return serviceMetrics.record(ServiceMetrics.Operation.TIL_MAPPING,
+				() -> trustedIssuerMapper.map(trustedIssuer));
 	}
 }
@@ -0,0 +1,30 @@
+package org.fiware.iam.service;
+
+import io.micronaut.core.annotation.Introspected;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Report of a bulk import, containing the result for every issuer in the order of the imported document. Issuers that
+ * could not be written because of an unexpected failure are reported as failed, the import stops after them.
+ */
+@Introspected
+public record ImportReport(long created, long conflicts, long invalid, long failed, List<ImportResult> items) {
+
+	public static ImportReport of(List<ImportResult> results) {
+		List<ImportResult> sortedResults = results.stream()
+				.sorted(Comparator.comparingInt(ImportResult::index))
+				.toList();
+		return new ImportReport(
+				count(sortedResults, ImportResult.Status.CREATED),
+				count(sortedResults, ImportResult.Status.CONFLICT),
+				count(sortedResults, ImportResult.Status.INVALID),
+				count(sortedResults, ImportResult.Status.FAILED),
+				sortedResults);
+	}
+
+	private static long count(List<ImportResult> results, ImportResult.Status status) {
+		return results.stream().filter(result -> result.status() == status).count();
+	}
+}
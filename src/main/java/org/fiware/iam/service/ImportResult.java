@@ -0,0 +1,39 @@
+package org.fiware.iam.service;
+
+import io.micronaut.core.annotation.Introspected;
+import io.micronaut.core.annotation.Nullable;
+
+/**
+ * Result of importing a single issuer.
+ *
+ * @param index  position of the issuer in the imported document, starting at 0
+ * @param did    of the issuer, if it could be read
+ * @param status outcome of the import
+ * @param detail reason why the issuer was not created
+ */
+@Introspected
+public record ImportResult(int index, @Nullable String did, Status status, @Nullable String detail) {
+
+	public enum Status {
+		CREATED,
+		CONFLICT,
+		INVALID,
+		FAILED
+	}
+
+	public static ImportResult created(int index, String did) {
+		return new ImportResult(index, did, Status.CREATED, null);
+	}
+
+	public static ImportResult conflict(int index, String did) {
+		return new ImportResult(index, did, Status.CONFLICT, "Issuer already exists.");
+	}
+
+	public static ImportResult invalid(int index, @Nullable String did, String detail) {
+		return new ImportResult(index, did, Status.INVALID, detail);
+	}
+
+	public static ImportResult failed(int index, @Nullable String did, String detail) {
+		return new ImportResult(index, did, Status.FAILED, detail);
+	}
+}
@@ -0,0 +1,48 @@
+package org.fiware.iam.service;
+
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.runtime.event.annotation.EventListener;
+import jakarta.inject.Singleton;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.RepositoryConfig;
+import org.fiware.iam.repository.ShardRouting;
+
+/**
+ * Migrates all issuers into the configured {@link RepositoryConfig.StorageMode} on startup, before the server accepts
+ * requests. Nothing is written if all issuers are already stored in that mode. With sharding, every shard is migrated
+ * on its own. Every instance runs the migration, the {@link StorageModeMigrator} locks the issuers of each chunk so
+ * that concurrently starting instances do not migrate them twice.
+ */
+@Slf4j
+@Singleton
+@RequiredArgsConstructor
+public class StorageModeMigration {
+
+	private final RepositoryConfig repositoryConfig;
+	private final StorageModeMigrator storageModeMigrator;
+	private final ShardRouting shardRouting;
+
+	@EventListener
+	public void onStartup(StartupEvent startupEvent) {
+		int migrated = shardRouting.onAllShards(this::migrate).stream()
+				.mapToInt(Integer::intValue)
+				.sum();
+		if (migrated > 0) {
+			log.info("Migrated {} issuers to the storage mode {}.", migrated, repositoryConfig.getStorageMode());
+		}
+	}
+
+	private int migrate() {
+		int chunkSize = repositoryConfig.getMigrationChunkSize();
+		int migrated = 0;
+		int chunk;
+		// every chunk is a transaction of its own, thus the migration can be continued after a failure. Chunks shrink
+		// while other instances migrate concurrently, only an empty one shows that all issuers are migrated.
+		do {
+			chunk = storageModeMigrator.migrateChunk(chunkSize);
+			migrated += chunk;
+		} while (chunk > 0);
+		return migrated;
+	}
+}
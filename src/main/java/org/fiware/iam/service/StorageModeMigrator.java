@@ -0,0 +1,79 @@
+package org.fiware.iam.service;
+
+import io.micronaut.data.model.Pageable;
+import io.micronaut.data.model.Sort;
+import jakarta.inject.Singleton;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.configuration.RepositoryConfig;
+import org.fiware.iam.repository.CredentialRepository;
+import org.fiware.iam.repository.CredentialsDocumentCodec;
+import org.fiware.iam.repository.TrustedIssuer;
+import org.fiware.iam.repository.TrustedIssuerGraphLoader;
+import org.fiware.iam.repository.TrustedIssuerRepository;
+
+import java.util.List;
+
+/**
+ * Moves issuers that are stored in the other mode into the configured {@link RepositoryConfig.StorageMode}. The
+ * issuers are migrated in chunks, every chunk in one transaction. The issuers of a chunk are selected FOR UPDATE, thus
+ * instances starting at the same time wait for each other's chunk and skip the issuers that were already migrated,
+ * instead of inserting their credentials twice.
+ */
+@Slf4j
+@Singleton
+@RequiredArgsConstructor
+public class StorageModeMigrator {
+
+	private static final String SORT_FIELD = "did";
+
+	private final RepositoryConfig repositoryConfig;
+	private final TrustedIssuerRepository trustedIssuerRepository;
+	private final CredentialRepository credentialRepository;
+	private final TrustedIssuerGraphLoader trustedIssuerGraphLoader;
+	private final CredentialsDocumentCodec credentialsDocumentCodec;
+
+	/**
+	 * Migrate the next chunk of issuers that are not stored in the configured mode. A chunk might be smaller than the
+	 * chunk size although more issuers are left, if another instance migrated some of its issuers concurrently.
+	 *
+	 * @param chunkSize maximum number of issuers to migrate
+	 * @return the number of migrated issuers, 0 if all issuers are stored in the configured mode
+	 */
+	@Transactional
+	public int migrateChunk(int chunkSize) {
+		Pageable chunk = Pageable.from(0, chunkSize, Sort.unsorted().order(SORT_FIELD));
+		List<String> dids = switch (repositoryConfig.getStorageMode()) {
+			case DOCUMENT -> trustedIssuerRepository.findDidByCredentialsDocumentIsNullForUpdate(chunk);
+			case NORMALIZED -> trustedIssuerRepository.findDidByCredentialsDocumentIsNotNullForUpdate(chunk);
+		};
+		if (dids.isEmpty()) {
+			return 0;
+		}
+		List<TrustedIssuer> trustedIssuers = trustedIssuerGraphLoader.loadAll(dids);
+		switch (repositoryConfig.getStorageMode()) {
+			case DOCUMENT -> toDocuments(trustedIssuers);
+			case NORMALIZED -> toTables(trustedIssuers);
+		}
+		log.debug("Migrated {} issuers to the storage mode {}.", dids.size(), repositoryConfig.getStorageMode());
+		return dids.size();
+	}
+
+	private void toDocuments(List<TrustedIssuer> trustedIssuers) {
+		trustedIssuers.forEach(trustedIssuer -> trustedIssuerRepository.update(trustedIssuer.getDid(),
+				trustedIssuer.getDigest(), credentialsDocumentCodec.encode(trustedIssuer.getCredentials())));
+		// claims and values are removed by the cascading foreign keys
+		credentialRepository.deleteByTrustedIssuerDidIn(trustedIssuers.stream().map(TrustedIssuer::getDid).toList());
+	}
+
+	private void toTables(List<TrustedIssuer> trustedIssuers) {
+		trustedIssuers.forEach(trustedIssuer -> {
+			TrustedIssuer issuerReference = new TrustedIssuer().setDid(trustedIssuer.getDid());
+			credentialRepository.saveAll(trustedIssuer.getCredentials().stream()
+					.map(credential -> credential.setTrustedIssuer(issuerReference))
+					.toList());
+			trustedIssuerRepository.update(trustedIssuer.getDid(), trustedIssuer.getDigest(), null);
+		});
+	}
+}
@@ -0,0 +1,104 @@
+package org.fiware.iam.service;
+
+import jakarta.inject.Singleton;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.TILMapper;
+import org.fiware.iam.TIRMapper;
+import org.fiware.iam.repository.CredentialsDocumentCodec;
+import org.fiware.iam.repository.TrustedIssuer;
+import org.fiware.iam.repository.TrustedIssuerGraphWriter;
+import org.fiware.iam.repository.TrustedIssuerRepository;
+import org.fiware.iam.til.model.ClaimVO;
+import org.fiware.iam.til.model.CredentialsVO;
+import org.fiware.iam.til.model.TrustedIssuerVO;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Writes chunks of issuers in one transaction each. Existing issuers are detected with one query per chunk and all
+ * new issuers of the chunk are persisted through the {@link TrustedIssuerGraphWriter}, with one batch per level.
+ * Since the cache must only be invalidated once the transaction is committed, this is left to the caller.
+ */
+@Slf4j
+@Singleton
+@RequiredArgsConstructor
+public class TrustedIssuerImporter {
+
+	private final TrustedIssuerRepository trustedIssuerRepository;
+	private final TILMapper trustedIssuerMapper;
+	private final TIRMapper registryMapper;
+	private final CredentialsDocumentCodec credentialsDocumentCodec;
+	private final TrustedIssuerGraphWriter trustedIssuerGraphWriter;
+
+	/**
+	 * Issuer to be imported, together with its position in the imported document.
+	 */
+	public record ImportItem(int index, TrustedIssuerVO issuer) {
+	}
+
+	/**
+	 * Import the chunk of issuers. Invalid issuers and issuers that already exist, in the repository or earlier in the
+	 * chunk, will be skipped and reported.
+	 *
+	 * @param chunk the issuers to import
+	 * @return the result for every issuer of the chunk
+	 */
+	@Transactional
+	public List<ImportResult> importChunk(List<ImportItem> chunk) {
+		List<ImportResult> results = new ArrayList<>(chunk.size());
+		List<ImportItem> validItems = new ArrayList<>(chunk.size());
+		for (ImportItem item : chunk) {
+			Optional<String> validationError = validate(item.issuer());
+			if (validationError.isPresent()) {
+				results.add(ImportResult.invalid(item.index(), item.issuer().getDid(), validationError.get()));
+			} else {
+				validItems.add(item);
+			}
+		}
+		if (validItems.isEmpty()) {
+			return results;
+		}
+
+		Set<String> existingDids = new HashSet<>(trustedIssuerRepository.findDidByDidIn(
+				validItems.stream().map(item -> item.issuer().getDid()).toList()));
+		List<TrustedIssuer> trustedIssuers = new ArrayList<>(validItems.size());
+		for (ImportItem item : validItems) {
+			String did = item.issuer().getDid();
+			// add fails for duplicates inside the chunk
+			if (!existingDids.add(did)) {
+				results.add(ImportResult.conflict(item.index(), did));
+				continue;
+			}
+			trustedIssuers.add(credentialsDocumentCodec.prepare(
+					registryMapper.encodeAttributes(trustedIssuerMapper.map(item.issuer()))));
+			results.add(ImportResult.created(item.index(), did));
+		}
+		trustedIssuerGraphWriter.insertAll(trustedIssuers);
+		log.debug("Imported {} of {} issuers.", trustedIssuers.size(), chunk.size());
+		return results;
+	}
+
+	// checks the fields required by the database, the single-item api would fail on them, too
+	private static Optional<String> validate(TrustedIssuerVO trustedIssuerVO) {
+		if (trustedIssuerVO.getDid() == null || trustedIssuerVO.getDid().isBlank()) {
+			return Optional.of("The issuer does not have a did.");
+		}
+		for (CredentialsVO credentialsVO : Optional.ofNullable(trustedIssuerVO.getCredentials()).orElse(List.of())) {
+			if (credentialsVO.getCredentialsType() == null) {
+				return Optional.of("A credential does not have a type.");
+			}
+			for (ClaimVO claimVO : Optional.ofNullable(credentialsVO.getClaims()).orElse(List.of())) {
+				if (claimVO.getName() == null || claimVO.getAllowedValues() == null) {
+					return Optional.of("A claim does not have a name or allowed values.");
+				}
+			}
+		}
+		return Optional.empty();
+	}
+}
@@ -0,0 +1,260 @@
+package org.fiware.iam.service;
+
+import jakarta.inject.Singleton;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.fiware.iam.TILMapper;
+import org.fiware.iam.TIRMapper;
+import org.fiware.iam.configuration.RepositoryConfig;
+import org.fiware.iam.repository.Claim;
+import org.fiware.iam.repository.ClaimRepository;
+import org.fiware.iam.repository.ClaimValue;
+import org.fiware.iam.repository.ClaimValueRepository;
+import org.fiware.iam.repository.Credential;
+import org.fiware.iam.repository.CredentialRepository;
+import org.fiware.iam.repository.CredentialsDocumentCodec;
+import org.fiware.iam.repository.TrustedIssuer;
+import org.fiware.iam.repository.TrustedIssuerGraphLoader;
+import org.fiware.iam.repository.TrustedIssuerGraphWriter;
+import org.fiware.iam.repository.TrustedIssuerRepository;
+import org.fiware.iam.til.model.TrustedIssuerVO;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Updates an issuer by diffing the requested state against the persisted graph. Credentials are matched by their type,
+ * claims by their name and path and values by themselves, the remaining entries by their position. Only changed rows
+ * are updated, unmatched rows are inserted or deleted, so that adding or removing an entry does not rewrite the ones
+ * after it. Since the lists are read in the order of their ids, matched entries keep their position and new ones are
+ * appended. In the DOCUMENT storage mode, the issuer is a single row and is replaced with one statement instead.
+ * Creating an issuer is a single, cascading save.
+ */
+@Singleton
+@RequiredArgsConstructor
+public class TrustedIssuerUpdater {
+
+	private final TrustedIssuerRepository trustedIssuerRepository;
+	private final CredentialRepository credentialRepository;
+	private final ClaimRepository claimRepository;
+	private final ClaimValueRepository claimValueRepository;
+	private final TrustedIssuerGraphLoader trustedIssuerGraphLoader;
+	private final TrustedIssuerGraphWriter trustedIssuerGraphWriter;
+	private final TILMapper trustedIssuerMapper;
+	private final TIRMapper registryMapper;
+	private final RepositoryConfig repositoryConfig;
+	private final CredentialsDocumentCodec credentialsDocumentCodec;
+
+	/**
+	 * Create the issuer, including its credentials, in one transaction.
+	 *
+	 * @param trustedIssuerVO the issuer to create
+	 * @return the persisted issuer
+	 * @throws io.micronaut.data.exceptions.DataAccessException if the issuer already exists
+	 */
+	@Transactional
+	public TrustedIssuer create(TrustedIssuerVO trustedIssuerVO) {
+		return trustedIssuerRepository.save(credentialsDocumentCodec.prepare(
+				registryMapper.encodeAttributes(trustedIssuerMapper.map(trustedIssuerVO))));
+	}
+
+	/**
+	 * Update the issuer to the given state, in one transaction.
+	 *
+	 * @param did             of the issuer to update
+	 * @param trustedIssuerVO the requested state of the issuer
+	 * @return the updated issuer, empty if it does not exist
+	 */
+	@Transactional
+	public Optional<TrustedIssuer> update(String did, TrustedIssuerVO trustedIssuerVO) {
+		if (repositoryConfig.getStorageMode() == RepositoryConfig.StorageMode.DOCUMENT) {
+			return updateDocument(did, trustedIssuerVO);
+		}
+		// the batched loader returns all children sorted by id, the order they are read in
+		Optional<TrustedIssuer> optionalIssuer = trustedIssuerGraphLoader.loadBatched(did);
+		if (optionalIssuer.isEmpty()) {
+			return Optional.empty();
+		}
+		if (!did.equals(trustedIssuerVO.getDid())) {
+			throw new IllegalArgumentException("Did does not match the issuer object.");
+		}
+		TrustedIssuer persistedIssuer = optionalIssuer.get();
+		TrustedIssuer updatedIssuer = trustedIssuerMapper.map(trustedIssuerVO);
+		// the attributes and the digest are computed in the order the credentials and claims will be read in
+		matchCredentials(persistedIssuer, updatedIssuer);
+		registryMapper.encodeAttributes(updatedIssuer);
+
+		updateCredentials(persistedIssuer, asList(updatedIssuer.getCredentials()));
+		if (!Objects.equals(persistedIssuer.getDigest(), updatedIssuer.getDigest())) {
+			trustedIssuerRepository.update(did, updatedIssuer.getDigest());
+		}
+		return Optional.of(updatedIssuer);
+	}
+
+	private Optional<TrustedIssuer> updateDocument(String did, TrustedIssuerVO trustedIssuerVO) {
+		if (!did.equals(trustedIssuerVO.getDid())) {
+			// not existing issuers are reported before a mismatching did, like in the normalized mode
+			if (!trustedIssuerRepository.existsById(did)) {
+				return Optional.empty();
+			}
+			throw new IllegalArgumentException("Did does not match the issuer object.");
+		}
+		TrustedIssuer updatedIssuer = registryMapper.encodeAttributes(trustedIssuerMapper.map(trustedIssuerVO));
+		int updatedIssuers = trustedIssuerRepository.update(did, updatedIssuer.getDigest(),
+				credentialsDocumentCodec.encode(updatedIssuer.getCredentials()));
+		return updatedIssuers == 0 ? Optional.empty() : Optional.of(updatedIssuer);
+	}
+
+	// assigns the ids of the persisted entries to the requested ones and orders them the way they will be read
+	private void matchCredentials(TrustedIssuer persistedIssuer, TrustedIssuer updatedIssuer) {
+		updatedIssuer.setCredentials(match(asList(persistedIssuer.getCredentials()),
+				asList(updatedIssuer.getCredentials()), Credential::getCredentialsType,
+				(persisted, updated) -> {
+					updated.setId(persisted.getId());
+					matchClaims(persisted, updated);
+				}));
+	}
+
+	private void matchClaims(Credential persistedCredential, Credential updatedCredential) {
+		updatedCredential.setClaims(match(asList(persistedCredential.getClaims()),
+				asList(updatedCredential.getClaims()), claim -> Arrays.asList(claim.getName(), claim.getPath()),
+				(persisted, updated) -> {
+					updated.setId(persisted.getId());
+					updated.setClaimValues(match(asList(persisted.getClaimValues()),
+							asList(updated.getClaimValues()),
+							claimValue -> Arrays.asList(claimValue.getValue(), claimValue.getValueType()),
+							(persistedValue, updatedValue) -> updatedValue.setId(persistedValue.getId())));
+				}));
+	}
+
+	private void updateCredentials(TrustedIssuer persistedIssuer, List<Credential> credentials) {
+		TrustedIssuer issuerReference = new TrustedIssuer().setDid(persistedIssuer.getDid());
+		diff(asList(persistedIssuer.getCredentials()), credentials, Credential::getId,
+				(persisted, updated) -> {
+					if (!isSameCredential(persisted, updated)) {
+						credentialRepository.update(persisted.getId(), updated.getValidFrom(), updated.getValidTo(),
+								updated.getCredentialsType(), updated.getAttributeBody(), updated.getAttributeHash());
+					}
+					updateClaims(persisted, asList(updated.getClaims()));
+				},
+				inserted -> trustedIssuerGraphWriter.insertCredentials(inserted.stream()
+						.map(credential -> credential.setTrustedIssuer(issuerReference))
+						.toList()),
+				credentialRepository::deleteByIdIn);
+	}
+
+	private void updateClaims(Credential persistedCredential, List<Claim> claims) {
+		Credential credentialReference = new Credential().setId(persistedCredential.getId());
+		diff(asList(persistedCredential.getClaims()), claims, Claim::getId,
+				(persisted, updated) -> {
+					if (!Objects.equals(persisted.getName(), updated.getName())
+							|| !Objects.equals(persisted.getPath(), updated.getPath())) {
+						claimRepository.update(persisted.getId(), updated.getName(), updated.getPath());
+					}
+					updateClaimValues(persisted, asList(updated.getClaimValues()));
+				},
+				inserted -> trustedIssuerGraphWriter.insertClaims(inserted.stream()
+						.map(claim -> claim.setCredential(credentialReference))
+						.toList()),
+				claimRepository::deleteByIdIn);
+	}
+
+	private void updateClaimValues(Claim persistedClaim, List<ClaimValue> claimValues) {
+		Claim claimReference = new Claim().setId(persistedClaim.getId());
+		diff(asList(persistedClaim.getClaimValues()), claimValues, ClaimValue::getId,
+				(persisted, updated) -> {
+					if (!Objects.equals(persisted.getValue(), updated.getValue())
+							|| persisted.getValueType() != updated.getValueType()) {
+						claimValueRepository.update(persisted.getId(), updated.getValue(), updated.getValueType());
+					}
+				},
+				inserted -> claimValueRepository.saveAll(inserted.stream()
+						.map(claimValue -> claimValue.setClaim(claimReference))
+						.toList()),
+				claimValueRepository::deleteByIdIn);
+	}
+
+	private static boolean isSameCredential(Credential persisted, Credential updated) {
+		return Objects.equals(persisted.getCredentialsType(), updated.getCredentialsType())
+				&& Objects.equals(persisted.getValidFrom(), updated.getValidFrom())
+				&& Objects.equals(persisted.getValidTo(), updated.getValidTo())
+				&& Objects.equals(persisted.getAttributeBody(), updated.getAttributeBody())
+				&& Objects.equals(persisted.getAttributeHash(), updated.getAttributeHash());
+	}
+
+	/*
+	 * Pairs the requested entries with the persisted ones by their key, entries sharing a key in the order of their
+	 * occurrence. The remaining ones are paired by position, so that changed keys are updated in place. Returns the
+	 * requested entries in the order they will be read in: the paired ones in the order of the persisted ones,
+	 * followed by the new ones, which get the highest ids.
+	 */
+	private static <T> List<T> match(List<T> persisted, List<T> updated, Function<T, Object> key,
+			BiConsumer<T, T> paired) {
+		Map<Object, Deque<T>> unpairedByKey = new HashMap<>();
+		persisted.forEach(entry -> unpairedByKey.computeIfAbsent(key.apply(entry), k -> new ArrayDeque<>()).add(entry));
+		Map<T, T> pairs = new IdentityHashMap<>();
+		List<T> unpaired = new ArrayList<>();
+		for (T entry : updated) {
+			T persistedEntry = Optional.ofNullable(unpairedByKey.get(key.apply(entry))).map(Deque::poll).orElse(null);
+			if (persistedEntry == null) {
+				unpaired.add(entry);
+			} else {
+				pairs.put(persistedEntry, entry);
+			}
+		}
+		Iterator<T> remaining = unpaired.iterator();
+		for (T persistedEntry : persisted) {
+			if (!pairs.containsKey(persistedEntry) && remaining.hasNext()) {
+				pairs.put(persistedEntry, remaining.next());
+			}
+		}
+		List<T> ordered = new ArrayList<>(updated.size());
+		for (T persistedEntry : persisted) {
+			Optional.ofNullable(pairs.get(persistedEntry)).ifPresent(entry -> {
+				paired.accept(persistedEntry, entry);
+				ordered.add(entry);
+			});
+		}
+		remaining.forEachRemaining(ordered::add);
+		return ordered;
+	}
+
+	// pairs the entries by the ids assigned by match, new entries are inserted, unpaired persisted ones deleted
+	private static <T> void diff(List<T> persisted, List<T> updated, Function<T, Integer> id, BiConsumer<T, T> update,
+			Consumer<List<T>> insert, Consumer<List<Integer>> delete) {
+		Map<Integer, T> persistedById = new HashMap<>();
+		persisted.forEach(entry -> persistedById.put(id.apply(entry), entry));
+		List<T> inserted = new ArrayList<>();
+		for (T entry : updated) {
+			T persistedEntry = id.apply(entry) == null ? null : persistedById.remove(id.apply(entry));
+			if (persistedEntry == null) {
+				inserted.add(entry);
+			} else {
+				update.accept(persistedEntry, entry);
+			}
+		}
+		if (!inserted.isEmpty()) {
+			insert.accept(inserted);
+		}
+		if (!persistedById.isEmpty()) {
+			delete.accept(List.copyOf(persistedById.keySet()));
+		}
+	}
+
+	private static <T> List<T> asList(Collection<T> collection) {
+		return collection == null ? List.of() : List.copyOf(collection);
+	}
+}
@@ -0,0 +1,37 @@
+package org.fiware.iam;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.fiware.iam.tir.model.IssuerAttributeVO;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.security.MessageDigest;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AttributeEncoderTest {
+
+	private static final ObjectWriter OBJECT_WRITER = new ObjectMapper().writer();
+
+	private final AttributeEncoder encoder = new AttributeEncoder(OBJECT_WRITER);
+
+	// covers all padding variants and values exceeding the initial buffer
+	@ParameterizedTest
+	@ValueSource(ints = { 0, 1, 2, 3, 4, 5, 100, 1022, 1023, 1024, 5000, 100000 })
+	void shouldEncodeLikeBase64AndMessageDigest(int length) throws Exception {
+		String value = "x".repeat(length);
+		byte[] body = OBJECT_WRITER.writeValueAsBytes(value);
+
+		// encode twice, to also cover the pooled buffers
+		for (int i = 0; i < 2; i++) {
+			IssuerAttributeVO attribute = new IssuerAttributeVO();
+			encoder.encode(value, attribute);
+			assertEquals(Base64.getEncoder().encodeToString(body), attribute.getBody(),
+					"The body should be the base64 encoded json.");
+			assertEquals(Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(body)),
+					attribute.getHash(), "The hash should be the base64 encoded sha-256 of the json.");
+		}
+	}
+}
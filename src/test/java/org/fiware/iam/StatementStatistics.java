@@ -0,0 +1,93 @@
+package org.fiware.iam;
+
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MutableHttpRequest;
+import io.micronaut.http.context.ServerRequestContext;
+import org.fiware.iam.filter.StatementStatisticsFilter;
+import org.fiware.iam.metrics.RequestStatements;
+import org.fiware.iam.metrics.StatementStatisticsListener;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Access to the statements counted by the {@link StatementStatisticsListener} in tests. Requests report them through
+ * the debug headers of their response, calls outside of requests are counted by running them in the context of a
+ * request.
+ */
+public final class StatementStatistics {
+
+	private StatementStatistics() {
+		// static helper
+	}
+
+	/**
+	 * Statements prepared for the request of the response.
+	 */
+	public static long statements(HttpResponse<?> response) {
+		return header(response, StatementStatisticsFilter.STATEMENT_COUNT_HEADER);
+	}
+
+	/**
+	 * Rows read or written for the request of the response.
+	 */
+	public static long rows(HttpResponse<?> response) {
+		return header(response, StatementStatisticsFilter.ROW_COUNT_HEADER);
+	}
+
+	/**
+	 * Executions of writing statements for the request of the response.
+	 */
+	public static long writes(HttpResponse<?> response) {
+		return header(response, StatementStatisticsFilter.WRITE_COUNT_HEADER);
+	}
+
+	/**
+	 * Rows written for the request of the response.
+	 */
+	public static long writtenRows(HttpResponse<?> response) {
+		return header(response, StatementStatisticsFilter.WRITTEN_ROW_COUNT_HEADER);
+	}
+
+	/**
+	 * Run the call, e.g. of a repository, as if it was part of a request and return the statements it issued.
+	 *
+	 * @param call to count the statements of
+	 * @return the statistics of the call
+	 */
+	public static RequestStatements count(Runnable call) {
+		RequestStatements requestStatements = new RequestStatements();
+		MutableHttpRequest<?> request = HttpRequest.GET("/statement-statistics");
+		request.setAttribute(RequestStatements.REQUEST_ATTRIBUTE, requestStatements);
+		ServerRequestContext.with(request, call);
+		return requestStatements;
+	}
+
+	/**
+	 * Run the request and assert that it issued at most the given number of statements. The bounds of a controller
+	 * method should not depend on the number of issuers, credentials or claims, thus N+1 regressions fail the test.
+	 *
+	 * @param maxStatements upper bound of the statements
+	 * @param description   of the request, used in the failure message
+	 * @param request       to run
+	 * @return the response of the request
+	 */
+	public static <T extends HttpResponse<?>> T assertAtMost(long maxStatements, String description,
+			Callable<T> request) throws Exception {
+		T response = request.call();
+		long count = statements(response);
+		assertTrue(count <= maxStatements,
+				String.format("%s should issue at most %s statements, but issued %s.", description, maxStatements,
+						count));
+		return response;
+	}
+
+	private static long header(HttpResponse<?> response, String name) {
+		return Optional.ofNullable(response.getHeaders().get(name))
+				.map(Long::parseLong)
+				.orElseThrow(() -> new AssertionError(String.format("The response does not contain %s.", name)));
+	}
+}
@@ -0,0 +1,127 @@
+package org.fiware.iam.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.fiware.iam.configuration.IssuerCacheConfig;
+import org.fiware.iam.tir.model.IssuerVO;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class IssuerCacheTest {
+
+	private static final String DID = "did:elsi:coalesced";
+	private static final int LOOKUPS = 50;
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final CountDownLatch releaseLoad = new CountDownLatch(1);
+	private final AtomicInteger loads = new AtomicInteger();
+
+	// the coalescing does not depend on the cache, thus is covered with and without it
+	@ParameterizedTest
+	@ValueSource(booleans = { true, false })
+	void shouldShareOneLoadBetweenConcurrentLookups(boolean cacheEnabled) throws Exception {
+		IssuerCache issuerCache = issuerCache(cacheEnabled);
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<Future<Optional<CachedIssuer>>> lookups = IntStream.range(0, LOOKUPS)
+					.mapToObj(i -> executor.submit(() -> issuerCache.get(DID, this::blockingLoad)))
+					.toList();
+			// all lookups except the loading one are waiting for its result
+			awaitCoalescedLoads(issuerCache, LOOKUPS - 1);
+			releaseLoad.countDown();
+
+			CachedIssuer loadedIssuer = lookups.getFirst().get().orElseThrow();
+			for (Future<Optional<CachedIssuer>> lookup : lookups) {
+				assertSame(loadedIssuer, lookup.get().orElseThrow(), "All lookups should get the same issuer.");
+			}
+		}
+		assertEquals(1, loads.get(), "The issuer should only have been loaded once.");
+		assertEquals(LOOKUPS - 1, meterRegistry.get(IssuerCache.COALESCED_METRIC).functionCounter().count(),
+				"The coalesced lookups should have been counted.");
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { true, false })
+	void shouldNotShareLoadsAfterInvalidation(boolean cacheEnabled) throws Exception {
+		IssuerCache issuerCache = issuerCache(cacheEnabled);
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			Future<Optional<CachedIssuer>> staleLookup = executor.submit(
+					() -> issuerCache.get(DID, this::blockingLoad));
+			awaitLoads(1);
+			issuerCache.invalidate(DID);
+
+			Function<String, Optional<CachedIssuer>> freshLoad = did -> {
+				loads.incrementAndGet();
+				return Optional.of(CachedIssuer.of(new IssuerVO().did(did), "fresh"));
+			};
+			assertEquals("fresh", issuerCache.get(DID, freshLoad).orElseThrow().digest(),
+					"A lookup after the invalidation should load the issuer again.");
+			releaseLoad.countDown();
+			assertEquals("stale", staleLookup.get().orElseThrow().digest(),
+					"The running lookup should still get its own result.");
+		}
+		assertEquals(2, loads.get(), "The issuer should have been loaded again after the invalidation.");
+		assertEquals(0, issuerCache.getCoalescedLoads(), "No lookup should have shared the invalidated load.");
+		if (cacheEnabled) {
+			assertTrue(issuerCache.getIfPresent(DID).isPresent(), "The fresh issuer should have been cached.");
+			assertEquals("fresh", issuerCache.getIfPresent(DID).get().digest(),
+					"The invalidated load should not have been cached.");
+		}
+	}
+
+	private IssuerCache issuerCache(boolean cacheEnabled) {
+		return new IssuerCache(new IssuerCacheConfig(cacheEnabled, 52428800, Duration.ofMinutes(5), false, true),
+				meterRegistry);
+	}
+
+	private Optional<CachedIssuer> blockingLoad(String did) {
+		loads.incrementAndGet();
+		try {
+			if (!releaseLoad.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+				fail("The load was not released.");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			fail("The load was interrupted.");
+		}
+		return Optional.of(CachedIssuer.of(new IssuerVO().did(did), "stale"));
+	}
+
+	private void awaitCoalescedLoads(IssuerCache issuerCache, int expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TIMEOUT.toNanos();
+		while (issuerCache.getCoalescedLoads() < expected) {
+			if (System.nanoTime() > deadline) {
+				fail(String.format("Only %s lookups were coalesced.", issuerCache.getCoalescedLoads()));
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	private void awaitLoads(int expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TIMEOUT.toNanos();
+		while (loads.get() < expected) {
+			if (System.nanoTime() > deadline) {
+				fail("The load was not started.");
+			}
+			Thread.sleep(10);
+		}
+	}
+}
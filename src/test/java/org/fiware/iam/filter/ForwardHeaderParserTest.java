@@ -154,6 +154,76 @@ class ForwardHeaderParserTest {
         assertEquals("proxy1", info.getForwardedBy());
     }
 
+    @ParameterizedTest(name = "should parse the first element of {0}")
+    @CsvSource(delimiter = '|', value = {
+            "for=192.0.2.1;proto=https;host=example.com:8443, for=10.0.0.1;proto=http;host=other.com",
+            "For=192.0.2.1; PROTO=https ;Host = example.com:8443,for=10.0.0.1",
+            "for=\"192.0.2.1\";proto=https;host=\"example.com:8443\";by=\"a;b,c\", for=10.0.0.1",
+            "proto=https;for;host=example.com:8443;for=192.0.2.1"
+    })
+    void shouldParseFirstForwardedElementOnly(String forwarded) {
+
+        HttpRequest<?> request = mock();
+        HttpHeaders headers = mock(HttpHeaders.class);
+        when(request.getHeaders()).thenReturn(headers);
+        when(headers.get(HttpHeaders.FORWARDED)).thenReturn(forwarded);
+
+        ForwardedInfo info = parser.parse(request);
+
+        assertEquals("192.0.2.1", info.getForwardedFor(), "For should be taken from the first element");
+        assertEquals("https", info.getForwardedProto(), "Protocol should be taken from the first element");
+        assertEquals("example.com", info.getForwardedHost(), "Host should be taken from the first element");
+        assertEquals(8443, info.getForwardedPort(), "Port should be taken from the first element");
+    }
+
+    @Test
+    void shouldIgnoreDirectivesOfLaterForwardedElements() {
+
+        HttpRequest<?> request = mock();
+        HttpHeaders headers = mock(HttpHeaders.class);
+        when(request.getHeaders()).thenReturn(headers);
+        when(headers.get(HttpHeaders.FORWARDED)).thenReturn("for=192.0.2.1;proto=https, for=10.0.0.1;host=other.com");
+
+        ForwardedInfo info = parser.parse(request);
+
+        assertEquals("192.0.2.1", info.getForwardedFor(), "For should be taken from the first element");
+        assertEquals("myhost", info.getForwardedHost(), "The host of a later element should not be used");
+        assertEquals(443, info.getForwardedPort(), "Port should default to the port of the first element's protocol");
+    }
+
+    @Test
+    void shouldReturnRawForwardedHeaders() {
+
+        HttpRequest<?> request = mock();
+        HttpHeaders headers = mock(HttpHeaders.class);
+        when(request.getHeaders()).thenReturn(headers);
+        when(request.getServerAddress()).thenReturn(new InetSocketAddress(8080));
+        when(headers.get(HttpHeaders.FORWARDED)).thenReturn("for=192.0.2.1;proto=https, for=10.0.0.1");
+        when(headers.get("X-Forwarded-Host")).thenReturn("legacyhost");
+        when(headers.get("X-Forwarded-Prefix")).thenReturn("/prefix");
+
+        assertEquals(new ForwardHeaderParser.ForwardedHeaders("for=192.0.2.1;proto=https, for=10.0.0.1", null,
+                        "legacyhost", null, "/prefix", 8080),
+                parser.getForwardedHeaders(request), "The headers should be returned unparsed");
+    }
+
+    @Test
+    void shouldHandleEscapedQuotesAndIpv6InForwardedHeader() {
+
+        HttpRequest<?> request = mock();
+        HttpHeaders headers = mock(HttpHeaders.class);
+        when(request.getHeaders()).thenReturn(headers);
+        when(headers.get(HttpHeaders.FORWARDED))
+                .thenReturn("for=\"[2001:db8:cafe::17]:4711\";host=\"[2001:db8::1]:8443\";by=\"proxy \\\"one\\\"\"");
+
+        ForwardedInfo info = parser.parse(request);
+
+        assertEquals("[2001:db8:cafe::17]:4711", info.getForwardedFor());
+        assertEquals("[2001:db8::1]", info.getForwardedHost(), "The colons of the address should not separate a port");
+        assertEquals(8443, info.getForwardedPort());
+        assertEquals("proxy \"one\"", info.getForwardedBy(), "Escaped quotes should be unescaped");
+    }
+
     @Test
     void shouldReturnDefaultPortWhenForwardedPortNotSet() {
 
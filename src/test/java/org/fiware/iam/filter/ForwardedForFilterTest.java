@@ -1,18 +1,26 @@
 package org.fiware.iam.filter;
 
 import io.micronaut.core.order.Ordered;
+import io.micronaut.http.HttpHeaders;
 import io.micronaut.http.HttpMethod;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.filter.ServerFilterChain;
+import io.micronaut.http.server.HttpServerConfiguration;
+import io.micronaut.http.ssl.ServerSslConfiguration;
+import org.fiware.iam.configuration.ForwardedForConfig;
+import org.fiware.iam.metrics.ServiceMetrics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import reactor.core.publisher.Mono;
 
+import java.net.InetSocketAddress;
 import java.net.URI;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
@@ -32,11 +40,12 @@ class ForwardedForFilterTest {
         forwardHeaderParser = mock();
         chain = mock();
         request = mock();
-        filter = new ForwardedForFilter(forwardHeaderParser);
+        filter = new ForwardedForFilter(forwardHeaderParser, new ServiceMetrics(null, "H2"));
 
         when(request.getMethod()).thenReturn(HttpMethod.GET);
         when(chain.proceed(any())).thenReturn(Mono.empty());
         doReturn(request).when(request).setAttribute(any(), any());
+        when(forwardHeaderParser.getForwardedHeaders(request)).thenReturn(forwardedHeaders("for=10.0.0.1"));
     }
 
 
@@ -59,9 +68,65 @@ class ForwardedForFilterTest {
         verify(forwardHeaderParser).parse(request);
     }
 
+    @Test
+    void shouldReuseUrlForSameForwardedHeaders() {
+
+        HttpRequest<?> otherRequest = mock();
+        when(forwardHeaderParser.getForwardedHeaders(otherRequest)).thenReturn(forwardedHeaders("for=10.0.0.1"));
+
+        URI firstUrl = filter.getReqUrl(request, new ForwardedInfo("10.0.0.1", "https", "example.com", 8443, null,
+                "/til"));
+        // the url is taken from the cache and not built from the forwarded info again
+        URI secondUrl = filter.getReqUrl(otherRequest, new ForwardedInfo("10.0.0.1", "http", "other.com", 80, null,
+                ""));
+
+        assertEquals(URI.create("https://example.com:8443/til"), firstUrl);
+        assertSame(firstUrl, secondUrl, "The url should only be built once for the same forwarded headers.");
+    }
+
+    @Test
+    void shouldBuildUrlForDifferentForwardedHeaders() {
+
+        HttpRequest<?> otherRequest = mock();
+        when(forwardHeaderParser.getForwardedHeaders(otherRequest)).thenReturn(forwardedHeaders("for=10.0.0.2"));
+
+        filter.getReqUrl(request, new ForwardedInfo("10.0.0.1", "https", "example.com", 8443, null, "/til"));
+
+        assertEquals(URI.create("https://example.com/til"),
+                filter.getReqUrl(otherRequest, new ForwardedInfo("10.0.0.2", "https", "example.com", 443, null,
+                        "/til")), "Different forwarded headers should not share a cached url.");
+    }
+
+    @Test
+    void shouldUseFirstForwardedElementForUrl() {
+
+        ForwardedForConfig config = mock();
+        HttpServerConfiguration serverConfig = mock();
+        when(serverConfig.getPort()).thenReturn(Optional.of(8080));
+        when(serverConfig.getHost()).thenReturn(Optional.of("myhost"));
+        ServerSslConfiguration sslConfig = mock();
+        ForwardHeaderParser parser = new ForwardHeaderParser(config, serverConfig, sslConfig);
+        filter = new ForwardedForFilter(parser, new ServiceMetrics(null, "H2"));
+
+        HttpHeaders headers = mock(HttpHeaders.class);
+        when(request.getHeaders()).thenReturn(headers);
+        when(request.getServerAddress()).thenReturn(new InetSocketAddress(8080));
+        when(headers.get(HttpHeaders.FORWARDED))
+                .thenReturn("proto=https;host=example.com, proto=http;host=inner.proxy:8080");
+
+        filter.doFilter(request, chain);
+
+        verify(request).setAttribute(ForwardedForFilter.REQ_ATTR, URI.create("https://example.com"));
+    }
+
     @Test
     void shouldReturnHighestPrecedenceOrder() {
 
         assertEquals(Ordered.HIGHEST_PRECEDENCE, filter.getOrder());
     }
-}
\ No newline at end of file
+
+    private static ForwardHeaderParser.ForwardedHeaders forwardedHeaders(String forwarded) {
+
+        return new ForwardHeaderParser.ForwardedHeaders(forwarded, null, null, null, null, 8080);
+    }
+}
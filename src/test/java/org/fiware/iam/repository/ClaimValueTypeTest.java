@@ -0,0 +1,51 @@
+package org.fiware.iam.repository;
+
+import org.fiware.iam.TILMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ClaimValueTypeTest {
+
+	// values as persisted before the type was stored, including the ones the old decoding changed
+	@ParameterizedTest
+	@ValueSource(strings = { "\"1\"", "\"-1.5\"", "\"NaN\"", "\"true\"", "true", "false", "1", "1.5",
+			"12345678901234567890", "\"GOLD\"", "\"\"", "{\"role\":\"admin\"}", "[1,\"a\"]", "null", "not-json" })
+	void backfilledTypeShouldReproduceTheOldDecoding(String json) {
+		ClaimValue legacyValue = new ClaimValue().setValue(json);
+		ClaimValue backfilledValue = new ClaimValue().setValue(json).setValueType(ClaimValueType.detect(json));
+
+		assertEquals(TILMapper.readUntyped(legacyValue), TILMapper.readToObject(backfilledValue),
+				"The backfilled value should be returned as before.");
+	}
+
+	@Test
+	void oldDecodingChangedTheTypes() {
+		assertEquals(1, TILMapper.readUntyped(new ClaimValue().setValue("\"1\"")),
+				"A string holding a number was returned as number.");
+		assertEquals("true", TILMapper.readUntyped(new ClaimValue().setValue("true")),
+				"A boolean was returned as string.");
+	}
+
+	@Test
+	void typedValuesShouldKeepTheirType() throws Exception {
+		List<Object> allowedValues = List.of("1", 1, "true", true, 1.5, "GOLD", Map.of("role", "admin"));
+
+		// written the way the mapper does
+		List<ClaimValue> claimValues = new ArrayList<>();
+		for (Object allowedValue : allowedValues) {
+			claimValues.add(new ClaimValue()
+					.setValue(TILMapper.OBJECT_WRITER.writeValueAsString(allowedValue))
+					.setValueType(ClaimValueType.of(allowedValue)));
+		}
+
+		assertEquals(allowedValues, claimValues.stream().map(TILMapper::readToObject).toList(),
+				"Values written with their type should be returned unchanged.");
+	}
+}
@@ -0,0 +1,272 @@
+package org.fiware.iam.repository;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import io.micronaut.core.order.Ordered;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import io.micronaut.transaction.TransactionOperations;
+import jakarta.inject.Singleton;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Explains the hot queries of the repositories and fails if one of them has to scan a whole table. The repository
+ * methods are called and the statements generated for them are recorded, including their parameters, then explained.
+ * Runs against H2 by default, it can be run against a local PostgreSQL by overriding the datasources.default
+ * properties. MySQL is not covered, since InnoDB always indexes foreign keys.
+ */
+@RequiredArgsConstructor
+@MicronautTest
+@Property(name = "test.query-plan.record-statements", value = "true")
+public class QueryPlanTest {
+
+	private static final String DID = "did:web:plan.org";
+	private static final List<String> DIDS = List.of(DID, "did:web:other.org");
+	private static final List<Integer> IDS = List.of(1, 2);
+
+	private final TransactionOperations<Connection> transactionOperations;
+	private final StatementRecorder statementRecorder;
+	private final TrustedIssuerRepository trustedIssuerRepository;
+	private final CredentialRepository credentialRepository;
+	private final ClaimRepository claimRepository;
+	private final ClaimValueRepository claimValueRepository;
+	private final ShardedDidQueries shardedDidQueries;
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("hotQueries")
+	public void useIndex(String query, Consumer<QueryPlanTest> call) {
+		// writes are rolled back, only their statements are of interest
+		List<RecordedStatement> statements = statementRecorder.record(() ->
+				transactionOperations.executeWrite(status -> {
+					call.accept(this);
+					status.setRollbackOnly();
+					return null;
+				}));
+		assertFalse(statements.isEmpty(), String.format("%s should have issued a statement.", query));
+
+		for (RecordedStatement statement : statements) {
+			assertNoTableScan(query, statement);
+		}
+	}
+
+	// the cascading deletes are executed by the database for the foreign keys, thus not generated by the repositories
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("cascadingDeletes")
+	public void cascadeUsingIndex(String cascade, String sql) {
+		assertNoTableScan(cascade, new RecordedStatement(sql, List.of()));
+	}
+
+	private static Stream<Arguments> hotQueries() {
+		return Stream.of(
+				query("TrustedIssuerRepository.getByDid", test -> test.trustedIssuerRepository.getByDid(DID)),
+				query("TrustedIssuerRepository.findByDidInOrderByDid",
+						test -> test.trustedIssuerRepository.findByDidInOrderByDid(DIDS)),
+				query("TrustedIssuerRepository.findDidByDidIn",
+						test -> test.trustedIssuerRepository.findDidByDidIn(DIDS)),
+				query("TrustedIssuerRepository.findDigestByDid",
+						test -> test.trustedIssuerRepository.findDigestByDid(DID)),
+				query("TrustedIssuerRepository.deleteByDid", test -> test.trustedIssuerRepository.deleteByDid(DID)),
+				query("ShardedDidQueries.findPage", test -> test.shardedDidQueries.findPage(0, 100)),
+				query("ShardedDidQueries.findAfter", test -> test.shardedDidQueries.findAfter(DID, 100)),
+				query("ShardedDidQueries.count", test -> test.shardedDidQueries.count()),
+				query("CredentialRepository.findByTrustedIssuerDidInOrderById",
+						test -> test.credentialRepository.findByTrustedIssuerDidInOrderById(DIDS)),
+				query("CredentialRepository.deleteByTrustedIssuerDidIn",
+						test -> test.credentialRepository.deleteByTrustedIssuerDidIn(DIDS)),
+				query("ClaimRepository.findByCredentialIdInOrderById",
+						test -> test.claimRepository.findByCredentialIdInOrderById(IDS)),
+				query("ClaimValueRepository.findByClaimIdInOrderById",
+						test -> test.claimValueRepository.findByClaimIdInOrderById(IDS)));
+	}
+
+	private static Stream<Arguments> cascadingDeletes() {
+		return Stream.of(
+				Arguments.of("cascade to credential",
+						"DELETE FROM credential WHERE trusted_issuer_id = '" + DID + "'"),
+				Arguments.of("cascade to claim", "DELETE FROM claim WHERE credential_id = 1"),
+				Arguments.of("cascade to claim_value", "DELETE FROM claim_value WHERE claim_id = 1"));
+	}
+
+	private static Arguments query(String query, Consumer<QueryPlanTest> call) {
+		return Arguments.of(query, call);
+	}
+
+	private void assertNoTableScan(String query, RecordedStatement statement) {
+		transactionOperations.executeRead(status -> {
+			ScanMarker scanMarker = ScanMarker.of(status.getConnection());
+			String plan = explain(status.getConnection(), scanMarker, statement);
+			assertFalse(scanMarker.isScan(plan),
+					String.format("%s should not scan a complete table, but %s was planned as: %s", query,
+							statement.sql(), plan));
+			return plan;
+		});
+	}
+
+	private static String explain(Connection connection, ScanMarker scanMarker, RecordedStatement recordedStatement) {
+		try {
+			if (scanMarker == ScanMarker.POSTGRES) {
+				// the planner prefers scans on small tables, only scan if no index can be used at all
+				try (PreparedStatement statement = connection.prepareStatement("SET LOCAL enable_seqscan = off")) {
+					statement.execute();
+				}
+			}
+			try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + recordedStatement.sql())) {
+				for (ParameterCall parameter : recordedStatement.parameters()) {
+					invoke(statement, parameter.setter(), parameter.args());
+				}
+				StringJoiner plan = new StringJoiner("\n");
+				try (ResultSet resultSet = statement.executeQuery()) {
+					while (resultSet.next()) {
+						plan.add(resultSet.getString(1));
+					}
+				}
+				return plan.toString();
+			}
+		} catch (Throwable e) {
+			throw new IllegalStateException(
+					String.format("Was not able to explain the query %s.", recordedStatement.sql()), e);
+		}
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private enum ScanMarker {
+		// counting all rows of a table is answered by H2 from its row count, without reading the table
+		H2("tableScan", "direct lookup"),
+		POSTGRES("Seq Scan", null);
+
+		private final String marker;
+		private final String exemption;
+
+		ScanMarker(String marker, String exemption) {
+			this.marker = marker;
+			this.exemption = exemption;
+		}
+
+		boolean isScan(String plan) {
+			return plan.contains(marker) && (exemption == null || !plan.contains(exemption));
+		}
+
+		static ScanMarker of(Connection connection) {
+			try {
+				String product = connection.getMetaData().getDatabaseProductName();
+				return switch (product) {
+					case "H2" -> H2;
+					case "PostgreSQL" -> POSTGRES;
+					default -> throw new IllegalStateException(
+							String.format("Query plans of %s are not supported.", product));
+				};
+			} catch (SQLException e) {
+				throw new IllegalStateException("Was not able to detect the database.", e);
+			}
+		}
+	}
+
+	private record RecordedStatement(String sql, List<ParameterCall> parameters) {
+	}
+
+	private record ParameterCall(Method setter, Object[] args) {
+	}
+
+	/**
+	 * Records the statements prepared by the calling thread, together with the calls setting their parameters, so that
+	 * they can be explained as generated for the repositories.
+	 */
+	@Singleton
+	@Requires(property = "test.query-plan.record-statements", value = "true")
+	public static class StatementRecorder implements BeanCreatedEventListener<DataSource>, Ordered {
+
+		private static final String PREPARE_METHOD = "prepareStatement";
+		private static final String SETTER_PREFIX = "set";
+
+		private final ThreadLocal<List<RecordedStatement>> recordedStatements = new ThreadLocal<>();
+
+		/**
+		 * Run the call and return the statements it prepared.
+		 */
+		List<RecordedStatement> record(Runnable call) {
+			List<RecordedStatement> statements = new ArrayList<>();
+			recordedStatements.set(statements);
+			try {
+				call.run();
+			} finally {
+				recordedStatements.remove();
+			}
+			return statements;
+		}
+
+		@Override
+		public DataSource onCreated(BeanCreatedEvent<DataSource> event) {
+			DataSource dataSource = event.getBean();
+			return proxy(DataSource.class, (proxy, method, args) -> {
+				Object result = invoke(dataSource, method, args);
+				if (result instanceof Connection connection) {
+					return proxy(Connection.class, (connectionProxy, connectionMethod, connectionArgs) ->
+							recordStatement(connectionMethod, connectionArgs,
+									invoke(connection, connectionMethod, connectionArgs)));
+				}
+				return result;
+			});
+		}
+
+		// wrap after the statement statistics, which have to be the datasource unwrapped by micronaut-data
+		@Override
+		public int getOrder() {
+			return Ordered.HIGHEST_PRECEDENCE + 1;
+		}
+
+		private Object recordStatement(Method method, Object[] args, Object result) {
+			List<RecordedStatement> statements = recordedStatements.get();
+			if (statements == null || !PREPARE_METHOD.equals(method.getName())
+					|| !(result instanceof PreparedStatement statement)) {
+				return result;
+			}
+			RecordedStatement recordedStatement = new RecordedStatement((String) args[0], new ArrayList<>());
+			statements.add(recordedStatement);
+			return proxy(PreparedStatement.class, (statementProxy, statementMethod, statementArgs) -> {
+				if (isParameterSetter(statementMethod)) {
+					recordedStatement.parameters().add(new ParameterCall(statementMethod, statementArgs.clone()));
+				}
+				return invoke(statement, statementMethod, statementArgs);
+			});
+		}
+
+		// the setters of parameters take the index first, unlike e.g. setFetchSize
+		private static boolean isParameterSetter(Method method) {
+			return method.getName().startsWith(SETTER_PREFIX) && method.getParameterCount() >= 2
+					&& method.getParameterTypes()[0] == int.class;
+		}
+
+		private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+			return type.cast(Proxy.newProxyInstance(StatementRecorder.class.getClassLoader(),
+					new Class<?>[] { type }, handler));
+		}
+	}
+}
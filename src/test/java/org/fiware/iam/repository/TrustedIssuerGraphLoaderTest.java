@@ -0,0 +1,112 @@
+package org.fiware.iam.repository;
+
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import lombok.RequiredArgsConstructor;
+import org.fiware.iam.StatementStatistics;
+import org.fiware.iam.TIRMapper;
+import org.fiware.iam.metrics.RequestStatements;
+import org.fiware.iam.til.api.IssuerApiTestClient;
+import org.fiware.iam.til.model.ClaimVO;
+import org.fiware.iam.til.model.CredentialsVO;
+import org.fiware.iam.til.model.CredentialsVOTestExample;
+import org.fiware.iam.til.model.TrustedIssuerVOTestExample;
+import org.fiware.iam.tir.model.IssuerVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@RequiredArgsConstructor
+@MicronautTest
+public class TrustedIssuerGraphLoaderTest {
+
+	private static final String DID_TEMPLATE = "did:elsi:%s";
+
+	private final IssuerApiTestClient insertionClient;
+	private final TrustedIssuerRepository repository;
+	private final TrustedIssuerGraphLoader graphLoader;
+	private final TIRMapper registryMapper;
+
+	@BeforeEach
+	public void cleanUp() {
+		repository.deleteAll();
+	}
+
+	@Test
+	public void loadBatchedEqualsJoined() {
+		String did = createWideIssuer("wide", 3, 4, 5);
+
+		AtomicReference<Optional<TrustedIssuer>> batchedResult = new AtomicReference<>();
+		RequestStatements statements = StatementStatistics.count(
+				() -> batchedResult.set(graphLoader.loadBatched(did)));
+		assertEquals(4, statements.getStatements(), "Every level should be fetched with exactly one query.");
+		Optional<TrustedIssuer> batchedIssuer = batchedResult.get();
+		Optional<TrustedIssuer> joinedIssuer = graphLoader.loadJoined(did);
+
+		assertTrue(batchedIssuer.isPresent(), "The issuer should have been loaded.");
+		assertTrue(joinedIssuer.isPresent(), "The issuer should have been loaded.");
+		Credential credential = batchedIssuer.get().getCredentials().iterator().next();
+		assertEquals(3, batchedIssuer.get().getCredentials().size(), "All credentials should have been loaded.");
+		assertEquals(4, credential.getClaims().size(), "All claims should have been loaded.");
+		assertEquals(5, credential.getClaims().iterator().next().getClaimValues().size(),
+				"All claim values should have been loaded.");
+
+		IssuerVO batchedVO = registryMapper.map(batchedIssuer.get());
+		IssuerVO joinedVO = registryMapper.map(joinedIssuer.get());
+		assertEquals(new HashSet<>(joinedVO.getAttributes()), new HashSet<>(batchedVO.getAttributes()),
+				"Both strategies should result in the same attributes.");
+	}
+
+	@Test
+	public void loadAllWithConstantQueries() {
+		List<String> dids = IntStream.range(10, 20)
+				.mapToObj(i -> createWideIssuer(String.valueOf(i), 2, 2, 2))
+				.toList();
+
+		AtomicReference<List<TrustedIssuer>> result = new AtomicReference<>();
+		RequestStatements statements = StatementStatistics.count(() -> result.set(graphLoader.loadAll(dids)));
+		assertEquals(4, statements.getStatements(), "The number of queries should not depend on the issuers.");
+		List<TrustedIssuer> trustedIssuers = result.get();
+		assertEquals(dids, trustedIssuers.stream().map(TrustedIssuer::getDid).toList(),
+				"All issuers should be returned, sorted by their DID.");
+		trustedIssuers.forEach(trustedIssuer -> assertEquals(2, trustedIssuer.getCredentials().size(),
+				"Only the own credentials should be assigned to the issuer."));
+	}
+
+	@Test
+	public void loadBatchedWithoutCredentials() {
+		insertionClient.createTrustedIssuer(TrustedIssuerVOTestExample.build()
+				.did(String.format(DID_TEMPLATE, "empty"))
+				.credentials(List.of()));
+
+		Optional<TrustedIssuer> trustedIssuer = graphLoader.loadBatched(String.format(DID_TEMPLATE, "empty"));
+		assertTrue(trustedIssuer.isPresent(), "The issuer should have been loaded.");
+		assertTrue(trustedIssuer.get().getCredentials().isEmpty(), "No credentials should be assigned.");
+		assertTrue(graphLoader.loadBatched(String.format(DID_TEMPLATE, "unknown")).isEmpty(),
+				"Unknown issuers should not be returned.");
+	}
+
+	private String createWideIssuer(String id, int credentials, int claims, int values) {
+		String did = String.format(DID_TEMPLATE, id);
+		List<CredentialsVO> credentialsVOS = IntStream.range(0, credentials)
+				.mapToObj(credential -> CredentialsVOTestExample.build()
+						.credentialsType("Credential" + credential)
+						.claims(IntStream.range(0, claims)
+								.mapToObj(claim -> new ClaimVO()
+										.name("claim" + claim)
+										.allowedValues(IntStream.range(0, values)
+												.mapToObj(value -> (Object) ("value" + value))
+												.toList()))
+								.toList()))
+				.toList();
+		insertionClient.createTrustedIssuer(TrustedIssuerVOTestExample.build().did(did).credentials(credentialsVOS));
+		return did;
+	}
+}
@@ -0,0 +1,147 @@
+package org.fiware.iam.rest;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import lombok.RequiredArgsConstructor;
+import org.fiware.iam.StatementStatistics;
+import org.fiware.iam.TILMapper;
+import org.fiware.iam.TIRMapper;
+import org.fiware.iam.repository.CredentialRepository;
+import org.fiware.iam.repository.TrustedIssuerRepository;
+import org.fiware.iam.service.StorageModeMigrator;
+import org.fiware.iam.til.api.IssuerApiTestClient;
+import org.fiware.iam.til.model.ClaimVOTestExample;
+import org.fiware.iam.til.model.CredentialsVOTestExample;
+import org.fiware.iam.til.model.TimeRangeVOTestExample;
+import org.fiware.iam.til.model.TrustedIssuerVO;
+import org.fiware.iam.til.model.TrustedIssuerVOTestExample;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@RequiredArgsConstructor
+@MicronautTest
+@Property(name = "til.repository.storage-mode", value = "DOCUMENT")
+@Property(name = "datasources.default.url", value = "jdbc:h2:mem:documentDb;LOCK_TIMEOUT=10000;DB_CLOSE_ON_EXIT=FALSE")
+public class DocumentStorageModeTest {
+
+	private final IssuerApiTestClient testClient;
+	private final TrustedIssuerRepository repository;
+	private final CredentialRepository credentialRepository;
+	private final StorageModeMigrator storageModeMigrator;
+	private final TILMapper trustedIssuerMapper;
+	private final TIRMapper registryMapper;
+
+	@BeforeEach
+	public void cleanUp() {
+		repository.deleteAll();
+	}
+
+	@Test
+	public void createAndGetIssuerWithSingleStatements() throws Exception {
+		TrustedIssuerVO theIssuer = issuer("did:elsi:document");
+
+		HttpResponse<?> createResponse = testClient.createTrustedIssuer(theIssuer);
+		assertEquals(HttpStatus.CREATED, createResponse.getStatus(), "The issuer should have been created.");
+		assertEquals(1, StatementStatistics.writtenRows(createResponse),
+				"The issuer should have been written as a single row.");
+		assertEquals(0, credentialRepository.count(), "No credentials should have been written to their table.");
+
+		HttpResponse<TrustedIssuerVO> getResponse = testClient.getIssuer(theIssuer.getDid());
+		assertEquals(HttpStatus.OK, getResponse.getStatus(), "The retrieval request should succeed.");
+		assertEquals(1, StatementStatistics.statements(getResponse),
+				"The issuer should have been read with a single query.");
+		assertEquals(theIssuer, getResponse.body(), "The issuer should be returned as it was created.");
+	}
+
+	@Test
+	public void updateIssuerWithSingleStatement() throws Exception {
+		TrustedIssuerVO theIssuer = issuer("did:elsi:document");
+		assertEquals(HttpStatus.CREATED, testClient.createTrustedIssuer(theIssuer).getStatus(),
+				"The issuer should initially be created.");
+		TrustedIssuerVO issuerUpdate = issuer("did:elsi:document").credentials(List.of(
+				CredentialsVOTestExample.build().credentialsType("UpdatedCredential")));
+
+		HttpResponse<?> updateResponse = testClient.updateIssuer(issuerUpdate.getDid(), issuerUpdate);
+		assertEquals(HttpStatus.OK, updateResponse.getStatus(), "The issuer should have been updated.");
+		assertEquals(1, StatementStatistics.writes(updateResponse),
+				"The issuer should have been updated with one statement.");
+		assertEquals(issuerUpdate, testClient.getIssuer(issuerUpdate.getDid()).body(),
+				"The updated issuer should be returned.");
+		assertEquals(HttpStatus.NOT_FOUND,
+				testClient.updateIssuer("did:elsi:unknown", issuer("did:elsi:unknown")).getStatus(),
+				"Not existing issuers should not be updated.");
+	}
+
+	@Test
+	public void migrateNormalizedIssuers() throws Exception {
+		TrustedIssuerVO theIssuer = issuer("did:elsi:normalized");
+		// persist as the normalized mode does
+		repository.save(registryMapper.encodeAttributes(trustedIssuerMapper.map(theIssuer)));
+		assertNull(repository.findById(theIssuer.getDid()).get().getCredentialsDocument(),
+				"The issuer should initially be stored in the tables.");
+
+		assertEquals(1, storageModeMigrator.migrateChunk(10), "The issuer should have been migrated.");
+		assertEquals(0, credentialRepository.count(), "The credentials should have been removed from their table.");
+		assertNotNull(repository.findById(theIssuer.getDid()).get().getCredentialsDocument(),
+				"The issuer should be stored as a document.");
+		assertEquals(theIssuer, testClient.getIssuer(theIssuer.getDid()).body(),
+				"The migrated issuer should be returned unchanged.");
+		assertEquals(0, storageModeMigrator.migrateChunk(10), "Nothing should be left to migrate.");
+	}
+
+	@Test
+	public void migrateConcurrentlyOnce() throws Exception {
+		for (int i = 0; i < 30; i++) {
+			repository.save(registryMapper.encodeAttributes(
+					trustedIssuerMapper.map(issuer(String.format("did:elsi:normalized-%s", i)))));
+		}
+
+		// every thread acts as another instance starting at the same time
+		ExecutorService instances = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Integer>> migrations = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				migrations.add(instances.submit(() -> {
+					int migrated = 0;
+					int chunk;
+					do {
+						chunk = storageModeMigrator.migrateChunk(5);
+						migrated += chunk;
+					} while (chunk > 0);
+					return migrated;
+				}));
+			}
+			int migrated = 0;
+			for (Future<Integer> migration : migrations) {
+				migrated += migration.get(30, TimeUnit.SECONDS);
+			}
+			assertEquals(30, migrated, "Every issuer should have been migrated by exactly one instance.");
+		} finally {
+			instances.shutdownNow();
+		}
+		assertEquals(0, credentialRepository.count(), "The credentials should have been removed from their table.");
+		assertEquals(issuer("did:elsi:normalized-29"), testClient.getIssuer("did:elsi:normalized-29").body(),
+				"The migrated issuer should be returned unchanged.");
+	}
+
+	private static TrustedIssuerVO issuer(String did) {
+		return TrustedIssuerVOTestExample.build().did(did).credentials(List.of(
+				CredentialsVOTestExample.build().validFor(TimeRangeVOTestExample.build()).claims(List.of(
+						ClaimVOTestExample.build().allowedValues(List.of("test", 1, true, Map.of("role", "admin"))))),
+				CredentialsVOTestExample.build().credentialsType("OtherCredential")));
+	}
+}
@@ -0,0 +1,81 @@
+package org.fiware.iam.rest;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import lombok.RequiredArgsConstructor;
+import org.fiware.iam.StatementStatistics;
+import org.fiware.iam.cache.IssuerCache;
+import org.fiware.iam.repository.TrustedIssuerRepository;
+import org.fiware.iam.til.api.IssuerApiTestClient;
+import org.fiware.iam.til.model.CredentialsVOTestExample;
+import org.fiware.iam.til.model.TrustedIssuerVO;
+import org.fiware.iam.til.model.TrustedIssuerVOTestExample;
+import org.fiware.iam.tir.api.TirApiTestClient;
+import org.fiware.iam.tir.model.IssuerVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The R2DBC connection opens the same in-memory database as the JDBC datasource, which creates the schema.
+ */
+@RequiredArgsConstructor
+@MicronautTest
+@Property(name = "til.repository.reactive-reads", value = "true")
+@Property(name = "datasources.default.url", value = "jdbc:h2:mem:reactiveDb;LOCK_TIMEOUT=10000;DB_CLOSE_ON_EXIT=FALSE")
+@Property(name = "r2dbc.datasources.default.url", value = "r2dbc:h2:mem:///reactiveDb;DB_CLOSE_DELAY=-1")
+@Property(name = "r2dbc.datasources.default.username", value = "user")
+@Property(name = "r2dbc.datasources.default.password", value = "password")
+@Property(name = "r2dbc.datasources.default.dialect", value = "H2")
+public class ReactiveReadTest {
+
+	private static final String DID = "did:elsi:reactive";
+
+	private final IssuerApiTestClient listClient;
+	private final TirApiTestClient registryClient;
+	private final TrustedIssuerRepository repository;
+	private final IssuerCache issuerCache;
+	private final TrustedIssuerRegistryController registryController;
+
+	@BeforeEach
+	public void cleanUp() {
+		repository.deleteAll();
+		issuerCache.invalidateAll();
+	}
+
+	@Test
+	public void getIssuerWithoutJdbc() throws Exception {
+		TrustedIssuerVO theIssuer = TrustedIssuerVOTestExample.build().did(DID).credentials(List.of(
+				CredentialsVOTestExample.build().credentialsType("FirstCredential"),
+				CredentialsVOTestExample.build().credentialsType("SecondCredential")));
+		assertEquals(HttpStatus.CREATED, listClient.createTrustedIssuer(theIssuer).getStatus(),
+				"The issuer should initially be created.");
+
+		HttpResponse<IssuerVO> reactiveResponse = registryClient.getIssuerV4(DID);
+		assertEquals(HttpStatus.OK, reactiveResponse.getStatus(), "The issuer should be returned.");
+		assertEquals(0, StatementStatistics.statements(reactiveResponse),
+				"The issuer should not have been loaded through JDBC.");
+		assertTrue(issuerCache.getIfPresent(DID).isPresent(), "The loaded issuer should have been cached.");
+
+		// the controller loads the issuer through JDBC
+		issuerCache.invalidate(DID);
+		HttpResponse<IssuerVO> blockingResponse = registryController.getIssuerV4(DID);
+		assertEquals(blockingResponse.body(), reactiveResponse.body(),
+				"The reactive lookup should return the same issuer as the controller.");
+		assertEquals(blockingResponse.header(HttpHeaders.ETAG), reactiveResponse.header(HttpHeaders.ETAG),
+				"The reactive lookup should return the same entity tag as the controller.");
+	}
+
+	@Test
+	public void getMissingIssuer404() throws Exception {
+		assertEquals(HttpStatus.NOT_FOUND, registryClient.getIssuerV4(DID).getStatus(),
+				"Missing issuers should be reported.");
+	}
+}
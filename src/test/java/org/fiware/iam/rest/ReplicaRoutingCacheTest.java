@@ -0,0 +1,94 @@
+package org.fiware.iam.rest;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MutableHttpRequest;
+import io.micronaut.http.context.ServerRequestContext;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import lombok.RequiredArgsConstructor;
+import org.fiware.iam.cache.IssuerCache;
+import org.fiware.iam.repository.ReplicaRouting;
+import org.fiware.iam.repository.TrustedIssuerRepository;
+import org.fiware.iam.til.api.IssuerApiTestClient;
+import org.fiware.iam.til.model.TrustedIssuerVOTestExample;
+import org.fiware.iam.tir.model.IssuerVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The replica is an independent, empty database, thus it behaves like a replica lagging behind every write. With the
+ * cache enabled, an issuer must never be cached from it.
+ */
+@RequiredArgsConstructor
+@MicronautTest
+@Property(name = "til.cache.issuers.enabled", value = "true")
+@Property(name = "til.replica.read-your-writes-window", value = "500ms")
+@Property(name = "datasources.default.url", value = "jdbc:h2:mem:primary2Db;LOCK_TIMEOUT=10000;DB_CLOSE_ON_EXIT=FALSE")
+@Property(name = "datasources.replica.url", value = "jdbc:h2:mem:replica2Db;LOCK_TIMEOUT=10000;DB_CLOSE_ON_EXIT=FALSE")
+@Property(name = "datasources.replica.driverClassName", value = "org.h2.Driver")
+@Property(name = "datasources.replica.username", value = "user")
+@Property(name = "datasources.replica.password", value = "password")
+@Property(name = "datasources.replica.dialect", value = "H2")
+@Property(name = "liquibase.datasources.replica.enabled", value = "true")
+@Property(name = "liquibase.datasources.replica.change-log", value = "classpath:db/migration/changelog.xml")
+public class ReplicaRoutingCacheTest {
+
+	private static final String DID = "did:elsi:cached";
+	private static final long WINDOW_MILLIS = 500;
+
+	private final IssuerApiTestClient listClient;
+	private final TrustedIssuerRegistryController registryController;
+	private final ReplicaRouting replicaRouting;
+	private final IssuerCache issuerCache;
+	private final TrustedIssuerRepository repository;
+
+	@BeforeEach
+	public void cleanUp() {
+		repository.deleteAll();
+		issuerCache.invalidateAll();
+	}
+
+	@Test
+	public void loadAfterInvalidationReadsFromPrimary() throws Exception {
+		assertEquals(HttpStatus.CREATED, listClient.createTrustedIssuer(TrustedIssuerVOTestExample.build().did(DID))
+				.getStatus(), "The issuer should have been created in the primary.");
+		Thread.sleep(WINDOW_MILLIS * 2);
+
+		// the read was marked before the write started, the write already invalidated the cache
+		MutableHttpRequest<?> read = HttpRequest.GET("/v4/issuers/" + DID);
+		ReplicaRouting.markForReplica(read);
+		replicaRouting.beginWrite();
+		try {
+			issuerCache.invalidate(DID);
+			HttpResponse<IssuerVO> response = ServerRequestContext.with(read,
+					() -> registryController.getIssuerV4(DID));
+			assertEquals(HttpStatus.OK, response.getStatus(),
+					"While the write is running, the issuer should be loaded from the primary.");
+		} finally {
+			replicaRouting.completeWrite();
+		}
+		assertTrue(issuerCache.getIfPresent(DID).isPresent(), "The issuer from the primary should have been cached.");
+
+		Thread.sleep(WINDOW_MILLIS * 2);
+		assertEquals(HttpStatus.OK, ServerRequestContext.with(read, () -> registryController.getIssuerV4(DID))
+				.getStatus(), "After the window, the issuer should still be served from the cache.");
+	}
+
+	@Test
+	public void replicaMissIsNotCached() throws Exception {
+		assertEquals(HttpStatus.CREATED, listClient.createTrustedIssuer(TrustedIssuerVOTestExample.build().did(DID))
+				.getStatus(), "The issuer should have been created in the primary.");
+		Thread.sleep(WINDOW_MILLIS * 2);
+
+		MutableHttpRequest<?> read = HttpRequest.GET("/v4/issuers/" + DID);
+		ReplicaRouting.markForReplica(read);
+		assertEquals(HttpStatus.NOT_FOUND, ServerRequestContext.with(read, () -> registryController.getIssuerV4(DID))
+				.getStatus(), "After the window, the issuer should be read from the (empty) replica.");
+		assertTrue(issuerCache.getIfPresent(DID).isEmpty(), "Missing issuers should not be cached.");
+	}
+}
@@ -0,0 +1,67 @@
+package org.fiware.iam.rest;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import lombok.RequiredArgsConstructor;
+import org.fiware.iam.repository.TrustedIssuerRepository;
+import org.fiware.iam.til.api.IssuerApiTestClient;
+import org.fiware.iam.til.model.TrustedIssuerVOTestExample;
+import org.fiware.iam.tir.api.TirApiTestClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The replica is an independent, empty database. Issuers are only found while the reads are routed to the primary.
+ */
+@RequiredArgsConstructor
+@MicronautTest
+@Property(name = "til.cache.issuers.enabled", value = "false")
+@Property(name = "til.replica.read-your-writes-window", value = "500ms")
+@Property(name = "datasources.default.url", value = "jdbc:h2:mem:primaryDb;LOCK_TIMEOUT=10000;DB_CLOSE_ON_EXIT=FALSE")
+@Property(name = "datasources.replica.url", value = "jdbc:h2:mem:replicaDb;LOCK_TIMEOUT=10000;DB_CLOSE_ON_EXIT=FALSE")
+@Property(name = "datasources.replica.driverClassName", value = "org.h2.Driver")
+@Property(name = "datasources.replica.username", value = "user")
+@Property(name = "datasources.replica.password", value = "password")
+@Property(name = "datasources.replica.dialect", value = "H2")
+@Property(name = "liquibase.datasources.replica.enabled", value = "true")
+@Property(name = "liquibase.datasources.replica.change-log", value = "classpath:db/migration/changelog.xml")
+public class ReplicaRoutingTest {
+
+	private static final String DID = "did:elsi:replicated";
+	private static final long WINDOW_MILLIS = 500;
+
+	private final IssuerApiTestClient listClient;
+	private final TirApiTestClient registryClient;
+	private final TrustedIssuerRepository repository;
+
+	@BeforeEach
+	public void cleanUp() {
+		repository.deleteAll();
+	}
+
+	@Test
+	public void readYourWritesThenReadFromReplica() throws Exception {
+		assertEquals(HttpStatus.CREATED, listClient.createTrustedIssuer(TrustedIssuerVOTestExample.build().did(DID))
+				.getStatus(), "The issuer should have been created in the primary.");
+		assertEquals(HttpStatus.OK, registryClient.getIssuerV4(DID).getStatus(),
+				"Directly after the write, the issuer should be read from the primary.");
+		assertEquals(HttpStatus.OK, listClient.getIssuer(DID).getStatus(),
+				"Directly after the write, the issuer should be read from the primary.");
+
+		Thread.sleep(WINDOW_MILLIS * 2);
+		assertEquals(HttpStatus.NOT_FOUND, registryClient.getIssuerV4(DID).getStatus(),
+				"After the window, the issuer should be read from the (empty) replica.");
+		assertEquals(HttpStatus.NOT_FOUND, listClient.getIssuer(DID).getStatus(),
+				"After the window, the issuer should be read from the (empty) replica.");
+		assertEquals(0, listClient.getIssuers(null, null).body().getTotal(),
+				"After the window, the issuers should be listed from the (empty) replica.");
+
+		assertEquals(HttpStatus.NO_CONTENT, listClient.deleteIssuerById(DID).getStatus(),
+				"The issuer should be deleted from the primary.");
+		assertEquals(HttpStatus.NOT_FOUND, registryClient.getIssuerV4(DID).getStatus(),
+				"The issuer should have been deleted from the primary.");
+	}
+}
@@ -0,0 +1,116 @@
+package org.fiware.iam.rest;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import lombok.RequiredArgsConstructor;
+import org.fiware.iam.StatementStatistics;
+import org.fiware.iam.cache.IssuerCache;
+import org.fiware.iam.repository.TrustedIssuerGraphLoader;
+import org.fiware.iam.repository.TrustedIssuerRepository;
+import org.fiware.iam.til.api.IssuerApiTestClient;
+import org.fiware.iam.til.model.CredentialsVOTestExample;
+import org.fiware.iam.til.model.TrustedIssuerVO;
+import org.fiware.iam.til.model.TrustedIssuerVOTestExample;
+import org.fiware.iam.tir.api.TirApiTestClient;
+import org.fiware.iam.tir.model.IssuerVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@RequiredArgsConstructor
+@MicronautTest
+@Property(name = "til.cache.issuers.serialized-responses", value = "true")
+@Property(name = "datasources.default.url", value = "jdbc:h2:mem:serializedDb;LOCK_TIMEOUT=10000;DB_CLOSE_ON_EXIT=FALSE")
+public class SerializedIssuerFilterTest {
+
+	private static final String DID = "did:elsi:serialized";
+
+	private final IssuerApiTestClient insertionClient;
+	private final TirApiTestClient registryClient;
+	private final TrustedIssuerRepository repository;
+	private final IssuerCache issuerCache;
+	private final TrustedIssuerGraphLoader graphLoader;
+
+	@Inject
+	@Client("/")
+	private HttpClient httpClient;
+
+	@BeforeEach
+	public void cleanUp() {
+		repository.deleteAll();
+		issuerCache.invalidateAll();
+	}
+
+	@Test
+	public void getRegistryIssuerFromSerializedResponse() throws Exception {
+		assertEquals(HttpStatus.CREATED, insertionClient.createTrustedIssuer(issuer("Credential")).getStatus(),
+				"The issuer should initially be created.");
+		HttpResponse<IssuerVO> expectedResponse = registryClient.getIssuerV4(DID);
+		assertEquals(HttpStatus.OK, expectedResponse.getStatus(), "The issuer should be returned by the controller.");
+		HttpResponse<String> initialResponse = getJson("/v4/issuers/" + DID);
+
+		HttpResponse<String> cachedResponse = getJson("/v4/issuers/" + DID);
+		assertEquals(0, StatementStatistics.statements(cachedResponse),
+				"The serialized response should be served without a query.");
+		assertEquals(initialResponse.body(), cachedResponse.body(), "The same json should be returned.");
+		assertEquals(expectedResponse.header(HttpHeaders.ETAG), cachedResponse.header(HttpHeaders.ETAG),
+				"The etag of the issuer should be returned.");
+		assertEquals(expectedResponse.body(), registryClient.getIssuerV4(DID).body(),
+				"The cached json should be the serialized issuer.");
+
+		assertEquals(HttpStatus.OK, insertionClient.updateIssuer(DID, issuer("UpdatedCredential")).getStatus(),
+				"The issuer should have been updated.");
+		assertNotEquals(initialResponse.body(), getJson("/v4/issuers/" + DID).body(),
+				"The updated issuer should be returned.");
+	}
+
+	@Test
+	public void getListIssuerFromSerializedResponse() throws Exception {
+		TrustedIssuerVO theIssuer = issuer("Credential");
+		assertEquals(HttpStatus.CREATED, insertionClient.createTrustedIssuer(theIssuer).getStatus(),
+				"The issuer should initially be created.");
+		long loadStatements = StatementStatistics.count(() -> graphLoader.load(DID)).getStatements();
+		HttpResponse<String> initialResponse = getJson("/issuer/" + DID);
+		assertEquals(loadStatements, StatementStatistics.statements(initialResponse),
+				"Without a cached response, no digest should be selected before loading the issuer.");
+
+		HttpResponse<String> cachedResponse = getJson("/issuer/" + DID);
+		assertEquals(1, StatementStatistics.statements(cachedResponse),
+				"Only the digest of the issuer should have been selected.");
+		assertEquals(initialResponse.body(), cachedResponse.body(), "The same json should be returned.");
+		assertEquals(theIssuer, insertionClient.getIssuer(DID).body(), "The cached json should be the issuer.");
+
+		TrustedIssuerVO updatedIssuer = issuer("UpdatedCredential");
+		assertEquals(HttpStatus.OK, insertionClient.updateIssuer(DID, updatedIssuer).getStatus(),
+				"The issuer should have been updated.");
+		assertEquals(updatedIssuer, insertionClient.getIssuer(DID).body(), "The updated issuer should be returned.");
+
+		repository.deleteAll();
+		assertEquals(HttpStatus.NOT_FOUND, insertionClient.getIssuer(DID).getStatus(),
+				"Deleted issuers should not be served from the cache.");
+	}
+
+	private HttpResponse<String> getJson(String path) {
+		HttpResponse<String> response = httpClient.toBlocking().exchange(HttpRequest.GET(path), String.class);
+		assertEquals(HttpStatus.OK, response.getStatus(), "The issuer should be returned.");
+		assertNotNull(response.body(), "The json should be returned.");
+		return response;
+	}
+
+	private static TrustedIssuerVO issuer(String credentialsType) {
+		return TrustedIssuerVOTestExample.build().did(DID)
+				.credentials(List.of(CredentialsVOTestExample.build().credentialsType(credentialsType)));
+	}
+}
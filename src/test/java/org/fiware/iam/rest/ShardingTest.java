@@ -0,0 +1,159 @@
+package org.fiware.iam.rest;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import lombok.RequiredArgsConstructor;
+import org.fiware.iam.repository.ShardRouting;
+import org.fiware.iam.repository.TrustedIssuerRepository;
+import org.fiware.iam.til.api.IssuerApiTestClient;
+import org.fiware.iam.til.model.CredentialsVOTestExample;
+import org.fiware.iam.til.model.TrustedIssuerVO;
+import org.fiware.iam.til.model.TrustedIssuerVOTestExample;
+import org.fiware.iam.til.model.TrustedIssuersListResponseVO;
+import org.fiware.iam.tir.api.TirApiTestClient;
+import org.fiware.iam.tir.model.IssuerEntryVO;
+import org.fiware.iam.tir.model.IssuerResolutionRequestVO;
+import org.fiware.iam.tir.model.IssuersResponseVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The issuers are distributed across two independent databases, all apis should behave like with a single one.
+ */
+@RequiredArgsConstructor
+@MicronautTest
+@Property(name = "til.cache.issuers.enabled", value = "false")
+@Property(name = "til.sharding.datasources", value = "default,shard-1")
+@Property(name = "datasources.default.url", value = "jdbc:h2:mem:shard0Db;LOCK_TIMEOUT=10000;DB_CLOSE_ON_EXIT=FALSE")
+@Property(name = "datasources.shard-1.url", value = "jdbc:h2:mem:shard1Db;LOCK_TIMEOUT=10000;DB_CLOSE_ON_EXIT=FALSE")
+@Property(name = "datasources.shard-1.driverClassName", value = "org.h2.Driver")
+@Property(name = "datasources.shard-1.username", value = "user")
+@Property(name = "datasources.shard-1.password", value = "password")
+@Property(name = "datasources.shard-1.dialect", value = "H2")
+@Property(name = "liquibase.datasources.shard-1.enabled", value = "true")
+@Property(name = "liquibase.datasources.shard-1.change-log", value = "classpath:db/migration/changelog.xml")
+public class ShardingTest {
+
+	private static final int ISSUERS = 25;
+	private static final int PAGE_SIZE = 4;
+	private static final String DID_TEMPLATE = "did:elsi:shard-%02d";
+
+	private final IssuerApiTestClient listClient;
+	private final TirApiTestClient registryClient;
+	private final TrustedIssuerRepository repository;
+	private final ShardRouting shardRouting;
+
+	@Inject
+	@Named("default")
+	private DataSource shard0;
+
+	@Inject
+	@Named("shard-1")
+	private DataSource shard1;
+
+	private List<String> dids;
+
+	@BeforeEach
+	public void createIssuers() throws Exception {
+		shardRouting.onAllShards(() -> {
+			repository.deleteAll();
+			return null;
+		});
+		dids = IntStream.range(0, ISSUERS).mapToObj(i -> String.format(DID_TEMPLATE, i)).toList();
+		for (String did : dids) {
+			assertEquals(HttpStatus.CREATED, listClient.createTrustedIssuer(issuer(did, "Credential")).getStatus(),
+					"The issuer should have been created.");
+		}
+	}
+
+	@Test
+	public void distributeIssuersByDid() throws Exception {
+		long onShard1 = dids.stream().filter(did -> shardRouting.shardOf(did) == 1).count();
+		assertNotEquals(0, onShard1, "Some issuers should be on the second shard.");
+		assertNotEquals(ISSUERS, onShard1, "Some issuers should be on the first shard.");
+		assertEquals(ISSUERS - onShard1, countIssuers(shard0), "The issuers should be stored on their shard.");
+		assertEquals(onShard1, countIssuers(shard1), "The issuers should be stored on their shard.");
+		assertEquals(shardRouting.shardOf(dids.getFirst()), shardRouting.shardOf(dids.getFirst()),
+				"The shard of an issuer should be stable.");
+	}
+
+	@Test
+	public void listIssuersSortedAcrossShards() {
+		List<String> keysetDids = new ArrayList<>();
+		IssuersResponseVO response = registryClient.getIssuersV4(PAGE_SIZE, null).body();
+		assertEquals(ISSUERS, response.getTotal(), "The issuers of all shards should be counted.");
+		keysetDids.addAll(response.getItems().stream().map(IssuerEntryVO::getDid).toList());
+		while (response.getLinks().getNext() != null) {
+			response = registryClient.getIssuersV4(PAGE_SIZE, keysetDids.getLast()).body();
+			keysetDids.addAll(response.getItems().stream().map(IssuerEntryVO::getDid).toList());
+		}
+		assertEquals(dids, keysetDids, "All issuers should be listed in order, following the anchors.");
+
+		List<String> pagedDids = new ArrayList<>();
+		for (int page = 0; page * PAGE_SIZE < ISSUERS; page++) {
+			TrustedIssuersListResponseVO pageResponse = listClient.getIssuers(PAGE_SIZE, page).body();
+			assertEquals(ISSUERS, pageResponse.getTotal(), "The issuers of all shards should be counted.");
+			pagedDids.addAll(pageResponse.getItems());
+		}
+		assertEquals(dids, pagedDids, "All issuers should be listed in order, page by page.");
+		assertTrue(listClient.getIssuers(PAGE_SIZE, ISSUERS).body().getItems().isEmpty(),
+				"No issuers should be returned after the last page.");
+	}
+
+	@Test
+	public void readAndWriteIssuersOnTheirShard() {
+		dids.forEach(did -> assertEquals(HttpStatus.OK, registryClient.getIssuerV4(did).getStatus(),
+				"The issuer should be returned from its shard."));
+		assertEquals(ISSUERS, registryClient.resolveIssuersV4(new IssuerResolutionRequestVO().dids(dids)).body()
+				.getIssuers().size(), "All issuers should be resolved from their shards.");
+
+		String did = dids.getFirst();
+		TrustedIssuerVO updatedIssuer = issuer(did, "UpdatedCredential");
+		assertEquals(HttpStatus.OK, listClient.updateIssuer(did, updatedIssuer).getStatus(),
+				"The issuer should have been updated on its shard.");
+		assertEquals(updatedIssuer, listClient.getIssuer(did).body(), "The updated issuer should be returned.");
+		HttpClientResponseException conflict = assertThrows(HttpClientResponseException.class,
+				() -> listClient.createTrustedIssuer(updatedIssuer));
+		assertEquals(HttpStatus.CONFLICT, conflict.getStatus(), "The existing issuer should be found on its shard.");
+
+		assertEquals(HttpStatus.NO_CONTENT, listClient.deleteIssuerById(did).getStatus(),
+				"The issuer should have been deleted from its shard.");
+		assertEquals(HttpStatus.NOT_FOUND, listClient.getIssuer(did).getStatus(),
+				"The deleted issuer should not be returned.");
+		assertNull(registryClient.resolveIssuersV4(new IssuerResolutionRequestVO().dids(List.of(did))).body()
+				.getIssuers().get(did), "The deleted issuer should not be resolved.");
+	}
+
+	private static long countIssuers(DataSource dataSource) throws SQLException {
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM trusted_issuer")) {
+			resultSet.next();
+			return resultSet.getLong(1);
+		}
+	}
+
+	private static TrustedIssuerVO issuer(String did, String credentialsType) {
+		return TrustedIssuerVOTestExample.build().did(did)
+				.credentials(List.of(CredentialsVOTestExample.build().credentialsType(credentialsType)));
+	}
+}
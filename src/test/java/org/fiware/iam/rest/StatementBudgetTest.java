@@ -0,0 +1,110 @@
+package org.fiware.iam.rest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import lombok.RequiredArgsConstructor;
+import org.fiware.iam.StatementStatistics;
+import org.fiware.iam.filter.StatementStatisticsFilter;
+import org.fiware.iam.metrics.ServiceMetrics;
+import org.fiware.iam.repository.TrustedIssuerRepository;
+import org.fiware.iam.til.api.IssuerApiTestClient;
+import org.fiware.iam.til.model.ClaimVOTestExample;
+import org.fiware.iam.til.model.CredentialsVOTestExample;
+import org.fiware.iam.til.model.TrustedIssuerVO;
+import org.fiware.iam.til.model.TrustedIssuerVOTestExample;
+import org.fiware.iam.tir.api.TirApiTestClient;
+import org.fiware.iam.tir.model.IssuerResolutionRequestVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bounds the statements of every read controller method, independent of the number of issuers and their size. A
+ * method loading issuers or their children one by one (N+1) exceeds the bound. The statements are counted by the
+ * statistics of the service itself, so the test also covers its N+1 detection.
+ */
+@RequiredArgsConstructor
+@MicronautTest
+@Property(name = "til.cache.issuers.enabled", value = "false")
+@Property(name = "datasources.default.url", value = "jdbc:h2:mem:statementDb;LOCK_TIMEOUT=10000;DB_CLOSE_ON_EXIT=FALSE")
+public class StatementBudgetTest {
+
+	private static final int ISSUERS = 20;
+	private static final String DID_TEMPLATE = "did:elsi:budget-%02d";
+	// issuer, credentials, claims and claim values
+	private static final int ISSUER_LEVELS = 4;
+
+	private final IssuerApiTestClient listClient;
+	private final TirApiTestClient registryClient;
+	private final TrustedIssuerRepository repository;
+	private final MeterRegistry meterRegistry;
+
+	@Inject
+	@Client("/")
+	private HttpClient httpClient;
+
+	private List<String> dids;
+
+	@BeforeEach
+	public void createIssuers() throws Exception {
+		repository.deleteAll();
+		dids = IntStream.range(0, ISSUERS).mapToObj(i -> String.format(DID_TEMPLATE, i)).toList();
+		for (String did : dids) {
+			assertEquals(HttpStatus.CREATED, listClient.createTrustedIssuer(issuer(did)).getStatus(),
+					"The issuer should have been created.");
+		}
+	}
+
+	@Test
+	public void readsAreBounded() throws Exception {
+		String did = dids.getFirst();
+		StatementStatistics.assertAtMost(ISSUER_LEVELS, "getIssuerV4", () -> registryClient.getIssuerV4(did));
+		StatementStatistics.assertAtMost(2, "getIssuersV4", () -> registryClient.getIssuersV4(ISSUERS, null));
+		StatementStatistics.assertAtMost(ISSUER_LEVELS, "resolveIssuersV4",
+				() -> registryClient.resolveIssuersV4(new IssuerResolutionRequestVO().dids(dids)));
+		StatementStatistics.assertAtMost(ISSUER_LEVELS, "getIssuer", () -> listClient.getIssuer(did));
+		StatementStatistics.assertAtMost(2, "getIssuers", () -> listClient.getIssuers(ISSUERS, null));
+	}
+
+	@Test
+	public void writesAreBounded() throws Exception {
+		String did = dids.getFirst();
+		StatementStatistics.assertAtMost(ISSUER_LEVELS, "updateIssuer without changes",
+				() -> listClient.updateIssuer(did, issuer(did)));
+		StatementStatistics.assertAtMost(1, "deleteIssuerById", () -> listClient.deleteIssuerById(did));
+	}
+
+	@Test
+	public void statementsAreReportedPerRequest() {
+		HttpResponse<String> response = httpClient.toBlocking()
+				.exchange(HttpRequest.GET("/v4/issuers/" + dids.getFirst()), String.class);
+
+		assertEquals(String.valueOf(ISSUER_LEVELS), response.header(StatementStatisticsFilter.STATEMENT_COUNT_HEADER),
+				"All levels of the issuer should have been loaded with one statement each.");
+		assertTrue(Long.parseLong(response.header(StatementStatisticsFilter.ROW_COUNT_HEADER)) > ISSUER_LEVELS,
+				"The rows of all levels should have been counted.");
+		assertTrue(meterRegistry.get(ServiceMetrics.STATEMENTS_METRIC)
+						.tag(ServiceMetrics.ENDPOINT_TAG, "getIssuerV4")
+						.summary()
+						.count() > 0,
+				"The statements should have been recorded per endpoint.");
+	}
+
+	private static TrustedIssuerVO issuer(String did) {
+		return TrustedIssuerVOTestExample.build().did(did).credentials(List.of(
+				CredentialsVOTestExample.build().claims(List.of(ClaimVOTestExample.build(), ClaimVOTestExample.build())),
+				CredentialsVOTestExample.build().credentialsType("OtherCredential")));
+	}
+}
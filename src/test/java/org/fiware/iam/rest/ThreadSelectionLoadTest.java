@@ -0,0 +1,134 @@
+package org.fiware.iam.rest;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.runtime.server.EmbeddedServer;
+import lombok.extern.slf4j.Slf4j;
+import org.fiware.iam.TILMapper;
+import org.fiware.iam.TIRMapper;
+import org.fiware.iam.repository.TrustedIssuerRepository;
+import org.fiware.iam.til.model.CredentialsVOTestExample;
+import org.fiware.iam.til.model.TrustedIssuerVOTestExample;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the registry api with its blocking controllers dispatched onto virtual threads (AUTO, using the blocking
+ * executor) against the pool of platform threads (IO). Both modes have to serve all requests, throughput and p99
+ * latency are logged for comparison only, since they depend on the machine running the test. Tagged as load test, thus
+ * excluded from the default build.
+ */
+@Slf4j
+@Tag("load")
+public class ThreadSelectionLoadTest {
+
+	private static final int ISSUERS = 50;
+	private static final int WARMUP_REQUESTS = 500;
+	private static final int REQUESTS = 3000;
+	private static final int CONCURRENCY = 200;
+	private static final String DID_TEMPLATE = "did:elsi:load-%s";
+
+	@Test
+	public void compareThreadSelection() throws Exception {
+		LoadResult platformThreads = runLoad("IO");
+		LoadResult virtualThreads = runLoad("AUTO");
+
+		log.info("Thread selection IO (platform threads): {}", platformThreads);
+		log.info("Thread selection AUTO (virtual threads): {}", virtualThreads);
+		assertEquals(0, platformThreads.errors(), "All requests should have been served on platform threads.");
+		assertEquals(0, virtualThreads.errors(), "All requests should have been served on virtual threads.");
+	}
+
+	private LoadResult runLoad(String threadSelection) throws Exception {
+		try (EmbeddedServer server = ApplicationContext.run(EmbeddedServer.class, Map.of(
+				"micronaut.server.thread-selection", threadSelection,
+				"datasources.default.url",
+				String.format("jdbc:h2:mem:%s;LOCK_TIMEOUT=10000;DB_CLOSE_ON_EXIT=FALSE", UUID.randomUUID()),
+				// every request should reach the database
+				"til.cache.issuers.enabled", false));
+			 ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+
+			createIssuers(server.getApplicationContext());
+			HttpClient httpClient = HttpClient.newBuilder()
+					.executor(clientExecutor)
+					.connectTimeout(Duration.ofSeconds(10))
+					.build();
+
+			sendRequests(server.getURI(), httpClient, clientExecutor, WARMUP_REQUESTS);
+			return sendRequests(server.getURI(), httpClient, clientExecutor, REQUESTS);
+		}
+	}
+
+	private void createIssuers(ApplicationContext context) {
+		TILMapper listMapper = context.getBean(TILMapper.class);
+		TIRMapper registryMapper = context.getBean(TIRMapper.class);
+		TrustedIssuerRepository repository = context.getBean(TrustedIssuerRepository.class);
+		for (int i = 0; i < ISSUERS; i++) {
+			repository.save(registryMapper.encodeAttributes(listMapper.map(TrustedIssuerVOTestExample.build()
+					.did(String.format(DID_TEMPLATE, i))
+					.credentials(List.of(CredentialsVOTestExample.build(), CredentialsVOTestExample.build())))));
+		}
+	}
+
+	private LoadResult sendRequests(URI baseUri, HttpClient httpClient, ExecutorService clientExecutor,
+			int requests) throws Exception {
+		Semaphore inFlight = new Semaphore(CONCURRENCY);
+		AtomicInteger errors = new AtomicInteger();
+		List<Long> latencies = Collections.synchronizedList(new ArrayList<>(requests));
+		List<Future<?>> futures = new ArrayList<>(requests);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < requests; i++) {
+			URI issuerUri = baseUri.resolve("/v4/issuers/" + String.format(DID_TEMPLATE, i % ISSUERS));
+			inFlight.acquire();
+			futures.add(clientExecutor.submit(() -> {
+				long requestStart = System.nanoTime();
+				try {
+					HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(issuerUri).GET().build(),
+							HttpResponse.BodyHandlers.discarding());
+					if (response.statusCode() != 200) {
+						errors.incrementAndGet();
+					}
+				} catch (Exception e) {
+					errors.incrementAndGet();
+				} finally {
+					latencies.add(System.nanoTime() - requestStart);
+					inFlight.release();
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		long duration = System.nanoTime() - start;
+
+		List<Long> sortedLatencies = latencies.stream().sorted().toList();
+		long p99 = sortedLatencies.get((int) Math.ceil(sortedLatencies.size() * 0.99) - 1);
+		return new LoadResult(requests * 1_000_000_000.0 / duration, p99 / 1_000_000.0, errors.get());
+	}
+
+	private record LoadResult(double requestsPerSecond, double p99Millis, int errors) {
+
+		@Override
+		public String toString() {
+			return String.format("%.0f req/s, p99 %.2f ms, %s errors", requestsPerSecond, p99Millis, errors);
+		}
+	}
+}
@@ -1,10 +1,20 @@
 package org.fiware.iam.rest;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.annotation.Client;
 import io.micronaut.http.client.exceptions.HttpClientResponseException;
 import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
 import lombok.RequiredArgsConstructor;
+import org.fiware.iam.StatementStatistics;
+import org.fiware.iam.cache.IssuerCache;
+import org.fiware.iam.metrics.IssuerCountGauge;
+import org.fiware.iam.metrics.ServiceMetrics;
 import org.fiware.iam.repository.TrustedIssuerRepository;
 import org.fiware.iam.til.api.IssuerApiTestClient;
 import org.fiware.iam.til.model.ClaimVOTestExample;
@@ -14,6 +24,8 @@ import org.fiware.iam.til.model.TrustedIssuerVO;
 import org.fiware.iam.til.model.TrustedIssuerVOTestExample;
 import org.fiware.iam.tir.api.TirApiTestClient;
 import org.fiware.iam.tir.api.TirApiTestSpec;
+import org.fiware.iam.tir.model.IssuerResolutionRequestVO;
+import org.fiware.iam.tir.model.IssuerResolutionResponseVO;
 import org.fiware.iam.tir.model.IssuerVO;
 import org.fiware.iam.tir.model.IssuersResponseVO;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,11 +35,18 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -41,17 +60,26 @@ public class TrustedIssuerRegistryControllerTest implements TirApiTestSpec {
 	private final TirApiTestClient testClient;
 	private final IssuerApiTestClient insertionClient;
 	private final TrustedIssuerRepository repository;
+	private final IssuerCache issuerCache;
+	private final MeterRegistry meterRegistry;
+
+	@Inject
+	@Client("/")
+	private HttpClient httpClient;
 
 	private TrustedIssuerVO storedIssuer;
 	private String didToRequest;
 	private Integer pageSize = null;
-	private Integer lastPage = null;
+	private String lastPage = null;
+	private List<String> didsToResolve = null;
 
 	@BeforeEach
 	public void cleanUp() {
 		repository.deleteAll();
+		issuerCache.invalidateAll();
 		pageSize = null;
 		lastPage = null;
+		didsToResolve = null;
 		didToRequest = null;
 		storedIssuer = null;
 	}
@@ -98,6 +126,84 @@ public class TrustedIssuerRegistryControllerTest implements TirApiTestSpec {
 		);
 	}
 
+	@Test
+	public void getIssuerV4200AfterModification() throws Exception {
+		TrustedIssuerVO initialIssuer = TrustedIssuerVOTestExample.build()
+				.credentials(List.of(CredentialsVOTestExample.build()));
+		assertEquals(HttpStatus.CREATED, insertionClient.createTrustedIssuer(initialIssuer).getStatus(),
+				"The issuer should have been initially created.");
+		assertEquals(1, testClient.getIssuerV4(DID_HAPPYPETS).body().getAttributes().size(),
+				"The initial credentials should be returned.");
+		assertEquals(1, testClient.getIssuerV4(DID_HAPPYPETS).body().getAttributes().size(),
+				"The initial credentials should be returned from the cache.");
+		assertTrue(meterRegistry.get("cache.gets")
+						.tag("cache", IssuerCache.CACHE_NAME)
+						.tag("result", "hit")
+						.functionCounter()
+						.count() > 0,
+				"The cache hit should have been recorded.");
+
+		TrustedIssuerVO updatedIssuer = TrustedIssuerVOTestExample.build()
+				.credentials(List.of(CredentialsVOTestExample.build(), CredentialsVOTestExample.build()));
+		assertEquals(HttpStatus.OK, insertionClient.updateIssuer(DID_HAPPYPETS, updatedIssuer).getStatus(),
+				"The issuer should have been updated.");
+		assertEquals(2, testClient.getIssuerV4(DID_HAPPYPETS).body().getAttributes().size(),
+				"The updated credentials should be returned.");
+
+		assertEquals(HttpStatus.NO_CONTENT, insertionClient.deleteIssuerById(DID_HAPPYPETS).getStatus(),
+				"The issuer should have been deleted.");
+		assertEquals(HttpStatus.NOT_FOUND, testClient.getIssuerV4(DID_HAPPYPETS).getStatus(),
+				"Deleted issuers should not be returned from the cache.");
+	}
+
+	@Test
+	public void getIssuerV4200RecordsHotPaths() throws Exception {
+		assertEquals(HttpStatus.CREATED, insertionClient.createTrustedIssuer(TrustedIssuerVOTestExample.build()
+						.credentials(List.of(CredentialsVOTestExample.build()))).getStatus(),
+				"The issuer should initially be created.");
+		assertEquals(HttpStatus.OK, testClient.getIssuerV4(DID_HAPPYPETS).getStatus(),
+				"The issuer should be returned.");
+
+		assertRecorded("til.repository.reads", "getByDid", "getIssuerV4");
+		assertRecorded("til.mapping", "TIRMapper.map", "getIssuerV4");
+		assertRecorded("til.repository.writes", "createIssuer", "createTrustedIssuer");
+		assertNotNull(meterRegistry.get(IssuerCountGauge.METRIC_NAME).gauge(), "The issuer count should be provided.");
+	}
+
+	private void assertRecorded(String metric, String operation, String endpoint) {
+		assertTrue(meterRegistry.get(metric)
+						.tag(ServiceMetrics.OPERATION_TAG, operation)
+						.tag(ServiceMetrics.ENDPOINT_TAG, endpoint)
+						.tag(ServiceMetrics.DIALECT_TAG, "H2")
+						.timer()
+						.count() > 0,
+				String.format("The duration of %s should have been recorded for %s.", operation, endpoint));
+	}
+
+	@Test
+	public void getIssuerV4304() throws Exception {
+		assertEquals(HttpStatus.CREATED, insertionClient.createTrustedIssuer(TrustedIssuerVOTestExample.build()
+						.credentials(List.of(CredentialsVOTestExample.build()))).getStatus(),
+				"The issuer should have been initially created.");
+		HttpResponse<IssuerVO> issuerResponse = testClient.getIssuerV4(DID_HAPPYPETS);
+		String entityTag = issuerResponse.getHeaders().get(HttpHeaders.ETAG);
+		assertNotNull(entityTag, "An entity tag should be returned for the issuer.");
+
+		HttpResponse<?> conditionalResponse = httpClient.toBlocking()
+				.exchange(HttpRequest.GET("/v4/issuers/" + DID_HAPPYPETS).header(HttpHeaders.IF_NONE_MATCH, entityTag));
+		assertEquals(HttpStatus.NOT_MODIFIED, conditionalResponse.getStatus(),
+				"An unchanged issuer should not be returned again.");
+
+		assertEquals(HttpStatus.OK, insertionClient.updateIssuer(DID_HAPPYPETS, TrustedIssuerVOTestExample.build()
+						.credentials(List.of(CredentialsVOTestExample.build().credentialsType("OtherCredential"))))
+				.getStatus(), "The issuer should have been updated.");
+		conditionalResponse = httpClient.toBlocking()
+				.exchange(HttpRequest.GET("/v4/issuers/" + DID_HAPPYPETS).header(HttpHeaders.IF_NONE_MATCH, entityTag));
+		assertEquals(HttpStatus.OK, conditionalResponse.getStatus(), "A changed issuer should be returned.");
+		assertNotEquals(entityTag, conditionalResponse.getHeaders().get(HttpHeaders.ETAG),
+				"The entity tag should change with the issuer.");
+	}
+
 	@ParameterizedTest
 	@ValueSource(strings = { "my-did", "did:something-incomplete", "did.wrong.seperator" })
 	public void getIssuerV4400(String did) throws Exception {
@@ -124,6 +230,65 @@ public class TrustedIssuerRegistryControllerTest implements TirApiTestSpec {
 				"Non existing issuers should result in a 404.");
 	}
 
+	@Test
+	@Override
+	public void resolveIssuersV4200() throws Exception {
+		for (String id : List.of("a", "b")) {
+			insertionClient.createTrustedIssuer(TrustedIssuerVOTestExample.build()
+					.did(String.format(DID_TEMPLATE, id))
+					.credentials(List.of(CredentialsVOTestExample.build()
+							.claims(List.of(ClaimVOTestExample.build())))));
+		}
+		List<String> dids = List.of(String.format(DID_TEMPLATE, "a"), String.format(DID_TEMPLATE, "unknown"),
+				String.format(DID_TEMPLATE, "b"), String.format(DID_TEMPLATE, "a"));
+
+		HttpResponse<IssuerResolutionResponseVO> response = testClient.resolveIssuersV4(
+				new IssuerResolutionRequestVO().dids(dids));
+		assertEquals(HttpStatus.OK, response.getStatus(), "The issuers should have been resolved.");
+		assertEquals(4, StatementStatistics.statements(response),
+				"All issuers should be loaded with one query per level.");
+		IssuerResolutionResponseVO resolution = response.body();
+		assertEquals(2, resolution.getIssuers().size(), "Both existing issuers should be returned.");
+		assertEquals(1, resolution.getIssuers().get(String.format(DID_TEMPLATE, "b")).getAttributes().size(),
+				"The issuers should be returned with their attributes.");
+		assertEquals(List.of(String.format(DID_TEMPLATE, "unknown")), resolution.getNotFound(),
+				"The unknown issuer should be reported.");
+		assertEquals(testClient.getIssuerV4(String.format(DID_TEMPLATE, "a")).body(),
+				resolution.getIssuers().get(String.format(DID_TEMPLATE, "a")),
+				"The resolved issuer should be equal to the single one.");
+
+		response = testClient.resolveIssuersV4(new IssuerResolutionRequestVO().dids(dids));
+		assertEquals(HttpStatus.OK, response.getStatus(), "The issuers should have been resolved.");
+		assertEquals(1, StatementStatistics.statements(response), "Only the unknown issuer should be queried again.");
+		assertEquals(2, response.body().getIssuers().size(), "Both existing issuers should be returned.");
+	}
+
+	@ParameterizedTest
+	@MethodSource("invalidResolutions")
+	public void resolveIssuersV4400(List<String> dids) throws Exception {
+		this.didsToResolve = dids;
+		resolveIssuersV4400();
+	}
+
+	private static Stream<Arguments> invalidResolutions() {
+		return Stream.of(
+				Arguments.of(List.of()),
+				Arguments.of(List.of("not-a-did")),
+				Arguments.of(List.of(String.format(DID_TEMPLATE, "valid"), "did:invalid")),
+				Arguments.of(IntStream.range(0, 101).mapToObj(i -> String.format(DID_TEMPLATE, i)).toList()));
+	}
+
+	@Override
+	public void resolveIssuersV4400() throws Exception {
+		try {
+			testClient.resolveIssuersV4(new IssuerResolutionRequestVO().dids(didsToResolve));
+		} catch (HttpClientResponseException e) {
+			assertEquals(HttpStatus.BAD_REQUEST, e.getStatus(), "Invalid resolutions should result in a 400");
+			return;
+		}
+		fail("Invalid resolutions should result in a 400");
+	}
+
 	@Test
 	@Override
 	public void getIssuersV4200() throws Exception {
@@ -142,11 +307,39 @@ public class TrustedIssuerRegistryControllerTest implements TirApiTestSpec {
 		assertEquals(HttpStatus.OK, issuersResponse.getStatus(), "The issuers should have been returned");
 		assertIssuersResponse(20, 20, 10, 29, issuersResponse.body());
 
-		issuersResponse = testClient.getIssuersV4(10, 1);
+		issuersResponse = testClient.getIssuersV4(10, "1");
 		assertEquals(HttpStatus.OK, issuersResponse.getStatus(), "The issuers should have been returned");
 		assertIssuersResponse(20, 10, 20, 29, issuersResponse.body());
 	}
 
+	@Test
+	public void getIssuersV4200WithKeyset() throws Exception {
+		for (int i = 10; i < 30; i++) {
+			insertionClient.createTrustedIssuer(TrustedIssuerVOTestExample.build().did(String.format(DID_TEMPLATE, i)));
+		}
+		HttpResponse<IssuersResponseVO> issuersResponse = testClient.getIssuersV4(10, null);
+		assertEquals(HttpStatus.OK, issuersResponse.getStatus(), "The issuers should have been returned");
+		assertIssuersResponse(20, 10, 10, 19, issuersResponse.body());
+		assertNotNull(issuersResponse.body().getLinks().getLast(), "The first page should link to the last page.");
+		URI nextPage = issuersResponse.body().getLinks().getNext();
+		assertNotNull(nextPage, "A link to the next page should be returned.");
+		assertTrue(URLDecoder.decode(nextPage.getQuery(), StandardCharsets.UTF_8).contains("page[after]=did:elsi:19"),
+				"The next page should be anchored at the last issuer of the current page.");
+
+		issuersResponse = testClient.getIssuersV4(10, "did:elsi:19");
+		assertEquals(HttpStatus.OK, issuersResponse.getStatus(), "The issuers should have been returned");
+		assertIssuersResponse(20, 10, 20, 29, issuersResponse.body());
+		assertEquals(1, StatementStatistics.statements(issuersResponse),
+				"Only the DIDs of the page should be queried, the total is the count of the first page.");
+		assertNull(issuersResponse.body().getLinks().getNext(), "The last page should not link to a next page.");
+		assertNull(issuersResponse.body().getLinks().getLast(),
+				"Pages following an anchor should not link to the last page by offset.");
+
+		issuersResponse = testClient.getIssuersV4(10, "did:elsi:29");
+		assertEquals(HttpStatus.OK, issuersResponse.getStatus(), "An empty page should have been returned");
+		assertTrue(issuersResponse.body().getItems().isEmpty(), "No issuers should be returned after the last one.");
+	}
+
 	private void assertIssuersResponse(int total, int pageSize, int startIndex, int endIndex,
 			IssuersResponseVO responseVO) {
 
@@ -167,9 +360,9 @@ public class TrustedIssuerRegistryControllerTest implements TirApiTestSpec {
 		getIssuersV4400();
 	}
 
-    @ParameterizedTest
-    @ValueSource(ints = {-1})
-	public void getIssuersV4400(Integer lastPage) throws Exception {
+	@ParameterizedTest
+	@ValueSource(strings = { "-1", "not-a-did", "did:elsi" })
+	public void getIssuersV4400(String lastPage) throws Exception {
 		this.lastPage = lastPage;
 		getIssuersV4400();
 	}
@@ -0,0 +1,91 @@
+package org.fiware.iam.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import lombok.RequiredArgsConstructor;
+import org.fiware.iam.repository.TrustedIssuerRepository;
+import org.fiware.iam.til.api.IssuerApiTestClient;
+import org.fiware.iam.til.model.CredentialsVOTestExample;
+import org.fiware.iam.til.model.TrustedIssuerVO;
+import org.fiware.iam.til.model.TrustedIssuerVOTestExample;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@RequiredArgsConstructor
+@MicronautTest
+@Property(name = "til.export.chunk-size", value = "10")
+public class TrustedIssuersExportControllerTest {
+
+	private static final String EXPORT_PATH = "/issuer/export";
+
+	private final IssuerApiTestClient insertionClient;
+	private final TrustedIssuerRepository repository;
+	private final ObjectMapper objectMapper;
+
+	@Inject
+	@Client("/")
+	private HttpClient httpClient;
+
+	@BeforeEach
+	public void cleanUp() {
+		repository.deleteAll();
+	}
+
+	@Test
+	public void exportIssuers200() throws Exception {
+		// more than two chunks, with a partial last chunk
+		List<String> dids = IntStream.range(10, 35)
+				.mapToObj(i -> String.format("did:elsi:%s", i))
+				.toList();
+		dids.forEach(did -> insertionClient.createTrustedIssuer(TrustedIssuerVOTestExample.build()
+				.did(did)
+				.credentials(List.of(CredentialsVOTestExample.build()))));
+
+		List<TrustedIssuerVO> exportedIssuers = export();
+		assertEquals(dids, exportedIssuers.stream().map(TrustedIssuerVO::getDid).toList(),
+				"All issuers should have been exported exactly once, sorted by their DID.");
+		exportedIssuers.forEach(issuer -> assertEquals(1, issuer.getCredentials().size(),
+				"The issuers should be exported with their credentials."));
+	}
+
+	@Test
+	public void exportIssuersChunkAligned200() throws Exception {
+		IntStream.range(10, 30).forEach(i -> insertionClient.createTrustedIssuer(
+				TrustedIssuerVOTestExample.build().did(String.format("did:elsi:%s", i))));
+
+		assertEquals(20, export().size(), "All issuers should have been exported.");
+	}
+
+	@Test
+	public void exportIssuersEmpty200() throws Exception {
+		assertTrue(export().isEmpty(), "An empty list should be exported without any line.");
+	}
+
+	private List<TrustedIssuerVO> export() throws Exception {
+		HttpResponse<String> response = httpClient.toBlocking().exchange(
+				HttpRequest.GET(EXPORT_PATH).accept(TrustedIssuersExportController.APPLICATION_NDJSON), String.class);
+		assertEquals(HttpStatus.OK, response.getStatus(), "The export should have been successful.");
+
+		List<TrustedIssuerVO> exportedIssuers = new ArrayList<>();
+		for (String line : response.getBody().orElse("").split("\n")) {
+			if (!line.isBlank()) {
+				exportedIssuers.add(objectMapper.readValue(line, TrustedIssuerVO.class));
+			}
+		}
+		return exportedIssuers;
+	}
+}
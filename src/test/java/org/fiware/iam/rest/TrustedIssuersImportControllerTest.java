@@ -0,0 +1,181 @@
+package org.fiware.iam.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import lombok.RequiredArgsConstructor;
+import org.fiware.iam.StatementStatistics;
+import org.fiware.iam.repository.TrustedIssuerRepository;
+import org.fiware.iam.service.ImportReport;
+import org.fiware.iam.service.ImportResult;
+import org.fiware.iam.til.api.IssuerApiTestClient;
+import org.fiware.iam.til.model.ClaimVO;
+import org.fiware.iam.til.model.CredentialsVOTestExample;
+import org.fiware.iam.til.model.TrustedIssuerVO;
+import org.fiware.iam.til.model.TrustedIssuerVOTestExample;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@RequiredArgsConstructor
+@MicronautTest
+@Property(name = "til.import.chunk-size", value = "10")
+public class TrustedIssuersImportControllerTest {
+
+	private static final String IMPORT_PATH = "/issuer/bulk";
+
+	private final IssuerApiTestClient insertionClient;
+	private final TrustedIssuerRepository repository;
+	private final ObjectMapper objectMapper;
+
+	@Inject
+	@Client("/")
+	private HttpClient httpClient;
+
+	@BeforeEach
+	public void cleanUp() {
+		repository.deleteAll();
+	}
+
+	@Test
+	public void importIssuersArray200() throws Exception {
+		insertionClient.createTrustedIssuer(TrustedIssuerVOTestExample.build().did("did:elsi:15"));
+
+		List<TrustedIssuerVO> issuers = new ArrayList<>();
+		IntStream.range(10, 35).forEach(i -> issuers.add(TrustedIssuerVOTestExample.build()
+				.did(String.format("did:elsi:%s", i))
+				.credentials(List.of(CredentialsVOTestExample.build()
+						.claims(List.of(new ClaimVO()
+								.name("roles")
+								.allowedValues(List.<Object>of("GOLD", "SILVER"))))))));
+		// duplicate inside the document
+		issuers.add(TrustedIssuerVOTestExample.build().did("did:elsi:20"));
+		issuers.add(TrustedIssuerVOTestExample.build().did(null));
+
+		ImportReport report = importIssuers(objectMapper.writeValueAsString(issuers), MediaType.APPLICATION_JSON);
+
+		assertEquals(24, report.created(), "All new issuers should have been created.");
+		assertEquals(2, report.conflicts(), "The existing and the duplicate issuer should be reported.");
+		assertEquals(1, report.invalid(), "The issuer without a did should be reported.");
+		assertEquals(27, report.items().size(), "Every issuer should be reported.");
+		assertEquals(ImportResult.Status.CONFLICT, report.items().get(5).status(),
+				"The results should be in the order of the document.");
+		assertEquals(25, repository.count(), "All new issuers should have been persisted.");
+		assertEquals(1, insertionClient.getIssuer("did:elsi:34").body().getCredentials().size(),
+				"The credentials should have been persisted.");
+		assertEquals(2, insertionClient.getIssuer("did:elsi:34").body().getCredentials().getFirst()
+				.getClaims().getFirst().getAllowedValues().size(), "The claim values should have been persisted.");
+	}
+
+	@Test
+	public void importIssuersNdJson200() throws Exception {
+		String body = IntStream.range(10, 13)
+				.mapToObj(i -> String.format("{\"did\":\"did:elsi:%s\"}", i))
+				.collect(Collectors.joining("\n", "", "\n"))
+				+ "{\"did\":\"did:elsi:13\",\"credentials\":\"not-a-list\"}\n"
+				+ "{\"did\":\"did:elsi:14\"}\n";
+
+		ImportReport report = importIssuers(body, TrustedIssuersExportController.APPLICATION_NDJSON);
+
+		assertEquals(4, report.created(), "All valid issuers should have been created.");
+		assertEquals(1, report.invalid(), "The unreadable issuer should have been reported.");
+		ImportResult invalidResult = report.items().get(3);
+		assertEquals(ImportResult.Status.INVALID, invalidResult.status(), "The unreadable issuer should be invalid.");
+		assertNull(invalidResult.did(), "The did of an unreadable issuer is not known.");
+		assertTrue(repository.existsById("did:elsi:14"), "Issuers after the invalid one should be imported.");
+	}
+
+	@Test
+	public void importIssuersMalformed200() throws Exception {
+		ImportReport report = importIssuers("{\"did\":\"did:elsi:10\"}\n{\"did\":", MediaType.APPLICATION_JSON);
+
+		assertEquals(1, report.created(), "The issuer before the syntax error should have been created.");
+		assertEquals(1, report.invalid(), "The malformed rest should have been reported.");
+	}
+
+	@Test
+	public void importIssuersNull200() throws Exception {
+		ImportReport arrayReport = importIssuers("[null,{\"did\":\"did:elsi:10\"}]", MediaType.APPLICATION_JSON);
+
+		assertEquals(1, arrayReport.created(), "The issuer after the null should have been created.");
+		assertEquals(ImportResult.Status.INVALID, arrayReport.items().getFirst().status(),
+				"The null issuer should be invalid.");
+
+		ImportReport ndJsonReport = importIssuers("{\"did\":\"did:elsi:11\"}\nnull\n",
+				TrustedIssuersExportController.APPLICATION_NDJSON);
+
+		assertEquals(1, ndJsonReport.created(), "The issuer before the null should have been created.");
+		assertEquals(1, ndJsonReport.invalid(), "The null line should be reported.");
+	}
+
+	@Test
+	public void importIssuersBatched200() throws Exception {
+		List<TrustedIssuerVO> issuers = IntStream.range(10, 20)
+				.mapToObj(i -> TrustedIssuerVOTestExample.build()
+						.did(String.format("did:elsi:%s", i))
+						.credentials(List.of()))
+				.toList();
+
+		HttpResponse<ImportReport> response = importResponse(objectMapper.writeValueAsString(issuers),
+				MediaType.APPLICATION_JSON);
+
+		assertEquals(10, response.body().created(), "All issuers should have been created.");
+		assertEquals(1, StatementStatistics.writes(response),
+				"The issuers of a chunk should be inserted as one batch.");
+	}
+
+	@Test
+	public void importIssuersNestedBatched200() throws Exception {
+		List<TrustedIssuerVO> issuers = IntStream.range(10, 20)
+				.mapToObj(i -> TrustedIssuerVOTestExample.build()
+						.did(String.format("did:elsi:%s", i))
+						.credentials(IntStream.range(0, 2)
+								.mapToObj(c -> CredentialsVOTestExample.build()
+										.credentialsType(String.format("Type%s", c))
+										.claims(List.of(
+												new ClaimVO().name("roles")
+														.allowedValues(List.<Object>of("GOLD", "SILVER")),
+												new ClaimVO().name("level")
+														.allowedValues(List.<Object>of(1, 2)))))
+								.toList()))
+				.toList();
+
+		HttpResponse<ImportReport> response = importResponse(objectMapper.writeValueAsString(issuers),
+				MediaType.APPLICATION_JSON);
+
+		assertEquals(10, response.body().created(), "All issuers should have been created.");
+		assertEquals(4, StatementStatistics.writes(response),
+				"The issuers, credentials, claims and values of a chunk should be inserted with one batch each.");
+		assertEquals(10 + 20 + 40 + 80, StatementStatistics.writtenRows(response),
+				"Every entity of the chunk should be inserted exactly once.");
+		assertEquals(2, insertionClient.getIssuer("did:elsi:19").body().getCredentials().getLast()
+				.getClaims().getLast().getAllowedValues().size(),
+				"The nested entities should be linked to their parents.");
+	}
+
+	private ImportReport importIssuers(String body, String contentType) {
+		return importResponse(body, contentType).body();
+	}
+
+	private HttpResponse<ImportReport> importResponse(String body, String contentType) {
+		HttpResponse<ImportReport> response = httpClient.toBlocking().exchange(
+				HttpRequest.POST(IMPORT_PATH, body).contentType(contentType), ImportReport.class);
+		assertEquals(HttpStatus.OK, response.getStatus(), "The import should have been processed.");
+		return response;
+	}
+}
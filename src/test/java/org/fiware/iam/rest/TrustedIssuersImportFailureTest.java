@@ -0,0 +1,146 @@
+package org.fiware.iam.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.context.annotation.Replaces;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.core.type.Argument;
+import io.micronaut.data.exceptions.DataAccessException;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.fiware.iam.TILMapper;
+import org.fiware.iam.TIRMapper;
+import org.fiware.iam.repository.CredentialsDocumentCodec;
+import org.fiware.iam.repository.TrustedIssuerGraphWriter;
+import org.fiware.iam.repository.TrustedIssuerRepository;
+import org.fiware.iam.service.ImportReport;
+import org.fiware.iam.service.ImportResult;
+import org.fiware.iam.service.TrustedIssuerImporter;
+import org.fiware.iam.til.model.TrustedIssuerVO;
+import org.fiware.iam.til.model.TrustedIssuerVOTestExample;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Forces chunks of the bulk import to fail, by writes of other requests and by the database.
+ */
+@RequiredArgsConstructor
+@MicronautTest
+@Property(name = "til.import.chunk-size", value = "10")
+@Property(name = "test.import.conflicting-did", value = "did:elsi:15")
+@Property(name = "test.import.failing-did", value = "did:elsi:35")
+@Property(name = "datasources.default.url", value = "jdbc:h2:mem:importFailureDb;LOCK_TIMEOUT=10000;DB_CLOSE_ON_EXIT=FALSE")
+public class TrustedIssuersImportFailureTest {
+
+	private static final String IMPORT_PATH = "/issuer/bulk";
+
+	private final TrustedIssuerRepository repository;
+	private final ObjectMapper objectMapper;
+
+	@Inject
+	@Client("/")
+	private HttpClient httpClient;
+
+	@BeforeEach
+	public void cleanUp() {
+		repository.deleteAll();
+	}
+
+	@Test
+	public void importIssuersConflict200() throws Exception {
+		ImportReport report = httpClient.toBlocking().retrieve(
+				HttpRequest.POST(IMPORT_PATH, issuers(10, 20)).contentType(MediaType.APPLICATION_JSON),
+				ImportReport.class);
+
+		assertEquals(9, report.created(), "All other issuers of the conflicting chunk should have been created.");
+		assertEquals(1, report.conflicts(), "The concurrently created issuer should be reported as conflict.");
+		assertEquals(ImportResult.Status.CONFLICT, report.items().get(5).status(),
+				"The results should be in the order of the document.");
+		assertEquals(9, repository.count(), "All other issuers should have been persisted.");
+	}
+
+	@Test
+	public void importIssuersFailure500() throws Exception {
+		HttpClientResponseException exception = assertThrows(HttpClientResponseException.class,
+				() -> httpClient.toBlocking().exchange(
+						HttpRequest.POST(IMPORT_PATH, issuers(10, 40)).contentType(MediaType.APPLICATION_JSON),
+						Argument.of(ImportReport.class), Argument.of(ImportReport.class)));
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, exception.getStatus(), "The failed import should be a 500.");
+
+		ImportReport report = exception.getResponse().getBody(ImportReport.class).orElseThrow();
+		assertEquals(19, report.created(), "The issuers of the chunks before the failure should be reported.");
+		assertEquals(1, report.conflicts(), "The conflict before the failure should be reported.");
+		assertEquals(10, report.failed(), "The whole failing chunk should be reported.");
+		assertEquals(30, report.items().size(), "Every processed issuer should be reported.");
+		assertEquals(ImportResult.Status.FAILED, report.items().get(20).status(),
+				"The failed chunk should follow the written ones.");
+		assertTrue(repository.existsById("did:elsi:29"), "Written chunks should stay persisted.");
+		assertFalse(repository.existsById("did:elsi:30"), "The failing chunk should have been rolled back.");
+	}
+
+	private String issuers(int from, int to) throws Exception {
+		List<TrustedIssuerVO> issuers = IntStream.range(from, to)
+				.mapToObj(i -> TrustedIssuerVOTestExample.build().did(String.format("did:elsi:%s", i)))
+				.toList();
+		return objectMapper.writeValueAsString(issuers);
+	}
+
+	/**
+	 * Fails every chunk containing the configured dids. The conflicting did behaves as if it was created by another
+	 * request after the chunk checked for existing issuers.
+	 */
+	@Singleton
+	@Replaces(TrustedIssuerImporter.class)
+	@Requires(property = "test.import.failing-did")
+	public static class FailingImporter extends TrustedIssuerImporter {
+
+		private final String conflictingDid;
+		private final String failingDid;
+
+		public FailingImporter(TrustedIssuerRepository trustedIssuerRepository, TILMapper trustedIssuerMapper,
+				TIRMapper registryMapper, CredentialsDocumentCodec credentialsDocumentCodec,
+				TrustedIssuerGraphWriter trustedIssuerGraphWriter,
+				@Value("${test.import.conflicting-did}") String conflictingDid,
+				@Value("${test.import.failing-did}") String failingDid) {
+			super(trustedIssuerRepository, trustedIssuerMapper, registryMapper, credentialsDocumentCodec,
+					trustedIssuerGraphWriter);
+			this.conflictingDid = conflictingDid;
+			this.failingDid = failingDid;
+		}
+
+		@Transactional
+		@Override
+		public List<ImportResult> importChunk(List<ImportItem> chunk) {
+			if (contains(chunk, conflictingDid)) {
+				throw new DataAccessException("Duplicate did.", new SQLException("Duplicate did.", "23505"));
+			}
+			if (contains(chunk, failingDid)) {
+				throw new DataAccessException("Connection lost.", new SQLException("Connection lost.", "08006"));
+			}
+			return super.importChunk(chunk);
+		}
+
+		private static boolean contains(List<ImportItem> chunk, String did) {
+			return chunk.stream().anyMatch(item -> did.equals(item.issuer().getDid()));
+		}
+	}
+}
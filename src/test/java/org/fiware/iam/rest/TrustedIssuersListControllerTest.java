@@ -5,6 +5,7 @@ import io.micronaut.http.HttpStatus;
 import io.micronaut.http.client.exceptions.HttpClientResponseException;
 import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
 import lombok.RequiredArgsConstructor;
+import org.fiware.iam.StatementStatistics;
 import org.fiware.iam.repository.TrustedIssuerRepository;
 import org.fiware.iam.TILMapper;
 import org.fiware.iam.til.api.IssuerApiTestClient;
@@ -18,6 +19,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -123,6 +125,40 @@ public class TrustedIssuersListControllerTest
                 "The issuer should not exist in the repository anymore.");
     }
 
+    @Test
+    public void createTrustedIssuer409WithoutLookup() throws Exception {
+        TrustedIssuerVO theIssuer = TrustedIssuerVOTestExample.build().credentials(List.of());
+        HttpResponse<?> createResponse = testClient.createTrustedIssuer(theIssuer);
+        assertEquals(HttpStatus.CREATED, createResponse.getStatus(), "The issuer should initially be created.");
+        assertEquals(1, StatementStatistics.statements(createResponse),
+                "The issuer should have been created with a single insert.");
+
+        try {
+            testClient.createTrustedIssuer(theIssuer);
+        } catch (HttpClientResponseException e) {
+            assertEquals(HttpStatus.CONFLICT, e.getStatus(), "The issuer should not have been created.");
+            assertEquals(1, StatementStatistics.statements(e.getResponse()),
+                    "The conflict should have been detected by the insert.");
+            return;
+        }
+        fail("The creation attempt should fail for an already existing issuer.");
+    }
+
+    @Test
+    public void deleteIssuerById204SingleStatement() throws Exception {
+        TrustedIssuerVO theIssuer = TrustedIssuerVOTestExample.build()
+                .credentials(List.of(CredentialsVOTestExample.build().claims(List.of(ClaimVOTestExample.build()))));
+        assertEquals(HttpStatus.CREATED, testClient.createTrustedIssuer(theIssuer).getStatus(),
+                "The issuer should initially be created.");
+
+        HttpResponse<?> deletionResponse = testClient.deleteIssuerById(theIssuer.getDid());
+        assertEquals(HttpStatus.NO_CONTENT, deletionResponse.getStatus(), "The deletion request should succeed.");
+        assertEquals(1, StatementStatistics.statements(deletionResponse),
+                "The issuer should have been deleted with a single statement.");
+        assertTrue(repository.getByDid(theIssuer.getDid()).isEmpty(),
+                "The issuer should not exist in the repository anymore.");
+    }
+
     @Override
     @Test
     public void deleteIssuerById404() throws Exception {
@@ -141,6 +177,21 @@ public class TrustedIssuersListControllerTest
         assertEquals(theIssuer, getResponse.body(), "The issuer should be the same");
     }
 
+    @Test
+    public void getIssuer200KeepsValueTypes() throws Exception {
+        List<Object> allowedValues = List.of("test", "1", 1, 1.5, true, Map.of("role", "admin"), List.of("a", "b"));
+        TrustedIssuerVO theIssuer = TrustedIssuerVOTestExample.build()
+                .credentials(List.of(CredentialsVOTestExample.build().claims(List.of(
+                        ClaimVOTestExample.build().allowedValues(allowedValues)))));
+        assertEquals(HttpStatus.CREATED, testClient.createTrustedIssuer(theIssuer).getStatus(),
+                "The issuer should initially be created.");
+        HttpResponse<TrustedIssuerVO> getResponse = testClient.getIssuer(theIssuer.getDid());
+        assertEquals(HttpStatus.OK, getResponse.getStatus(), "The retrieval request should succeed.");
+        assertEquals(allowedValues,
+                getResponse.body().getCredentials().get(0).getClaims().get(0).getAllowedValues(),
+                "All values should be returned with the type they were written with.");
+    }
+
     @Test
     @Override
     public void getIssuer404() throws Exception {
@@ -188,6 +239,24 @@ public class TrustedIssuersListControllerTest
                 "Second page should start after first page items.");
     }
 
+    @Test
+    public void getIssuers200SelectsOnlyDids() throws Exception {
+        for (int i = 10; i < 30; i++) {
+            testClient.createTrustedIssuer(TrustedIssuerVOTestExample.build()
+                    .did(String.format("did:elsi:%s", i))
+                    .credentials(List.of(
+                            CredentialsVOTestExample.build().claims(List.of(ClaimVOTestExample.build())),
+                            CredentialsVOTestExample.build().claims(List.of(ClaimVOTestExample.build())))));
+        }
+
+        HttpResponse<TrustedIssuersListResponseVO> response = testClient.getIssuers(20, null);
+        assertEquals(HttpStatus.OK, response.getStatus(), "The issuers should have been returned.");
+        assertEquals(20, response.body().getItems().size(), "All issuers should be returned in one page.");
+        // one query for the page of DIDs, one for the total
+        assertEquals(2, StatementStatistics.statements(response),
+                "The credentials should not be loaded for the listing.");
+    }
+
     @Test
     public void getIssuersEmpty200() throws Exception {
         HttpResponse<TrustedIssuersListResponseVO> response = testClient.getIssuers(null, null);
@@ -258,6 +327,88 @@ public class TrustedIssuersListControllerTest
         assertEquals(HttpStatus.NOT_FOUND, updateResponse.getStatus(), "The replacement should result in a 404.");
     }
 
+    @Test
+    public void updateIssuer200WritesOnlyChangedRows() throws Exception {
+        TrustedIssuerVO initialIssuer = wideIssuer("did:elsi:wide", 3, 2, 3);
+        assertEquals(HttpStatus.CREATED, testClient.createTrustedIssuer(initialIssuer).getStatus(),
+                "The issuer should initially be created.");
+        TrustedIssuerVO issuerUpdate = wideIssuer("did:elsi:wide", 3, 2, 3);
+        issuerUpdate.getCredentials().get(1).getClaims().get(1).getAllowedValues().set(2, "changed");
+
+        HttpResponse<?> updateResponse = testClient.updateIssuer(issuerUpdate.getDid(), issuerUpdate);
+        assertEquals(HttpStatus.OK, updateResponse.getStatus(), "The issuer should have been updated.");
+        // the claim value, the attribute of its credential and the digest of the issuer
+        assertEquals(3, StatementStatistics.writtenRows(updateResponse),
+                "Only the changed rows should have been written.");
+
+        TrustedIssuerVO updatedIssuerVO = trustedIssuerMapper.map(repository.getByDid(issuerUpdate.getDid()).get());
+        assertEquals(trustedIssuerMapper.map(trustedIssuerMapper.map(issuerUpdate)), updatedIssuerVO,
+                "The updated issuer should match.");
+    }
+
+    @Test
+    public void updateIssuer200MatchesByKey() throws Exception {
+        assertEquals(HttpStatus.CREATED, testClient.createTrustedIssuer(wideIssuer("did:elsi:wide", 3, 2, 3))
+                .getStatus(), "The issuer should initially be created.");
+        TrustedIssuerVO issuerUpdate = wideIssuer("did:elsi:wide", 3, 2, 3);
+        List<CredentialsVO> credentials = new ArrayList<>(issuerUpdate.getCredentials());
+        credentials.addFirst(wideIssuer("did:elsi:wide", 1, 2, 3).getCredentials().getFirst()
+                .credentialsType("NewCredential"));
+        issuerUpdate.credentials(credentials);
+
+        HttpResponse<TrustedIssuerVO> updateResponse = testClient.updateIssuer(issuerUpdate.getDid(), issuerUpdate);
+        assertEquals(HttpStatus.OK, updateResponse.getStatus(), "The issuer should have been updated.");
+        // one batch per level of the new credential and the digest of the issuer
+        assertEquals(4, StatementStatistics.writes(updateResponse),
+                "The existing credentials should not have been written.");
+        assertEquals(1 + 2 + 6 + 1, StatementStatistics.writtenRows(updateResponse),
+                "Only the new credential, its claims and values and the digest should have been written.");
+
+        TrustedIssuerVO updatedIssuerVO = trustedIssuerMapper.map(repository.getByDid(issuerUpdate.getDid()).get());
+        assertEquals(List.of("Credential0", "Credential1", "Credential2", "NewCredential"),
+                updatedIssuerVO.getCredentials().stream().map(CredentialsVO::getCredentialsType).toList(),
+                "The new credential should have been appended.");
+        assertEquals(updatedIssuerVO, updateResponse.body(), "The response should be returned in the stored order.");
+    }
+
+    @Test
+    public void updateIssuer200ResizesLists() throws Exception {
+        assertEquals(HttpStatus.CREATED, testClient.createTrustedIssuer(wideIssuer("did:elsi:wide", 3, 2, 3))
+                .getStatus(), "The issuer should initially be created.");
+        TrustedIssuerVO shrunkIssuer = wideIssuer("did:elsi:wide", 2, 3, 1);
+        assertEquals(HttpStatus.OK, testClient.updateIssuer(shrunkIssuer.getDid(), shrunkIssuer).getStatus(),
+                "The issuer should have been shrunk.");
+        assertEquals(trustedIssuerMapper.map(trustedIssuerMapper.map(shrunkIssuer)),
+                trustedIssuerMapper.map(repository.getByDid(shrunkIssuer.getDid()).get()),
+                "Surplus credentials and values should have been removed, the new claims added.");
+
+        TrustedIssuerVO grownIssuer = wideIssuer("did:elsi:wide", 4, 1, 4);
+        assertEquals(HttpStatus.OK, testClient.updateIssuer(grownIssuer.getDid(), grownIssuer).getStatus(),
+                "The issuer should have been grown.");
+        assertEquals(trustedIssuerMapper.map(trustedIssuerMapper.map(grownIssuer)),
+                trustedIssuerMapper.map(repository.getByDid(grownIssuer.getDid()).get()),
+                "New credentials and values should have been appended, surplus claims removed.");
+    }
+
+    private static TrustedIssuerVO wideIssuer(String did, int credentials, int claims, int values) {
+        List<CredentialsVO> credentialsVOS = new ArrayList<>();
+        for (int i = 0; i < credentials; i++) {
+            List<ClaimVO> claimVOS = new ArrayList<>();
+            for (int j = 0; j < claims; j++) {
+                List<Object> allowedValues = new ArrayList<>();
+                for (int k = 0; k < values; k++) {
+                    allowedValues.add(String.format("value-%s-%s-%s", i, j, k));
+                }
+                claimVOS.add(ClaimVOTestExample.build().name(String.format("claim-%s", j)).allowedValues(allowedValues));
+            }
+            credentialsVOS.add(CredentialsVOTestExample.build()
+                    .credentialsType(String.format("Credential%s", i))
+                    .validFor(null)
+                    .claims(claimVOS));
+        }
+        return TrustedIssuerVOTestExample.build().did(did).credentials(credentialsVOS);
+    }
+
     @Override
     public void updateIssuer400() throws Exception {
         assertEquals(HttpStatus.CREATED, testClient.createTrustedIssuer(issuerUpdate.initialIssuer).getStatus(),